@@ -0,0 +1,36 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.benchmark;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.LongAdder;
+
+// counts the frames received by the test server instead of keeping them for the whole run
+final class ConcurrentLinkedDequeDiscarding extends ConcurrentLinkedDeque<byte[]> {
+
+    private final LongAdder received;
+
+    ConcurrentLinkedDequeDiscarding(LongAdder received) {
+        this.received = received;
+    }
+
+    @Override
+    public boolean add(byte[] bytes) {
+        received.increment();
+        return true;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.benchmark;
+
+import com.teragrep.jla_06.lib.syslog.SyslogBytes;
+import com.teragrep.jla_06.lib.syslog.eventid.EventIDGenerator;
+import com.teragrep.jla_06.lib.syslog.eventid.EventIDGeneratorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// one generator shared by all benchmark threads, as in the appender
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(
+        iterations = 3,
+        time = 2
+)
+@Measurement(
+        iterations = 5,
+        time = 2
+)
+@Fork(1)
+public class EventIDGeneratorBenchmark {
+
+    // the appender passes the record timestamp, the generator does not read the clock
+    private static final long EPOCH_MILLIS = 1700000000000L;
+
+    @Param({
+            "secure", "threadLocalRandom", "timeOrdered", "sequence"
+    })
+    public String eventIDGenerator;
+
+    private EventIDGenerator generator;
+
+    @Setup
+    public void setup() {
+        generator = new EventIDGeneratorFactory().create(eventIDGenerator);
+    }
+
+    @State(Scope.Thread)
+    public static class Target {
+
+        public final SyslogBytes syslogBytes = new SyslogBytes(64);
+    }
+
+    @Benchmark
+    public UUID next() {
+        return generator.next(EPOCH_MILLIS);
+    }
+
+    @Benchmark
+    public int writeTo(Target target) {
+        target.syslogBytes.clear();
+        generator.writeTo(target.syslogBytes, EPOCH_MILLIS);
+        return target.syslogBytes.length();
+    }
+}
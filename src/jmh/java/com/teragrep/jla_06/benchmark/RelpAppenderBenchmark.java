@@ -0,0 +1,133 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.benchmark;
+
+import com.teragrep.jla_06.RelpAppender;
+import com.teragrep.jla_06.server.TestServer;
+import com.teragrep.jla_06.server.TestServerFactory;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.Layout;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.core.layout.PatternLayout;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// RelpAppender.append end to end against the in-process rlp_03 test server, run with -t 1, -t 8 and -t 64
+@State(Scope.Benchmark)
+@BenchmarkMode({
+        Mode.Throughput, Mode.SampleTime
+})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(
+        iterations = 3,
+        time = 5
+)
+@Measurement(
+        iterations = 5,
+        time = 5
+)
+@Fork(1)
+public class RelpAppenderBenchmark {
+
+    private static final int PORT = 1611;
+
+    // unsynchronized, or synchronizedAccess with the given synchronizedAccessMode
+    @Param({
+            "unsynchronized", "lock", "combining"
+    })
+    public String access;
+
+    @Param({
+            "true", "false"
+    })
+    public boolean useSD;
+
+    @Param({
+            "false", "true"
+    })
+    public boolean enableSystemID;
+
+    @Param({
+            "64", "1024", "16384", "65536"
+    })
+    public int payloadSize;
+
+    private LongAdder received;
+    private TestServer server;
+    private RelpAppender relpAppender;
+    private LogEvent logEvent;
+
+    @Setup
+    public void setup() throws IOException {
+        received = new LongAdder();
+        server = new TestServerFactory()
+                .create(PORT, new ConcurrentLinkedDequeDiscarding(received), new AtomicLong(), new AtomicLong());
+        server.run();
+
+        final Layout<String> layout = PatternLayout
+                .newBuilder()
+                .withPattern("%msg")
+                .withCharset(StandardCharsets.UTF_8)
+                .build();
+        relpAppender = RelpAppender
+                .createAppender(
+                        "benchmark", false, "jla-06-benchmark", "jla-06-benchmark", 5000, 5000, 500, 5000, useSD,
+                        "127.0.0.1", PORT, false, null, null, null, enableSystemID, "benchmark", 100_000, true, 150_000,
+                        !"unsynchronized".equals(access), false, 8192, 1, "blocking", "block", 128, "threadLocalRandom", false, false, 0, 0, 5000, "wait", false, 0, "", "roundRobin", 3, 30000, "", 67_108_864, 1_073_741_824L, 1000, 0, false, 128, false, "unsynchronized".equals(access) ? "lock" : access, 0, 0, 0, 1024, 60000, 0, 0, 0, "", 0, false, 0, 0, "", "context@48577", 100, layout, null
+                );
+        relpAppender.start();
+
+        final char[] chars = new char[payloadSize];
+        Arrays.fill(chars, 'x');
+        logEvent = Log4jLogEvent
+                .newBuilder()
+                .setMessage(new SimpleMessage(new String(chars)))
+                .setLoggerName("benchmark")
+                .setLevel(Level.INFO)
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        relpAppender.stop();
+        server.close();
+    }
+
+    @Benchmark
+    public void append() {
+        relpAppender.append(logEvent);
+    }
+}
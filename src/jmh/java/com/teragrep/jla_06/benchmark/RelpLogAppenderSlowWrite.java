@@ -0,0 +1,63 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.benchmark;
+
+import com.teragrep.jla_06.lib.RelpLogAppender;
+import com.teragrep.jla_06.lib.syslog.SyslogRecord;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+// stands in for a connection, every append call waits for one RELP round trip and each record costs encoding work
+final class RelpLogAppenderSlowWrite implements RelpLogAppender {
+
+    private final long roundTripNanos;
+    private final long recordTokens;
+
+    RelpLogAppenderSlowWrite(long roundTripNanos, long recordTokens) {
+        this.roundTripNanos = roundTripNanos;
+        this.recordTokens = recordTokens;
+    }
+
+    @Override
+    public void start() {
+        // nothing to open
+    }
+
+    @Override
+    public void append(SyslogRecord syslogRecord) {
+        Blackhole.consumeCPU(recordTokens);
+        LockSupport.parkNanos(roundTripNanos);
+    }
+
+    @Override
+    public void append(List<SyslogRecord> syslogRecords) {
+        Blackhole.consumeCPU(recordTokens * syslogRecords.size());
+        LockSupport.parkNanos(roundTripNanos);
+    }
+
+    @Override
+    public void stop() {
+        // nothing to close
+    }
+
+    @Override
+    public boolean isStub() {
+        return false;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.benchmark;
+
+import com.teragrep.jla_06.lib.RelpLogAppender;
+import com.teragrep.jla_06.lib.SynchronizedAccessFactory;
+import com.teragrep.jla_06.lib.syslog.SyslogRecord;
+import com.teragrep.jla_06.lib.syslog.SyslogRecordConfigured;
+import com.teragrep.jla_06.lib.syslog.SyslogRecordWithPayload;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// RelpLogAppenderSynchronized against RelpLogAppenderCombining over a simulated connection, run with -t 1, -t 8 and -t 64
+@State(Scope.Benchmark)
+@BenchmarkMode({
+        Mode.Throughput, Mode.SampleTime
+})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(
+        iterations = 3,
+        time = 2
+)
+@Measurement(
+        iterations = 5,
+        time = 2
+)
+@Fork(1)
+public class SynchronizedAccessBenchmark {
+
+    @Param({
+            "lock", "combining"
+    })
+    public String synchronizedAccessMode;
+
+    @Param({
+            "10", "100"
+    })
+    public long roundTripMicros;
+
+    private RelpLogAppender relpLogAppender;
+    private SyslogRecord syslogRecord;
+
+    @Setup
+    public void setup() {
+        relpLogAppender = new SynchronizedAccessFactory()
+                .create(
+                        synchronizedAccessMode,
+                        new RelpLogAppenderSlowWrite(TimeUnit.MICROSECONDS.toNanos(roundTripMicros), 1000), 128
+                );
+        relpLogAppender.start();
+        syslogRecord = new SyslogRecordWithPayload(new SyslogRecordConfigured("benchmark", "benchmark"), "payload");
+    }
+
+    @TearDown
+    public void tearDown() {
+        relpLogAppender.stop();
+    }
+
+    @Benchmark
+    public void append() {
+        relpLogAppender.append(syslogRecord);
+    }
+}
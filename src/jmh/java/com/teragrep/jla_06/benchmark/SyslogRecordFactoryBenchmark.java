@@ -0,0 +1,154 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.benchmark;
+
+import com.teragrep.jla_06.SyslogRecordFactory;
+import com.teragrep.jla_06.lib.syslog.ContextDataElement;
+import com.teragrep.jla_06.lib.syslog.SyslogBuffer;
+import com.teragrep.jla_06.lib.syslog.SyslogTemplate;
+import com.teragrep.jla_06.lib.syslog.eventid.EventIDGeneratorFactory;
+import com.teragrep.jla_06.lib.syslog.severity.SeverityMappingFixed;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.Layout;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.ContextDataFactory;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.core.layout.PatternLayout;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.apache.logging.log4j.util.StringMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// syslog record creation and encoding without the network, as done on the logging thread before sending
+@State(Scope.Benchmark)
+@BenchmarkMode({
+        Mode.Throughput, Mode.SampleTime
+})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(
+        iterations = 3,
+        time = 2
+)
+@Measurement(
+        iterations = 5,
+        time = 2
+)
+@Fork(1)
+public class SyslogRecordFactoryBenchmark {
+
+    @Param({
+            "true", "false"
+    })
+    public boolean useSD;
+
+    @Param({
+            "false", "true"
+    })
+    public boolean enableSystemID;
+
+    @Param({
+            "64", "1024", "16384", "65536"
+    })
+    public int payloadSize;
+
+    @Param({
+            "0", "4"
+    })
+    public int contextDataKeys;
+
+    private SyslogRecordFactory syslogRecordFactory;
+    private String payload;
+    private Layout<String> layout;
+    private LogEvent logEvent;
+
+    @Setup
+    public void setup() {
+        final List<String> keys = new ArrayList<>();
+        final StringMap contextData = ContextDataFactory.createContextData();
+        for (int i = 0; i < contextDataKeys; i++) {
+            keys.add("key" + i);
+            contextData.putValue("key" + i, "value \"" + i + "\"");
+        }
+        syslogRecordFactory = new SyslogRecordFactory(
+                new SyslogTemplate(
+                        "jla-06-benchmark",
+                        "jla-06-benchmark",
+                        "localhost",
+                        useSD,
+                        enableSystemID,
+                        "benchmark",
+                        new EventIDGeneratorFactory().create("threadLocalRandom")
+                ),
+                () -> "localhost",
+                new SeverityMappingFixed(),
+                new ContextDataElement("context@48577", keys)
+        );
+        final char[] chars = new char[payloadSize];
+        Arrays.fill(chars, 'x');
+        payload = new String(chars);
+        layout = PatternLayout.newBuilder().withPattern("%msg").withCharset(StandardCharsets.UTF_8).build();
+        logEvent = Log4jLogEvent
+                .newBuilder()
+                .setMessage(new SimpleMessage(payload))
+                .setLoggerName("benchmark")
+                .setLevel(Level.INFO)
+                .setContextData(contextData)
+                .build();
+    }
+
+    @State(Scope.Thread)
+    public static class Encoding {
+
+        public final SyslogBuffer syslogBuffer = new SyslogBuffer();
+    }
+
+    @Benchmark
+    public byte[] createPayload(Encoding encoding) {
+        encoding.syslogBuffer.clear();
+        syslogRecordFactory.create(payload, logEvent, System.currentTimeMillis()).writeTo(encoding.syslogBuffer);
+        return encoding.syslogBuffer.toBytes();
+    }
+
+    @Benchmark
+    public byte[] createLayout(Encoding encoding) {
+        encoding.syslogBuffer.clear();
+        syslogRecordFactory.create(layout, logEvent, System.currentTimeMillis()).writeTo(encoding.syslogBuffer);
+        return encoding.syslogBuffer.toBytes();
+    }
+
+    @Benchmark
+    public byte[] reuseLayout(Encoding encoding) {
+        encoding.syslogBuffer.clear();
+        syslogRecordFactory.reuse(layout, logEvent, System.currentTimeMillis()).writeTo(encoding.syslogBuffer);
+        return encoding.syslogBuffer.toBytes();
+    }
+}
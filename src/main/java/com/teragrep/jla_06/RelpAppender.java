@@ -17,21 +17,61 @@
 package com.teragrep.jla_06;
 
 import com.teragrep.jla_06.lib.RelpLogAppender;
+import com.teragrep.jla_06.lib.RelpLogAppenderAsync;
+import com.teragrep.jla_06.lib.RelpLogAppenderEndOfBatch;
 import com.teragrep.jla_06.lib.RelpLogAppenderImpl;
-import com.teragrep.jla_06.lib.RelpLogAppenderSynchronized;
+import com.teragrep.jla_06.lib.RelpLogAppenderJournaled;
+import com.teragrep.jla_06.lib.RelpLogAppenderStub;
+import com.teragrep.jla_06.lib.SynchronizedAccessFactory;
+import com.teragrep.jla_06.lib.async.FullQueuePolicy;
+import com.teragrep.jla_06.lib.async.FullQueuePolicyFactory;
+import com.teragrep.jla_06.lib.async.RingBuffer;
+import com.teragrep.jla_06.lib.async.SenderThreadFactory;
+import com.teragrep.jla_06.lib.async.WaitStrategy;
+import com.teragrep.jla_06.lib.async.WaitStrategyFactory;
+import com.teragrep.jla_06.lib.connection.ConnectionCloser;
+import com.teragrep.jla_06.lib.connection.RelpBatchConnection;
+import com.teragrep.jla_06.lib.connection.RelpBatchConnectionClosedInParallel;
+import com.teragrep.jla_06.lib.connection.RelpBatchConnectionFactory;
+import com.teragrep.jla_06.lib.connection.RelpBatchConnectionStub;
+import com.teragrep.jla_06.lib.destination.RelpBatchConnectionBalanced;
+import com.teragrep.jla_06.lib.destination.RelpDestination;
+import com.teragrep.jla_06.lib.destination.RelpDestinationPool;
+import com.teragrep.jla_06.lib.destination.RelpDestinationSelectionFactory;
+import com.teragrep.jla_06.lib.journal.Journal;
+import com.teragrep.jla_06.lib.journal.JournalReplayer;
+import com.teragrep.jla_06.lib.journal.JournalReplayerImpl;
+import com.teragrep.jla_06.lib.journal.JournalReplayerStub;
+import com.teragrep.jla_06.lib.journal.RelpBatchConnectionJournaled;
+import com.teragrep.jla_06.lib.metrics.RelpAppenderMetrics;
+import com.teragrep.jla_06.lib.metrics.RelpMetrics;
+import com.teragrep.jla_06.lib.pool.ConnectionPoolFactory;
+import com.teragrep.jla_06.lib.pool.ConnectionPoolClosedInParallel;
+import com.teragrep.jla_06.lib.pool.ConnectionPrewarmer;
+import com.teragrep.jla_06.lib.ratelimit.RateLimiter;
+import com.teragrep.jla_06.lib.ratelimit.RateLimiterImpl;
+import com.teragrep.jla_06.lib.ratelimit.RateLimiterStub;
+import com.teragrep.jla_06.lib.shedding.LoadShedder;
+import com.teragrep.jla_06.lib.shedding.LoadShedderImpl;
+import com.teragrep.jla_06.lib.shedding.LoadShedderStub;
+import com.teragrep.jla_06.lib.suppression.RepeatSuppressor;
+import com.teragrep.jla_06.lib.suppression.RepeatSuppressorImpl;
+import com.teragrep.jla_06.lib.suppression.RepeatSuppressorStub;
+import com.teragrep.jla_06.lib.syslog.ContextDataElement;
 import com.teragrep.jla_06.lib.syslog.SyslogRecord;
-import com.teragrep.jla_06.lib.syslog.hostname.Hostname;
-import com.teragrep.rlp_01.client.IManagedRelpConnection;
-import com.teragrep.rlp_01.client.ManagedRelpConnectionStub;
+import com.teragrep.jla_06.lib.syslog.SyslogTemplate;
+import com.teragrep.jla_06.lib.syslog.eventid.EventIDGeneratorFactory;
+import com.teragrep.jla_06.lib.syslog.hostname.HostnameCache;
+import com.teragrep.jla_06.lib.syslog.severity.SeverityMappingFixed;
+import com.teragrep.jla_06.lib.syslog.severity.SeverityMappingLevel;
 import com.teragrep.rlp_01.client.RelpConfig;
-import com.teragrep.rlp_01.client.RelpConnectionFactory;
 import com.teragrep.rlp_01.client.SSLContextSupplier;
 import com.teragrep.rlp_01.client.SSLContextSupplierKeystore;
 import com.teragrep.rlp_01.client.SSLContextSupplierStub;
 import com.teragrep.rlp_01.client.SocketConfig;
 import com.teragrep.rlp_01.client.SocketConfigImpl;
 import com.teragrep.rlp_01.pool.Pool;
-import com.teragrep.rlp_01.pool.UnboundPool;
+import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.core.*;
 import org.apache.logging.log4j.core.appender.AbstractAppender;
 import org.apache.logging.log4j.core.config.Property;
@@ -39,10 +79,27 @@ import org.apache.logging.log4j.core.config.plugins.Plugin;
 import org.apache.logging.log4j.core.config.plugins.PluginAttribute;
 import org.apache.logging.log4j.core.config.plugins.PluginElement;
 import org.apache.logging.log4j.core.config.plugins.PluginFactory;
+import org.apache.logging.log4j.core.jmx.Server;
+import org.apache.logging.log4j.util.PropertiesUtil;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
 
 import java.io.Serializable;
+import java.lang.management.ManagementFactory;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 
 @Plugin(
         name = "RelpAppender",
@@ -54,6 +111,23 @@ public class RelpAppender extends AbstractAppender {
 
     private final RelpLogAppender relpLogAppender;
     private final SyslogRecordFactory syslogRecordFactory;
+    private final boolean useEventTime;
+    private final boolean asyncSend;
+    private final boolean garbageFree;
+    private final boolean endOfBatchBuffering;
+    private final RelpLogAppenderEndOfBatch endOfBatchAppender;
+    private final RelpMetrics relpMetrics;
+    private final RelpAppenderMetrics relpAppenderMetrics;
+    private final RateLimiter rateLimiter;
+    private final RepeatSuppressor repeatSuppressor;
+    private final ConnectionPrewarmer connectionPrewarmer;
+    private final HostnameCache hostnameCache;
+    private final ConnectionCloser connectionCloser;
+    // set when stop passes its deadline, ends the reconnect and retry loops of the senders
+    private final AtomicBoolean abandoned;
+    private final LongSupplier journalBacklog;
+    private final RelpLogAppender priorityRelpLogAppender;
+    private final LoadShedder loadShedder;
 
     protected RelpAppender(
             String name,
@@ -79,7 +153,51 @@ public class RelpAppender extends AbstractAppender {
             int rebindRequestAmount,
             boolean rebindEnabled,
             int reconnectIfNoMessagesInterval,
-            boolean synchronizedAccess
+            boolean synchronizedAccess,
+            boolean asyncSend,
+            int asyncCapacity,
+            int asyncSenderThreads,
+            String asyncWaitStrategy,
+            String asyncFullQueuePolicy,
+            int maxInFlight,
+            String eventIDGenerator,
+            boolean useEventTime,
+            boolean garbageFree,
+            int maxConnections,
+            int minConnections,
+            int leaseTimeout,
+            String leaseTimeoutPolicy,
+            boolean stripedLeasing,
+            int leasingStripes,
+            String relpDestinations,
+            String destinationSelection,
+            int destinationEjectAfterFailures,
+            int destinationEjectionTime,
+            String journalDirectory,
+            int journalSegmentSize,
+            long journalMaxSize,
+            int journalSyncInterval,
+            int journalBacklogThreshold,
+            boolean endOfBatchBuffering,
+            int endOfBatchMaxSize,
+            boolean asyncVirtualThreads,
+            String synchronizedAccessMode,
+            int rateLimit,
+            int rateLimitBurst,
+            int rateLimitPerLogger,
+            int rateLimitMaxLoggers,
+            int rateLimitSummaryInterval,
+            int suppressRepeatsWindow,
+            int hostnameResolveTimeout,
+            int hostnameRefreshInterval,
+            String hostnameFallback,
+            int prewarmConnections,
+            boolean severityFromLevel,
+            int priorityLaneCapacity,
+            int loadSheddingThreshold,
+            String contextDataKeys,
+            String contextDataSDID,
+            int endOfBatchLinger
     ) {
         super(name, filter, layout, ignoreExceptions, properties);
         final SSLContextSupplier sslContextSupplier;
@@ -89,50 +207,457 @@ public class RelpAppender extends AbstractAppender {
         else {
             sslContextSupplier = new SSLContextSupplierStub();
         }
-        String originalHostname = new Hostname("").hostname();
+        // the origin hostname is resolved in the background, records carry the fallback until it completes
+        this.hostnameCache = new HostnameCache(hostnameRefreshInterval);
+        final String originalHostnameFallback = hostnameFallback == null ? "" : hostnameFallback;
+        if (hostnameResolveTimeout < 0) {
+            // opt-in, like a synchronous lookup the first record carries the resolved hostname however long it takes
+            hostnameCache.await();
+        }
+        else if (hostnameResolveTimeout > 0 && !hostnameCache.await(hostnameResolveTimeout)) {
+            System.err
+                    .println(
+                            "Hostname was not resolved in <" + hostnameResolveTimeout + "> ms, using <["
+                                    + originalHostnameFallback + "]> until it is"
+                    );
+        }
+        final List<String> contextDataKeyList = new ArrayList<>();
+        if (contextDataKeys != null) {
+            for (String key : contextDataKeys.split(",")) {
+                if (!key.trim().isEmpty()) {
+                    contextDataKeyList.add(key.trim());
+                }
+            }
+        }
         this.syslogRecordFactory = new SyslogRecordFactory(
-                hostname,
-                appName,
-                originalHostname,
-                useSD,
-                enableSystemId,
-                systemID
+                new SyslogTemplate(hostname, appName, hostnameCache.hostname(originalHostnameFallback), useSD, enableSystemId, systemID, new EventIDGeneratorFactory().create(eventIDGenerator)), () -> hostnameCache.hostname(originalHostnameFallback), severityFromLevel ? new SeverityMappingLevel() : new SeverityMappingFixed(), new ContextDataElement(contextDataSDID, contextDataKeyList)
         );
+        this.useEventTime = useEventTime;
+        this.asyncSend = asyncSend;
+        if (garbageFree && asyncSend) {
+            throw new IllegalArgumentException("garbageFree requires asyncSend to be disabled");
+        }
+        this.garbageFree = garbageFree;
+        if (garbageFree && endOfBatchBuffering) {
+            throw new IllegalArgumentException("garbageFree requires endOfBatchBuffering to be disabled");
+        }
+        this.endOfBatchBuffering = endOfBatchBuffering;
+        if (priorityLaneCapacity > 0 && !asyncSend) {
+            throw new IllegalArgumentException("priorityLaneCapacity requires asyncSend to be enabled");
+        }
+        if (loadSheddingThreshold > 0 && !asyncSend) {
+            throw new IllegalArgumentException("loadSheddingThreshold requires asyncSend to be enabled");
+        }
+        final boolean journaled = journalDirectory != null && !journalDirectory.trim().isEmpty();
+        final boolean balanced = relpDestinations != null && !relpDestinations.trim().isEmpty();
+        if (journaled && balanced) {
+            throw new IllegalArgumentException("journalDirectory can not be combined with relpDestinations");
+        }
         boolean maxIdleEnabled = (reconnectIfNoMessagesInterval > 0);
 
-        final RelpConfig relpConfig = new RelpConfig(
-                relpHostAddress,
-                relpPort,
-                reconnectInterval,
-                rebindRequestAmount,
-                rebindEnabled,
-                Duration.ofMillis(reconnectIfNoMessagesInterval),
-                maxIdleEnabled
-        );
         final SocketConfig socketConfig = new SocketConfigImpl(readTimeout, writeTimeout, connectionTimeout, false);
-        RelpConnectionFactory relpConnectionFactory = new RelpConnectionFactory(
-                relpConfig,
-                socketConfig,
-                sslContextSupplier
+        final ConnectionPoolFactory connectionPoolFactory = new ConnectionPoolFactory(
+                maxConnections,
+                minConnections,
+                Duration.ofMillis(leaseTimeout),
+                leaseTimeoutPolicy,
+                stripedLeasing,
+                leasingStripes
         );
 
-        Pool<IManagedRelpConnection> relpConnectionPool = new UnboundPool<>(
-                relpConnectionFactory,
-                new ManagedRelpConnectionStub()
+        // sync mode never queues, the ring buffer only backs the journal backlog check there
+        final RingBuffer<SyslogRecord> ringBuffer = new RingBuffer<>(asyncSend ? asyncCapacity : 1);
+        this.relpMetrics = new RelpMetrics();
+        if (rateLimit > 0 || rateLimitPerLogger > 0) {
+            this.rateLimiter = new RateLimiterImpl(
+                    rateLimit,
+                    rateLimitBurst > 0 ? rateLimitBurst : rateLimit,
+                    rateLimitPerLogger,
+                    rateLimitMaxLoggers,
+                    TimeUnit.MILLISECONDS.toNanos(rateLimitSummaryInterval),
+                    relpMetrics
+            );
+        }
+        else {
+            this.rateLimiter = new RateLimiterStub();
+        }
+        if (suppressRepeatsWindow > 0) {
+            this.repeatSuppressor = new RepeatSuppressorImpl(
+                    TimeUnit.MILLISECONDS.toNanos(suppressRepeatsWindow),
+                    this::appendSummary
+            );
+        }
+        else {
+            this.repeatSuppressor = new RepeatSuppressorStub();
+        }
+        this.abandoned = new AtomicBoolean();
+        this.connectionCloser = new ConnectionCloser("jla_06-relp-close-" + name + "-");
+        // every call builds a pool of its own, the priority lane does not share connections with the others
+        final Supplier<Pool<RelpBatchConnection>> relpConnectionPools;
+        final Supplier<Pool<RelpBatchConnection>> priorityConnectionPools;
+        final JournalReplayer journalReplayer;
+        if (journaled) {
+            final RelpConfig relpConfig = new RelpConfig(
+                    relpHostAddress,
+                    relpPort,
+                    reconnectInterval,
+                    rebindRequestAmount,
+                    rebindEnabled,
+                    Duration.ofMillis(reconnectIfNoMessagesInterval),
+                    maxIdleEnabled
+            );
+            // a single attempt per send, failures go to the journal instead of retrying on the caller thread
+            final RelpBatchConnectionFactory relpBatchConnectionFactory = new RelpBatchConnectionFactory(
+                    relpConfig,
+                    socketConfig,
+                    sslContextSupplier,
+                    maxInFlight,
+                    1,
+                    relpMetrics,
+                    abandoned::get
+            );
+            final Journal journal = new Journal(Paths.get(journalDirectory), journalSegmentSize, journalMaxSize);
+            final BooleanSupplier backlogged = () -> journalBacklogThreshold > 0
+                    && ringBuffer.size() >= journalBacklogThreshold;
+            relpConnectionPools = () -> connectionPoolFactory
+                    .create(
+                            () -> new RelpBatchConnectionClosedInParallel(
+                                    new RelpBatchConnectionJournaled(
+                                            relpBatchConnectionFactory.get(),
+                                            journal,
+                                            backlogged,
+                                            reconnectInterval,
+                                            abandoned::get
+                                    ),
+                                    connectionCloser
+                            ), new RelpBatchConnectionStub()
+                    );
+            // the priority lane retries on its own sender, spilling it would replay ERROR and FATAL behind the backlog
+            final RelpBatchConnectionFactory priorityConnectionFactory = new RelpBatchConnectionFactory(
+                    relpConfig,
+                    socketConfig,
+                    sslContextSupplier,
+                    maxInFlight,
+                    0,
+                    relpMetrics,
+                    abandoned::get
+            );
+            priorityConnectionPools = () -> connectionPoolFactory
+                    .create(
+                            () -> new RelpBatchConnectionClosedInParallel(
+                                    priorityConnectionFactory.get(),
+                                    connectionCloser
+                            ), new RelpBatchConnectionStub()
+                    );
+            this.journalBacklog = journal::pending;
+            journalReplayer = new JournalReplayerImpl(
+                    journal,
+                    relpBatchConnectionFactory.get(),
+                    maxInFlight,
+                    Duration.ofMillis(journalSyncInterval),
+                    Duration.ofMillis(reconnectInterval)
+            );
+        }
+        else if (!balanced) {
+            final RelpConfig relpConfig = new RelpConfig(
+                    relpHostAddress,
+                    relpPort,
+                    reconnectInterval,
+                    rebindRequestAmount,
+                    rebindEnabled,
+                    Duration.ofMillis(reconnectIfNoMessagesInterval),
+                    maxIdleEnabled
+            );
+            final RelpBatchConnectionFactory relpBatchConnectionFactory = new RelpBatchConnectionFactory(
+                    relpConfig,
+                    socketConfig,
+                    sslContextSupplier,
+                    maxInFlight,
+                    0,
+                    relpMetrics,
+                    abandoned::get
+            );
+            relpConnectionPools = () -> connectionPoolFactory
+                    .create(
+                            () -> new RelpBatchConnectionClosedInParallel(
+                                    relpBatchConnectionFactory.get(),
+                                    connectionCloser
+                            ), new RelpBatchConnectionStub()
+                    );
+            priorityConnectionPools = relpConnectionPools;
+            journalReplayer = new JournalReplayerStub();
+            this.journalBacklog = () -> 0;
+        }
+        else {
+            final List<String> destinationNames = new ArrayList<>();
+            final List<RelpBatchConnectionFactory> destinationConnections = new ArrayList<>();
+            for (String destination : relpDestinations.split(",")) {
+                final String trimmed = destination.trim();
+                final int separator = trimmed.lastIndexOf(':');
+                if (separator <= 0 || separator == trimmed.length() - 1) {
+                    throw new IllegalArgumentException(
+                            "Relp destination <[" + trimmed + "]> is not in the form host:port"
+                    );
+                }
+                final RelpConfig relpConfig = new RelpConfig(
+                        trimmed.substring(0, separator),
+                        Integer.parseInt(trimmed.substring(separator + 1)),
+                        reconnectInterval,
+                        rebindRequestAmount,
+                        rebindEnabled,
+                        Duration.ofMillis(reconnectIfNoMessagesInterval),
+                        maxIdleEnabled
+                );
+                // a single attempt per destination, failures move the batch to the next destination
+                destinationNames.add(trimmed);
+                destinationConnections
+                        .add(
+                                new RelpBatchConnectionFactory(
+                                        relpConfig,
+                                        socketConfig,
+                                        sslContextSupplier,
+                                        maxInFlight,
+                                        1,
+                                        relpMetrics,
+                                        abandoned::get
+                                )
+                        );
+            }
+            relpConnectionPools = () -> {
+                final List<RelpDestination> destinations = new ArrayList<>();
+                for (int i = 0; i < destinationNames.size(); i++) {
+                    final RelpBatchConnectionFactory relpBatchConnectionFactory = destinationConnections.get(i);
+                    final Pool<RelpBatchConnection> destinationPool = connectionPoolFactory
+                            .create(
+                                    () -> new RelpBatchConnectionClosedInParallel(
+                                            relpBatchConnectionFactory.get(),
+                                            connectionCloser
+                                    ), new RelpBatchConnectionStub()
+                            );
+                    destinations
+                            .add(new RelpDestination(destinationNames.get(i), destinationPool, destinationEjectAfterFailures, Duration.ofMillis(destinationEjectionTime)));
+                }
+                return new RelpDestinationPool(
+                        new RelpBatchConnectionBalanced(
+                                destinations,
+                                new RelpDestinationSelectionFactory().create(destinationSelection),
+                                reconnectInterval,
+                                abandoned::get
+                        ),
+                        new RelpBatchConnectionStub()
+                );
+            };
+            priorityConnectionPools = relpConnectionPools;
+            journalReplayer = new JournalReplayerStub();
+            this.journalBacklog = () -> 0;
+        }
+        final Pool<RelpBatchConnection> relpConnectionPool = new ConnectionPoolClosedInParallel<>(
+                relpConnectionPools.get(),
+                connectionCloser
+        );
+        // a bounded pool would make the prewarm threads wait for each other's connections
+        this.connectionPrewarmer = new ConnectionPrewarmer(
+                relpConnectionPool,
+                maxConnections > 0 ? Math.min(prewarmConnections, maxConnections) : prewarmConnections,
+                connectionTimeout,
+                "jla_06-relp-prewarm-" + name + "-"
         );
+        final RelpLogAppender syncRelpLogAppender;
         if (!synchronizedAccess) {
-            this.relpLogAppender = new RelpLogAppenderImpl(relpConnectionPool);
+            syncRelpLogAppender = new RelpLogAppenderImpl(relpConnectionPool, relpMetrics);
+        }
+        else {
+            syncRelpLogAppender = new SynchronizedAccessFactory()
+                    .create(synchronizedAccessMode, new RelpLogAppenderImpl(relpConnectionPool, relpMetrics), maxInFlight);
+        }
+
+        final RelpLogAppender asyncRelpLogAppender;
+        if (asyncSend) {
+            final WaitStrategyFactory waitStrategyFactory = new WaitStrategyFactory();
+            final WaitStrategy recordsAvailable = waitStrategyFactory.create(asyncWaitStrategy);
+            final WaitStrategy spaceAvailable = waitStrategyFactory.create(asyncWaitStrategy);
+            final FullQueuePolicy<SyslogRecord> fullQueuePolicy = new FullQueuePolicyFactory<SyslogRecord>()
+                    .create(asyncFullQueuePolicy, ringBuffer, spaceAvailable);
+            asyncRelpLogAppender = new RelpLogAppenderAsync(
+                    syncRelpLogAppender,
+                    ringBuffer,
+                    fullQueuePolicy,
+                    recordsAvailable,
+                    spaceAvailable,
+                    asyncSenderThreads,
+                    maxInFlight,
+                    new SenderThreadFactory("jla_06-relp-sender-" + name + "-", asyncVirtualThreads)
+            );
+        }
+        else {
+            asyncRelpLogAppender = syncRelpLogAppender;
+        }
+
+        // ERROR and FATAL get a queue, a sender and connections of their own and do not wait behind a backlog
+        final RingBuffer<SyslogRecord> priorityRingBuffer = new RingBuffer<>(Math.max(priorityLaneCapacity, 1));
+        if (priorityLaneCapacity > 0) {
+            final WaitStrategyFactory waitStrategyFactory = new WaitStrategyFactory();
+            final WaitStrategy recordsAvailable = waitStrategyFactory.create(asyncWaitStrategy);
+            final WaitStrategy spaceAvailable = waitStrategyFactory.create(asyncWaitStrategy);
+            this.priorityRelpLogAppender = new RelpLogAppenderAsync(
+                    new RelpLogAppenderImpl(
+                            new ConnectionPoolClosedInParallel<>(priorityConnectionPools.get(), connectionCloser),
+                            relpMetrics
+                    ),
+                    priorityRingBuffer,
+                    new FullQueuePolicyFactory<SyslogRecord>()
+                            .create(asyncFullQueuePolicy, priorityRingBuffer, spaceAvailable),
+                    recordsAvailable,
+                    spaceAvailable,
+                    1,
+                    maxInFlight,
+                    new SenderThreadFactory("jla_06-relp-priority-sender-" + name + "-", asyncVirtualThreads)
+            );
+        }
+        else {
+            this.priorityRelpLogAppender = new RelpLogAppenderStub();
+        }
+        if (loadSheddingThreshold > 0) {
+            this.loadShedder = new LoadShedderImpl(ringBuffer::size, loadSheddingThreshold, ringBuffer.capacity());
+        }
+        else {
+            this.loadShedder = new LoadShedderStub();
+        }
+
+        this.relpAppenderMetrics = new RelpAppenderMetrics(
+                relpMetrics,
+                () -> ringBuffer.size() + priorityRingBuffer.size(),
+                journalBacklog
+        );
+        final RelpLogAppender journaledRelpLogAppender;
+        if (journalReplayer.isStub()) {
+            journaledRelpLogAppender = asyncRelpLogAppender;
         }
         else {
-            this.relpLogAppender = new RelpLogAppenderSynchronized(new RelpLogAppenderImpl(relpConnectionPool));
+            journaledRelpLogAppender = new RelpLogAppenderJournaled(asyncRelpLogAppender, journalReplayer);
+        }
+
+        this.endOfBatchAppender = new RelpLogAppenderEndOfBatch(
+                journaledRelpLogAppender,
+                endOfBatchMaxSize,
+                endOfBatchLinger,
+                "jla_06-relp-linger-" + name
+        );
+        if (endOfBatchBuffering) {
+            this.relpLogAppender = endOfBatchAppender;
+        }
+        else {
+            this.relpLogAppender = journaledRelpLogAppender;
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!priorityRelpLogAppender.isStub()) {
+            priorityRelpLogAppender.start();
+        }
+        relpLogAppender.start();
+        connectionPrewarmer.start();
+        hostnameCache.start();
+        registerMetrics();
+        super.start();
+    }
+
+    private ObjectName metricsName() throws MalformedObjectNameException {
+        return new ObjectName(Server.DOMAIN + ":type=RelpAppender,name=" + Server.escape(getName()));
+    }
+
+    private void registerMetrics() {
+        if (PropertiesUtil.getProperties().getBooleanProperty("log4j2.disable.jmx")) {
+            return;
+        }
+        try {
+            final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName objectName = metricsName();
+            // a reconfiguration starts the new appender before the old one with the same name is stopped
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+            mBeanServer.registerMBean(relpAppenderMetrics, objectName);
+        }
+        catch (JMException e) {
+            System.err.println("Failed to register RelpAppender metrics: <" + e.getMessage() + ">");
+        }
+    }
+
+    private void unregisterMetrics() {
+        if (PropertiesUtil.getProperties().getBooleanProperty("log4j2.disable.jmx")) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(metricsName());
+        }
+        catch (InstanceNotFoundException e) {
+            // replaced by a newer appender with the same name
+        }
+        catch (JMException e) {
+            System.err.println("Failed to unregister RelpAppender metrics: <" + e.getMessage() + ">");
         }
     }
 
     @Override
     public void append(LogEvent event) {
-        SyslogRecord syslogRecord = syslogRecordFactory
-                .create(new String(getLayout().toByteArray(event), StandardCharsets.UTF_8));
-        relpLogAppender.append(syslogRecord);
+        // these run before the layout, a dropped event is only counted
+        if (!loadShedder.isStub() && loadShedder.shed(event.getLevel())) {
+            relpMetrics.eventShed();
+            return;
+        }
+        if (!repeatSuppressor.isStub() && !repeatSuppressor.admit(event, System.nanoTime())) {
+            return;
+        }
+        if (!rateLimiter.isStub()) {
+            final long nanoTime = System.nanoTime();
+            final long rateLimited = rateLimiter.summarize(nanoTime);
+            if (rateLimited > 0) {
+                appendSummary("Rate limited <" + rateLimited + "> events since the previous summary");
+            }
+            if (!rateLimiter.tryAcquire(event.getLoggerName(), nanoTime)) {
+                return;
+            }
+        }
+        final long epochMillis;
+        if (useEventTime) {
+            epochMillis = event.getInstant().getEpochMillisecond();
+        }
+        else {
+            epochMillis = System.currentTimeMillis();
+        }
+        final SyslogRecord syslogRecord;
+        if (asyncSend || endOfBatchBuffering) {
+            // the event is reused by log4j after append returns, render the payload before queueing
+            syslogRecord = syslogRecordFactory
+                    .create(new String(getLayout().toByteArray(event), StandardCharsets.UTF_8), event, epochMillis);
+        }
+        else if (garbageFree) {
+            syslogRecord = syslogRecordFactory.reuse(getLayout(), event, epochMillis);
+        }
+        else {
+            syslogRecord = syslogRecordFactory.create(getLayout(), event, epochMillis);
+        }
+        if (!priorityRelpLogAppender.isStub() && event.getLevel().isMoreSpecificThan(Level.ERROR)) {
+            priorityRelpLogAppender.append(syslogRecord);
+        }
+        else if (endOfBatchBuffering) {
+            endOfBatchAppender.append(syslogRecord, event.isEndOfBatch());
+        }
+        else {
+            relpLogAppender.append(syslogRecord);
+        }
+        relpMetrics.recordAccepted();
+    }
+
+    private void appendSummary(String summary) {
+        relpLogAppender.append(syslogRecordFactory.create(summary, System.currentTimeMillis()));
+        relpMetrics.recordAccepted();
+    }
+
+    public RelpMetrics metrics() {
+        return relpMetrics;
     }
 
     @PluginFactory
@@ -221,6 +746,182 @@ public class RelpAppender extends AbstractAppender {
                     value = "synchronizedAccess",
                     defaultBoolean = false
             ) boolean synchronizedAccess,
+            @PluginAttribute(
+                    value = "asyncSend",
+                    defaultBoolean = false
+            ) boolean asyncSend,
+            @PluginAttribute(
+                    value = "asyncCapacity",
+                    defaultInt = 8192
+            ) int asyncCapacity,
+            @PluginAttribute(
+                    value = "asyncSenderThreads",
+                    defaultInt = 1
+            ) int asyncSenderThreads,
+            @PluginAttribute(
+                    value = "asyncWaitStrategy",
+                    defaultString = "blocking"
+            ) String asyncWaitStrategy,
+            @PluginAttribute(
+                    value = "asyncFullQueuePolicy",
+                    defaultString = "block"
+            ) String asyncFullQueuePolicy,
+            @PluginAttribute(
+                    value = "maxInFlight",
+                    defaultInt = 128
+            ) int maxInFlight,
+            @PluginAttribute(
+                    value = "eventIDGenerator",
+                    defaultString = "secure"
+            ) String eventIDGenerator,
+            @PluginAttribute(
+                    value = "useEventTime",
+                    defaultBoolean = false
+            ) boolean useEventTime,
+            @PluginAttribute(
+                    value = "garbageFree",
+                    defaultBoolean = false
+            ) boolean garbageFree,
+            @PluginAttribute(
+                    value = "maxConnections",
+                    defaultInt = 0
+            ) int maxConnections,
+            @PluginAttribute(
+                    value = "minConnections",
+                    defaultInt = 0
+            ) int minConnections,
+            @PluginAttribute(
+                    value = "leaseTimeout",
+                    defaultInt = 5000
+            ) int leaseTimeout,
+            @PluginAttribute(
+                    value = "leaseTimeoutPolicy",
+                    defaultString = "wait"
+            ) String leaseTimeoutPolicy,
+            @PluginAttribute(
+                    value = "stripedLeasing",
+                    defaultBoolean = false
+            ) boolean stripedLeasing,
+            @PluginAttribute(
+                    value = "leasingStripes",
+                    defaultInt = 0
+            ) int leasingStripes,
+            @PluginAttribute(
+                    value = "relpDestinations",
+                    defaultString = ""
+            ) String relpDestinations,
+            @PluginAttribute(
+                    value = "destinationSelection",
+                    defaultString = "roundRobin"
+            ) String destinationSelection,
+            @PluginAttribute(
+                    value = "destinationEjectAfterFailures",
+                    defaultInt = 3
+            ) int destinationEjectAfterFailures,
+            @PluginAttribute(
+                    value = "destinationEjectionTime",
+                    defaultInt = 30000
+            ) int destinationEjectionTime,
+            @PluginAttribute(
+                    value = "journalDirectory",
+                    defaultString = ""
+            ) String journalDirectory,
+            @PluginAttribute(
+                    value = "journalSegmentSize",
+                    defaultInt = 67_108_864
+            ) int journalSegmentSize,
+            @PluginAttribute(
+                    value = "journalMaxSize",
+                    defaultLong = 1_073_741_824L
+            ) long journalMaxSize,
+            @PluginAttribute(
+                    value = "journalSyncInterval",
+                    defaultInt = 1000
+            ) int journalSyncInterval,
+            @PluginAttribute(
+                    value = "journalBacklogThreshold",
+                    defaultInt = 0
+            ) int journalBacklogThreshold,
+            @PluginAttribute(
+                    value = "endOfBatchBuffering",
+                    defaultBoolean = false
+            ) boolean endOfBatchBuffering,
+            @PluginAttribute(
+                    value = "endOfBatchMaxSize",
+                    defaultInt = 128
+            ) int endOfBatchMaxSize,
+            @PluginAttribute(
+                    value = "asyncVirtualThreads",
+                    defaultBoolean = false
+            ) boolean asyncVirtualThreads,
+            @PluginAttribute(
+                    value = "synchronizedAccessMode",
+                    defaultString = "lock"
+            ) String synchronizedAccessMode,
+            @PluginAttribute(
+                    value = "rateLimit",
+                    defaultInt = 0
+            ) int rateLimit,
+            @PluginAttribute(
+                    value = "rateLimitBurst",
+                    defaultInt = 0
+            ) int rateLimitBurst,
+            @PluginAttribute(
+                    value = "rateLimitPerLogger",
+                    defaultInt = 0
+            ) int rateLimitPerLogger,
+            @PluginAttribute(
+                    value = "rateLimitMaxLoggers",
+                    defaultInt = 1024
+            ) int rateLimitMaxLoggers,
+            @PluginAttribute(
+                    value = "rateLimitSummaryInterval",
+                    defaultInt = 60000
+            ) int rateLimitSummaryInterval,
+            @PluginAttribute(
+                    value = "suppressRepeatsWindow",
+                    defaultInt = 0
+            ) int suppressRepeatsWindow,
+            @PluginAttribute(
+                    value = "hostnameResolveTimeout",
+                    defaultInt = 100
+            ) int hostnameResolveTimeout,
+            @PluginAttribute(
+                    value = "hostnameRefreshInterval",
+                    defaultInt = 0
+            ) int hostnameRefreshInterval,
+            @PluginAttribute(
+                    value = "hostnameFallback",
+                    defaultString = ""
+            ) String hostnameFallback,
+            @PluginAttribute(
+                    value = "prewarmConnections",
+                    defaultInt = 0
+            ) int prewarmConnections,
+            @PluginAttribute(
+                    value = "severityFromLevel",
+                    defaultBoolean = false
+            ) boolean severityFromLevel,
+            @PluginAttribute(
+                    value = "priorityLaneCapacity",
+                    defaultInt = 0
+            ) int priorityLaneCapacity,
+            @PluginAttribute(
+                    value = "loadSheddingThreshold",
+                    defaultInt = 0
+            ) int loadSheddingThreshold,
+            @PluginAttribute(
+                    value = "contextDataKeys",
+                    defaultString = ""
+            ) String contextDataKeys,
+            @PluginAttribute(
+                    value = "contextDataSDID",
+                    defaultString = "context@48577"
+            ) String contextDataSDID,
+            @PluginAttribute(
+                    value = "endOfBatchLinger",
+                    defaultInt = 100
+            ) int endOfBatchLinger,
             @PluginElement("Layout") Layout layout,
             @PluginElement("Filters") Filter filter
     ) {
@@ -249,13 +950,119 @@ public class RelpAppender extends AbstractAppender {
                 rebindRequestAmount,
                 rebindEnabled,
                 reconnectIfNoMessagesInterval,
-                synchronizedAccess
+                synchronizedAccess,
+                asyncSend,
+                asyncCapacity,
+                asyncSenderThreads,
+                asyncWaitStrategy,
+                asyncFullQueuePolicy,
+                maxInFlight,
+                eventIDGenerator,
+                useEventTime,
+                garbageFree,
+                maxConnections,
+                minConnections,
+                leaseTimeout,
+                leaseTimeoutPolicy,
+                stripedLeasing,
+                leasingStripes,
+                relpDestinations,
+                destinationSelection,
+                destinationEjectAfterFailures,
+                destinationEjectionTime,
+                journalDirectory,
+                journalSegmentSize,
+                journalMaxSize,
+                journalSyncInterval,
+                journalBacklogThreshold,
+                endOfBatchBuffering,
+                endOfBatchMaxSize,
+                asyncVirtualThreads,
+                synchronizedAccessMode,
+                rateLimit,
+                rateLimitBurst,
+                rateLimitPerLogger,
+                rateLimitMaxLoggers,
+                rateLimitSummaryInterval,
+                suppressRepeatsWindow,
+                hostnameResolveTimeout,
+                hostnameRefreshInterval,
+                hostnameFallback,
+                prewarmConnections,
+                severityFromLevel,
+                priorityLaneCapacity,
+                loadSheddingThreshold,
+                contextDataKeys,
+                contextDataSDID,
+                endOfBatchLinger
         );
     }
 
     @Override
     public void stop() {
-        super.stop();
+        // no deadline, as log4j's default stop timeout of 0 means
+        stop(0, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public boolean stop(long timeout, TimeUnit timeUnit) {
+        final long startNanos = System.nanoTime();
+        final long timeoutNanos = timeout > 0 ? timeUnit.toNanos(timeout) : Long.MAX_VALUE;
+        super.stop(timeout, timeUnit, false);
+        // a daemon thread so that an unreachable server can not hold the shutdown past the deadline
+        final Thread stopper = new Thread(this::flushAndStop, "jla_06-relp-stop-" + getName());
+        stopper.setDaemon(true);
+        stopper.start();
+        boolean flushed;
+        try {
+            TimeUnit.NANOSECONDS.timedJoin(stopper, timeoutNanos - (System.nanoTime() - startNanos));
+            flushed = !stopper.isAlive();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            flushed = false;
+        }
+        if (!flushed) {
+            // the senders give up at their next retry, the interrupt cuts short their reconnect timers
+            abandoned.set(true);
+            stopper.interrupt();
+        }
+        final int stillClosing = connectionCloser
+                .await(Math.max(0, timeoutNanos - (System.nanoTime() - startNanos)), TimeUnit.NANOSECONDS);
+        final long delivered = relpMetrics.records();
+        final long abandonedRecords = Math
+                .max(0, relpMetrics.acceptedRecords() - delivered - journalBacklog.getAsLong());
+        relpMetrics.recordsAbandoned(abandonedRecords);
+        unregisterMetrics();
+        hostnameCache.stop();
+        if (!flushed || abandonedRecords > 0 || stillClosing > 0) {
+            System.err
+                    .println(
+                            "RelpAppender <[" + getName() + "]> stopped with <" + delivered
+                                    + "> records delivered and <" + abandonedRecords + "> abandoned"
+                                    + (flushed ? "" : ", the flush did not finish in <" + timeout + "> " + timeUnit)
+                                    + (stillClosing == 0 ? "" : ", <" + stillClosing
+                                            + "> connections were still closing")
+                    );
+        }
+        setStopped();
+        return flushed && stillClosing == 0;
+    }
+
+    private void flushAndStop() {
+        connectionPrewarmer.stop();
+        if (!repeatSuppressor.isStub()) {
+            try {
+                repeatSuppressor.flush();
+            }
+            catch (RuntimeException e) {
+                System.err
+                        .println("Failed to send repeated message summaries while stopping: <" + e.getMessage() + ">");
+            }
+        }
+        if (!priorityRelpLogAppender.isStub()) {
+            priorityRelpLogAppender.stop();
+        }
         relpLogAppender.stop();
     }
 }
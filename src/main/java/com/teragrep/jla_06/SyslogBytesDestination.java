@@ -0,0 +1,73 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06;
+
+import com.teragrep.jla_06.lib.syslog.SyslogBytes;
+import org.apache.logging.log4j.core.Layout;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.layout.ByteBufferDestination;
+import org.apache.logging.log4j.core.layout.ByteBufferDestinationHelper;
+
+import java.nio.ByteBuffer;
+
+// Layout.encode target that streams into SyslogBytes, one instance per thread
+public final class SyslogBytesDestination implements ByteBufferDestination {
+
+    private final ByteBuffer byteBuffer;
+    private SyslogBytes target;
+
+    public SyslogBytesDestination() {
+        this(ByteBuffer.allocate(8192));
+    }
+
+    public SyslogBytesDestination(ByteBuffer byteBuffer) {
+        this.byteBuffer = byteBuffer;
+        this.target = new SyslogBytes(0);
+    }
+
+    public void encode(Layout<?> layout, LogEvent event, SyslogBytes target) {
+        this.target = target;
+        byteBuffer.clear();
+        layout.encode(event, this);
+        drain(byteBuffer);
+    }
+
+    @Override
+    public ByteBuffer getByteBuffer() {
+        return byteBuffer;
+    }
+
+    @Override
+    public ByteBuffer drain(ByteBuffer buf) {
+        buf.flip();
+        target.write(buf.array(), buf.arrayOffset() + buf.position(), buf.remaining());
+        buf.clear();
+        return buf;
+    }
+
+    @Override
+    public void writeBytes(ByteBuffer data) {
+        ByteBufferDestinationHelper.writeToUnsynchronized(data, this);
+    }
+
+    @Override
+    public void writeBytes(byte[] data, int offset, int length) {
+        // keep ordering with bytes already staged by an encoder
+        drain(byteBuffer);
+        target.write(data, offset, length);
+    }
+}
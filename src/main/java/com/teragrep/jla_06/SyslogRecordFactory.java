@@ -16,22 +16,32 @@
  */
 package com.teragrep.jla_06;
 
+import com.teragrep.jla_06.lib.syslog.ContextDataElement;
 import com.teragrep.jla_06.lib.syslog.SyslogRecord;
-import com.teragrep.jla_06.lib.syslog.SyslogRecordConfigured;
-import com.teragrep.jla_06.lib.syslog.SyslogRecordWithEventID;
-import com.teragrep.jla_06.lib.syslog.SyslogRecordWithOrigin;
+import com.teragrep.jla_06.lib.syslog.SyslogRecordTemplated;
+import com.teragrep.jla_06.lib.syslog.SyslogRecordWithContextData;
 import com.teragrep.jla_06.lib.syslog.SyslogRecordWithPayload;
-import com.teragrep.jla_06.lib.syslog.SyslogRecordWithSystemID;
-import com.teragrep.jla_06.lib.syslog.SyslogRecordWithTimestamp;
+import com.teragrep.jla_06.lib.syslog.SyslogTemplate;
+import com.teragrep.jla_06.lib.syslog.eventid.EventIDGenerator;
+import com.teragrep.jla_06.lib.syslog.eventid.EventIDGeneratorSecure;
+import com.teragrep.jla_06.lib.syslog.severity.SeverityMapping;
+import com.teragrep.jla_06.lib.syslog.severity.SeverityMappingFixed;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.Layout;
+import org.apache.logging.log4j.core.LogEvent;
+
+import java.util.Collections;
+import java.util.function.Supplier;
 
 public class SyslogRecordFactory {
 
-    private final String hostname;
-    private final String appName;
-    private final String originalHostname;
-    private final boolean useSD;
-    private final boolean enableSystemID;
-    private final String systemID;
+    // header and structured data that do not change per record are encoded once, and again if the origin changes
+    private final Supplier<String> originalHostname;
+    private volatile SyslogTemplate syslogTemplate;
+    private final SeverityMapping severityMapping;
+    private final ContextDataElement contextDataElement;
+    private final ThreadLocal<SyslogBytesDestination> syslogBytesDestinations;
+    private final ThreadLocal<SyslogRecordReusable> syslogRecordsReusable;
 
     public SyslogRecordFactory(
             String hostname,
@@ -41,27 +51,134 @@ public class SyslogRecordFactory {
             boolean enableSystemID,
             String systemID
     ) {
-        this.hostname = hostname;
-        this.appName = appName;
+        this(hostname, appName, originalHostname, useSD, enableSystemID, systemID, new EventIDGeneratorSecure());
+    }
+
+    public SyslogRecordFactory(
+            String hostname,
+            String appName,
+            String originalHostname,
+            boolean useSD,
+            boolean enableSystemID,
+            String systemID,
+            EventIDGenerator eventIDGenerator
+    ) {
+        this(
+                new SyslogTemplate(
+                        hostname,
+                        appName,
+                        originalHostname,
+                        useSD,
+                        enableSystemID,
+                        systemID,
+                        eventIDGenerator
+                )
+        );
+    }
+
+    public SyslogRecordFactory(SyslogTemplate syslogTemplate) {
+        this(syslogTemplate, syslogTemplate::originalHostname);
+    }
+
+    // originalHostname is read for every record and must not block
+    public SyslogRecordFactory(SyslogTemplate syslogTemplate, Supplier<String> originalHostname) {
+        this(syslogTemplate, originalHostname, new SeverityMappingFixed());
+    }
+
+    public SyslogRecordFactory(
+            SyslogTemplate syslogTemplate,
+            Supplier<String> originalHostname,
+            SeverityMapping severityMapping
+    ) {
+        this(
+                syslogTemplate,
+                originalHostname,
+                severityMapping,
+                new ContextDataElement("context@48577", Collections.emptyList())
+        );
+    }
+
+    public SyslogRecordFactory(
+            SyslogTemplate syslogTemplate,
+            Supplier<String> originalHostname,
+            SeverityMapping severityMapping,
+            ContextDataElement contextDataElement
+    ) {
         this.originalHostname = originalHostname;
-        this.useSD = useSD;
-        this.enableSystemID = enableSystemID;
-        this.systemID = systemID;
+        this.syslogTemplate = syslogTemplate;
+        this.severityMapping = severityMapping;
+        this.contextDataElement = contextDataElement;
+        this.syslogBytesDestinations = ThreadLocal.withInitial(SyslogBytesDestination::new);
+        this.syslogRecordsReusable = ThreadLocal
+                .withInitial(() -> new SyslogRecordReusable(syslogBytesDestinations.get(), contextDataElement));
+    }
+
+    private SyslogTemplate template() {
+        final SyslogTemplate current = syslogTemplate;
+        final String hostname = originalHostname.get();
+        if (hostname.equals(current.originalHostname())) {
+            return current;
+        }
+        // concurrent rebuilds produce equal templates
+        final SyslogTemplate rebuilt = current.withOriginalHostname(hostname);
+        syslogTemplate = rebuilt;
+        return rebuilt;
     }
 
     public SyslogRecord create(String payload) {
-        SyslogRecord syslogRecord = new SyslogRecordConfigured(hostname, appName);
-        syslogRecord = new SyslogRecordWithTimestamp(syslogRecord);
+        return create(payload, System.currentTimeMillis());
+    }
 
-        // Add SD if enabled
-        if (this.useSD) {
-            syslogRecord = new SyslogRecordWithOrigin(syslogRecord, originalHostname);
-            syslogRecord = new SyslogRecordWithEventID(syslogRecord, originalHostname);
-        }
-        if (enableSystemID) {
-            syslogRecord = new SyslogRecordWithSystemID(syslogRecord, systemID);
-        }
+    // the same epochMillis is used for the header timestamp and the event_id unixtime
+    public SyslogRecord create(String payload, long epochMillis) {
+        return new SyslogRecordWithPayload(new SyslogRecordTemplated(template(), epochMillis), payload);
+    }
 
-        return new SyslogRecordWithPayload(syslogRecord, payload);
+    // payload rendered ahead of time from an event of the given level
+    public SyslogRecord create(String payload, Level level, long epochMillis) {
+        return new SyslogRecordWithPayload(
+                new SyslogRecordTemplated(template(), epochMillis, severityMapping.severity(level)),
+                payload
+        );
+    }
+
+    // payload rendered ahead of time, the context data of the event is copied as the event is reused after append
+    public SyslogRecord create(String payload, LogEvent event, long epochMillis) {
+        return new SyslogRecordWithPayload(
+                withContextData(
+                        new SyslogRecordTemplated(template(), epochMillis, severityMapping.severity(event.getLevel())), event
+                ),
+                payload
+        );
+    }
+
+    // layout is encoded straight into the send buffer, record must be written on the calling thread
+    public SyslogRecord create(Layout<?> layout, LogEvent event, long epochMillis) {
+        return new SyslogRecordWithLayout(
+                withContextData(
+                        new SyslogRecordTemplated(template(), epochMillis, severityMapping.severity(event.getLevel())), event
+                ),
+                layout,
+                event,
+                syslogBytesDestinations.get()
+        );
+    }
+
+    // garbage-free variant of create, returns the calling thread's record which is overwritten by the next call
+    public SyslogRecord reuse(Layout<?> layout, LogEvent event, long epochMillis) {
+        return syslogRecordsReusable
+                .get()
+                .set(template(), severityMapping.severity(event.getLevel()), layout, event, epochMillis);
+    }
+
+    private SyslogRecord withContextData(SyslogRecord syslogRecord, LogEvent event) {
+        if (contextDataElement.isEmpty()) {
+            return syslogRecord;
+        }
+        return new SyslogRecordWithContextData(
+                syslogRecord,
+                contextDataElement,
+                contextDataElement.values(event.getContextData())
+        );
     }
 }
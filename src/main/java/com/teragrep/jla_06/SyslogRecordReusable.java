@@ -0,0 +1,88 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06;
+
+import com.teragrep.jla_06.lib.syslog.ContextDataElement;
+import com.teragrep.jla_06.lib.syslog.SyslogBuffer;
+import com.teragrep.jla_06.lib.syslog.SyslogRecord;
+import com.teragrep.jla_06.lib.syslog.SyslogTemplate;
+import com.teragrep.rlo_14.Severity;
+import com.teragrep.rlo_14.SyslogMessage;
+import org.apache.logging.log4j.core.Layout;
+import org.apache.logging.log4j.core.LogEvent;
+
+import java.nio.charset.StandardCharsets;
+
+// mutable per-thread record for the garbage-free path, must not be shared between threads or queued
+public final class SyslogRecordReusable implements SyslogRecord {
+
+    private final SyslogBytesDestination syslogBytesDestination;
+    private final ContextDataElement contextDataElement;
+    private SyslogTemplate syslogTemplate;
+    private Severity severity;
+    private Layout<?> layout;
+    private LogEvent event;
+    private long epochMillis;
+
+    public SyslogRecordReusable(SyslogBytesDestination syslogBytesDestination, ContextDataElement contextDataElement) {
+        this.syslogBytesDestination = syslogBytesDestination;
+        this.contextDataElement = contextDataElement;
+    }
+
+    public SyslogRecordReusable set(
+            SyslogTemplate syslogTemplate,
+            Severity severity,
+            Layout<?> layout,
+            LogEvent event,
+            long epochMillis
+    ) {
+        this.syslogTemplate = syslogTemplate;
+        this.severity = severity;
+        this.layout = layout;
+        this.event = event;
+        this.epochMillis = epochMillis;
+        return this;
+    }
+
+    @Override
+    public SyslogMessage asSyslogMessage() {
+        SyslogMessage syslogMessage = syslogTemplate.asSyslogMessage(epochMillis, severity);
+        if (!contextDataElement.isEmpty()) {
+            final String[] values = contextDataElement.values(event.getContextData());
+            if (contextDataElement.hasValues(values)) {
+                syslogMessage = syslogMessage.withSDElement(contextDataElement.asSDElement(values));
+            }
+        }
+        syslogMessage.withMsg(new String(layout.toByteArray(event), StandardCharsets.UTF_8));
+        return syslogMessage;
+    }
+
+    @Override
+    public void writeTo(SyslogBuffer buffer) {
+        syslogTemplate.writeTo(buffer, epochMillis, severity);
+        if (!contextDataElement.isEmpty()) {
+            // read in place, the record is written before append returns
+            contextDataElement.writeTo(buffer.structuredData(), event.getContextData());
+        }
+        syslogBytesDestination.encode(layout, event, buffer.msgBytes());
+    }
+
+    @Override
+    public long epochMillis() {
+        return epochMillis;
+    }
+}
@@ -0,0 +1,83 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06;
+
+import com.teragrep.jla_06.lib.syslog.SyslogBuffer;
+import com.teragrep.jla_06.lib.syslog.SyslogRecord;
+import com.teragrep.rlo_14.SyslogMessage;
+import org.apache.logging.log4j.core.Layout;
+import org.apache.logging.log4j.core.LogEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+public final class SyslogRecordWithLayout implements SyslogRecord {
+
+    private final SyslogRecord syslogRecord;
+    private final Layout<?> layout;
+    private final LogEvent event;
+    private final SyslogBytesDestination syslogBytesDestination;
+
+    public SyslogRecordWithLayout(
+            SyslogRecord syslogRecord,
+            Layout<?> layout,
+            LogEvent event,
+            SyslogBytesDestination syslogBytesDestination
+    ) {
+        this.syslogRecord = syslogRecord;
+        this.layout = layout;
+        this.event = event;
+        this.syslogBytesDestination = syslogBytesDestination;
+    }
+
+    @Override
+    public SyslogMessage asSyslogMessage() {
+        SyslogMessage syslogMessage = syslogRecord.asSyslogMessage();
+        syslogMessage.withMsg(new String(layout.toByteArray(event), StandardCharsets.UTF_8));
+        return syslogMessage;
+    }
+
+    @Override
+    public void writeTo(SyslogBuffer buffer) {
+        syslogRecord.writeTo(buffer);
+        syslogBytesDestination.encode(layout, event, buffer.msgBytes());
+    }
+
+    @Override
+    public long epochMillis() {
+        return syslogRecord.epochMillis();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(syslogRecord, layout, event, syslogBytesDestination);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        SyslogRecordWithLayout other = (SyslogRecordWithLayout) o;
+        return Objects.equals(this.syslogRecord, other.syslogRecord) && Objects
+                .equals(this.layout, other.layout) && Objects.equals(this.event, other.event)
+                && Objects.equals(this.syslogBytesDestination, other.syslogBytesDestination);
+    }
+}
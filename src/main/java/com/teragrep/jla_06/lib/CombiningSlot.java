@@ -0,0 +1,96 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib;
+
+import com.teragrep.jla_06.lib.syslog.SyslogRecord;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+// one thread's publication slot for RelpLogAppenderCombining, records are only touched by the combiner while pending
+public final class CombiningSlot {
+
+    // weak so that the slots of finished threads can be pruned without holding on to the threads
+    private final WeakReference<Thread> owner;
+    private final List<SyslogRecord> records;
+    private RuntimeException failure;
+    private volatile boolean pending;
+
+    public CombiningSlot(Thread owner) {
+        this.owner = new WeakReference<>(owner);
+        this.records = new ArrayList<>();
+        this.failure = null;
+        this.pending = false;
+    }
+
+    public void publish(SyslogRecord syslogRecord) {
+        records.clear();
+        records.add(syslogRecord);
+        failure = null;
+        pending = true;
+    }
+
+    public void publish(List<SyslogRecord> syslogRecords) {
+        records.clear();
+        records.addAll(syslogRecords);
+        failure = null;
+        pending = true;
+    }
+
+    public boolean isPending() {
+        return pending;
+    }
+
+    public List<SyslogRecord> records() {
+        return records;
+    }
+
+    public void complete() {
+        records.clear();
+        pending = false;
+    }
+
+    public void fail(RuntimeException runtimeException) {
+        records.clear();
+        failure = runtimeException;
+        pending = false;
+    }
+
+    public void wake() {
+        final Thread thread = owner.get();
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    // a finished owner can not publish again
+    public boolean isAbandoned() {
+        final Thread thread = owner.get();
+        return !pending && (thread == null || !thread.isAlive());
+    }
+
+    // rethrows the combiner's failure in the publishing thread
+    public void result() {
+        if (failure != null) {
+            final RuntimeException runtimeException = failure;
+            failure = null;
+            throw runtimeException;
+        }
+    }
+}
@@ -19,9 +19,15 @@ package com.teragrep.jla_06.lib;
 import com.teragrep.jla_06.lib.syslog.SyslogRecord;
 import com.teragrep.rlp_01.pool.Stubable;
 
+import java.util.List;
+
 public interface RelpLogAppender extends Stubable {
 
+    void start();
+
     void append(SyslogRecord syslogRecord);
 
+    void append(List<SyslogRecord> syslogRecords);
+
     void stop();
 }
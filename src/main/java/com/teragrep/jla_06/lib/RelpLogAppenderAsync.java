@@ -0,0 +1,217 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib;
+
+import com.teragrep.jla_06.lib.async.FullQueuePolicy;
+import com.teragrep.jla_06.lib.async.RingBuffer;
+import com.teragrep.jla_06.lib.async.SenderThreadFactory;
+import com.teragrep.jla_06.lib.async.WaitStrategy;
+import com.teragrep.jla_06.lib.syslog.SyslogRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+public final class RelpLogAppenderAsync implements RelpLogAppender {
+
+    private final RelpLogAppender appender;
+    private final RingBuffer<SyslogRecord> ringBuffer;
+    private final FullQueuePolicy<SyslogRecord> fullQueuePolicy;
+    private final WaitStrategy recordsAvailable;
+    private final WaitStrategy spaceAvailable;
+    private final int senderThreads;
+    private final int maxBatchSize;
+    private final ThreadFactory threadFactory;
+    private final List<Thread> senders;
+    private final AtomicBoolean running;
+    // appends between their running check and the end of their offer, stop waits for them before the last drain
+    private final AtomicInteger offering;
+    private final AtomicBoolean offersEnded;
+    private final BooleanSupplier workAvailable;
+
+    public RelpLogAppenderAsync(
+            RelpLogAppender relpLogAppender,
+            RingBuffer<SyslogRecord> ringBuffer,
+            FullQueuePolicy<SyslogRecord> fullQueuePolicy,
+            WaitStrategy recordsAvailable,
+            WaitStrategy spaceAvailable,
+            int senderThreads,
+            int maxBatchSize
+    ) {
+        this(
+                relpLogAppender,
+                ringBuffer,
+                fullQueuePolicy,
+                recordsAvailable,
+                spaceAvailable,
+                senderThreads,
+                maxBatchSize,
+                new SenderThreadFactory("jla_06-relp-sender-", false)
+        );
+    }
+
+    public RelpLogAppenderAsync(
+            RelpLogAppender relpLogAppender,
+            RingBuffer<SyslogRecord> ringBuffer,
+            FullQueuePolicy<SyslogRecord> fullQueuePolicy,
+            WaitStrategy recordsAvailable,
+            WaitStrategy spaceAvailable,
+            int senderThreads,
+            int maxBatchSize,
+            ThreadFactory threadFactory
+    ) {
+        if (senderThreads < 1) {
+            throw new IllegalArgumentException("senderThreads must be positive, was <" + senderThreads + ">");
+        }
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be positive, was <" + maxBatchSize + ">");
+        }
+        this.appender = relpLogAppender;
+        this.ringBuffer = ringBuffer;
+        this.fullQueuePolicy = fullQueuePolicy;
+        this.recordsAvailable = recordsAvailable;
+        this.spaceAvailable = spaceAvailable;
+        this.senderThreads = senderThreads;
+        this.maxBatchSize = maxBatchSize;
+        this.threadFactory = threadFactory;
+        this.senders = new ArrayList<>(senderThreads);
+        this.running = new AtomicBoolean();
+        this.offering = new AtomicInteger();
+        this.offersEnded = new AtomicBoolean();
+        this.workAvailable = () -> !ringBuffer.isEmpty() || offersEnded.get();
+    }
+
+    @Override
+    public void start() {
+        if (running.compareAndSet(false, true)) {
+            offersEnded.set(false);
+            appender.start();
+            for (int i = 0; i < senderThreads; i++) {
+                Thread sender = threadFactory.newThread(this::send);
+                senders.add(sender);
+                sender.start();
+            }
+        }
+    }
+
+    @Override
+    public void append(SyslogRecord syslogRecord) {
+        // registered before the running check, so stop either sees this offer or this append sees the stop
+        offering.incrementAndGet();
+        try {
+            if (!running.get()) {
+                throw new IllegalStateException("RelpLogAppenderAsync is not running");
+            }
+            fullQueuePolicy.offer(syslogRecord);
+            recordsAvailable.signal();
+        }
+        finally {
+            offering.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void append(List<SyslogRecord> syslogRecords) {
+        for (SyslogRecord syslogRecord : syslogRecords) {
+            append(syslogRecord);
+        }
+    }
+
+    private void send() {
+        final List<SyslogRecord> batch = new ArrayList<>(maxBatchSize);
+        while (true) {
+            // sampled before polling so records offered between an empty poll and stop() are not stranded
+            final boolean stopping = offersEnded.get();
+            SyslogRecord syslogRecord;
+            while (batch.size() < maxBatchSize && (syslogRecord = ringBuffer.poll()) != null) {
+                batch.add(syslogRecord);
+            }
+            if (!batch.isEmpty()) {
+                spaceAvailable.signal();
+                try {
+                    appender.append(batch);
+                }
+                catch (RuntimeException e) {
+                    System.err
+                            .println(
+                                    "Dropping <" + batch.size() + "> records due to exception <" + e.getMessage()
+                                            + "> while sending"
+                            );
+                }
+                batch.clear();
+            }
+            else if (!stopping) {
+                recordsAvailable.await(workAvailable);
+            }
+            else {
+                // drained after stop
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (running.compareAndSet(true, false)) {
+            // blocked offers keep waiting for the space the senders free up and finish before the last drain
+            while (offering.get() > 0) {
+                if (Thread.currentThread().isInterrupted()) {
+                    // the caller gave up on the drain, blocked offers give up as well
+                    fullQueuePolicy.close();
+                }
+                LockSupport.parkNanos(this, TimeUnit.MICROSECONDS.toNanos(100));
+            }
+            offersEnded.set(true);
+            recordsAvailable.signal();
+            for (Thread sender : senders) {
+                try {
+                    sender.join();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    // the caller gave up on the drain, wakes the senders from their retry timers instead of waiting
+                    System.err
+                            .println(
+                                    "Interrupted while draining <[" + sender.getName()
+                                            + "]>, not waiting for the senders"
+                            );
+                    for (Thread abandonedSender : senders) {
+                        abandonedSender.interrupt();
+                    }
+                    break;
+                }
+            }
+            senders.clear();
+            fullQueuePolicy.close();
+            appender.stop();
+            final long dropped = fullQueuePolicy.dropped();
+            if (dropped > 0) {
+                System.err.println("RelpLogAppenderAsync dropped <" + dropped + "> records due to full queue");
+            }
+        }
+    }
+
+    @Override
+    public boolean isStub() {
+        return false;
+    }
+}
@@ -0,0 +1,173 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib;
+
+import com.teragrep.jla_06.lib.syslog.SyslogRecord;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+// flat combining: the lock holder sends the records every waiting thread has published in one batch
+public final class RelpLogAppenderCombining implements RelpLogAppender {
+
+    private final RelpLogAppender appender;
+    private final int maxBatchSize;
+    private final Lock lock;
+    private final ThreadLocal<CombiningSlot> slots;
+    private final Queue<CombiningSlot> allSlots;
+    // guarded by lock
+    private final List<SyslogRecord> batch;
+    private final List<CombiningSlot> combined;
+
+    public RelpLogAppenderCombining(RelpLogAppender relpLogAppender, int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be positive, was <" + maxBatchSize + ">");
+        }
+        this.appender = relpLogAppender;
+        this.maxBatchSize = maxBatchSize;
+        this.lock = new ReentrantLock();
+        this.allSlots = new ConcurrentLinkedQueue<>();
+        this.slots = ThreadLocal.withInitial(() -> {
+            final CombiningSlot slot = new CombiningSlot(Thread.currentThread());
+            allSlots.add(slot);
+            return slot;
+        });
+        this.batch = new ArrayList<>(maxBatchSize);
+        this.combined = new ArrayList<>();
+    }
+
+    @Override
+    public void start() {
+        appender.start();
+    }
+
+    @Override
+    public void append(SyslogRecord syslogRecord) {
+        final CombiningSlot slot = slots.get();
+        slot.publish(syslogRecord);
+        await(slot);
+    }
+
+    @Override
+    public void append(List<SyslogRecord> syslogRecords) {
+        final CombiningSlot slot = slots.get();
+        slot.publish(syslogRecords);
+        await(slot);
+    }
+
+    private void await(CombiningSlot slot) {
+        while (slot.isPending()) {
+            if (lock.tryLock()) {
+                try {
+                    if (slot.isPending()) {
+                        combine(slot);
+                    }
+                }
+                finally {
+                    lock.unlock();
+                }
+                wakeNextPending();
+            }
+            else {
+                // the lock holder sends the published records and wakes this thread
+                LockSupport.park(this);
+            }
+        }
+        slot.result();
+    }
+
+    // records published after the holder collected its batch would otherwise wait for the next append
+    private void wakeNextPending() {
+        final Iterator<CombiningSlot> iterator = allSlots.iterator();
+        while (iterator.hasNext()) {
+            final CombiningSlot slot = iterator.next();
+            if (slot.isPending()) {
+                slot.wake();
+                break;
+            }
+            if (slot.isAbandoned()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private void combine(CombiningSlot own) {
+        // own records first so that the lock holder always makes progress
+        batch.addAll(own.records());
+        combined.add(own);
+        for (CombiningSlot slot : allSlots) {
+            if (batch.size() >= maxBatchSize) {
+                break;
+            }
+            if (slot != own && slot.isPending()) {
+                batch.addAll(slot.records());
+                combined.add(slot);
+            }
+        }
+
+        try {
+            appender.append(batch);
+            for (CombiningSlot slot : combined) {
+                slot.complete();
+                slot.wake();
+            }
+        }
+        catch (RuntimeException e) {
+            for (CombiningSlot slot : combined) {
+                slot.fail(e);
+                slot.wake();
+            }
+        }
+        finally {
+            batch.clear();
+            combined.clear();
+        }
+    }
+
+    @Override
+    public void stop() {
+        // waits for an in-progress combiner and sends what was published after it collected its batch
+        lock.lock();
+        try {
+            for (CombiningSlot slot : allSlots) {
+                if (slot.isPending()) {
+                    combine(slot);
+                }
+            }
+            appender.stop();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    // publication slots currently tracked, finished threads are pruned by the next combiner
+    public int slots() {
+        return allSlots.size();
+    }
+
+    @Override
+    public boolean isStub() {
+        return false;
+    }
+}
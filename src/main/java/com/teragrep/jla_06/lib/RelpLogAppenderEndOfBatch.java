@@ -0,0 +1,157 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib;
+
+import com.teragrep.jla_06.lib.syslog.SyslogRecord;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// holds records until the producer marks the end of its batch, for Log4j2 AsyncLogger's LogEvent.isEndOfBatch()
+public final class RelpLogAppenderEndOfBatch implements RelpLogAppender {
+
+    private final RelpLogAppender relpLogAppender;
+    private final ThreadLocal<SyslogRecordBatch> batches;
+    // every live thread's batch, so that the linger thread and stop() can flush what the threads left behind
+    private final Queue<SyslogRecordBatch> allBatches;
+    private final long lingerNanos;
+    private final String lingerThreadName;
+    private volatile boolean running;
+    private Thread lingerThread;
+
+    public RelpLogAppenderEndOfBatch(RelpLogAppender relpLogAppender, int maxBatchSize) {
+        this(relpLogAppender, maxBatchSize, 100, "jla_06-relp-linger");
+    }
+
+    // events that are not from an AsyncLogger never end a batch, lingerMillis bounds how long they are held
+    public RelpLogAppenderEndOfBatch(
+            RelpLogAppender relpLogAppender,
+            int maxBatchSize,
+            long lingerMillis,
+            String lingerThreadName
+    ) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be positive, was <" + maxBatchSize + ">");
+        }
+        if (lingerMillis < 1) {
+            throw new IllegalArgumentException("lingerMillis must be positive, was <" + lingerMillis + ">");
+        }
+        this.relpLogAppender = relpLogAppender;
+        this.allBatches = new ConcurrentLinkedQueue<>();
+        this.batches = ThreadLocal.withInitial(() -> {
+            final SyslogRecordBatch batch = new SyslogRecordBatch(relpLogAppender, maxBatchSize);
+            allBatches.add(batch);
+            return batch;
+        });
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.lingerThreadName = lingerThreadName;
+        this.running = false;
+    }
+
+    @Override
+    public void start() {
+        relpLogAppender.start();
+        running = true;
+        lingerThread = new Thread(this::linger, lingerThreadName);
+        lingerThread.setDaemon(true);
+        lingerThread.start();
+    }
+
+    private void linger() {
+        while (running) {
+            LockSupport.parkNanos(this, Math.max(lingerNanos / 2, TimeUnit.MILLISECONDS.toNanos(1)));
+            flushLingering(System.nanoTime() - lingerNanos);
+        }
+    }
+
+    // batches of finished threads are flushed and then forgotten
+    private void flushLingering(long deadlineNanos) {
+        final Iterator<SyslogRecordBatch> iterator = allBatches.iterator();
+        while (iterator.hasNext()) {
+            final SyslogRecordBatch batch = iterator.next();
+            final int buffered = batch.size();
+            try {
+                batch.flushAddedBefore(deadlineNanos);
+            }
+            catch (RuntimeException e) {
+                System.err
+                        .println(
+                                "Dropping <" + buffered + "> buffered records due to exception <" + e.getMessage()
+                                        + "> while flushing a lingering batch"
+                        );
+            }
+            if (batch.isAbandoned()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    @Override
+    public void append(SyslogRecord syslogRecord) {
+        append(syslogRecord, true);
+    }
+
+    public void append(SyslogRecord syslogRecord, boolean endOfBatch) {
+        batches.get().add(syslogRecord, endOfBatch);
+    }
+
+    @Override
+    public void append(List<SyslogRecord> syslogRecords) {
+        batches.get().addAll(syslogRecords);
+    }
+
+    public int batches() {
+        return allBatches.size();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (lingerThread != null) {
+            LockSupport.unpark(lingerThread);
+            try {
+                lingerThread.join();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (SyslogRecordBatch batch : allBatches) {
+            final int buffered = batch.size();
+            try {
+                batch.flush();
+            }
+            catch (RuntimeException e) {
+                System.err
+                        .println(
+                                "Dropping <" + buffered + "> buffered records due to exception <" + e.getMessage()
+                                        + "> while stopping"
+                        );
+            }
+        }
+        relpLogAppender.stop();
+    }
+
+    @Override
+    public boolean isStub() {
+        return false;
+    }
+}
@@ -16,26 +16,108 @@
  */
 package com.teragrep.jla_06.lib;
 
+import com.teragrep.jla_06.lib.connection.RelpBatchConnection;
+import com.teragrep.jla_06.lib.metrics.RelpMetrics;
 import com.teragrep.jla_06.lib.syslog.*;
-import com.teragrep.rlp_01.client.IManagedRelpConnection;
 import com.teragrep.rlp_01.pool.Pool;
 
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 public final class RelpLogAppenderImpl implements RelpLogAppender {
 
-    private final Pool<IManagedRelpConnection> relpConnectionPool;
+    private final Pool<RelpBatchConnection> relpConnectionPool;
+    private final ThreadLocal<SyslogBuffer> syslogBuffers;
+    private final RelpMetrics relpMetrics;
 
-    public RelpLogAppenderImpl(Pool<IManagedRelpConnection> relpConnectionPool) {
+    public RelpLogAppenderImpl(Pool<RelpBatchConnection> relpConnectionPool) {
+        this(relpConnectionPool, new RelpMetrics());
+    }
+
+    public RelpLogAppenderImpl(Pool<RelpBatchConnection> relpConnectionPool, RelpMetrics relpMetrics) {
         this.relpConnectionPool = relpConnectionPool;
+        this.relpMetrics = relpMetrics;
+        this.syslogBuffers = ThreadLocal.withInitial(SyslogBuffer::new);
+    }
+
+    @Override
+    public void start() {
+        // connections are opened on demand by the pool
     }
 
     @Override
     public void append(SyslogRecord syslogRecord) {
-        IManagedRelpConnection connection = relpConnectionPool.get();
+        final byte[] record = encode(syslogRecord);
+        send(Collections.singletonList(record), record.length);
+        acknowledged(syslogRecord);
+    }
+
+    @Override
+    public void append(List<SyslogRecord> syslogRecords) {
+        List<byte[]> records = new ArrayList<>(syslogRecords.size());
+        long bytes = 0;
+        for (SyslogRecord syslogRecord : syslogRecords) {
+            final byte[] record = encode(syslogRecord);
+            records.add(record);
+            bytes = bytes + record.length;
+        }
+
+        send(records, bytes);
+        for (SyslogRecord syslogRecord : syslogRecords) {
+            acknowledged(syslogRecord);
+        }
+    }
+
+    // every send mode ends here, so the age covers the time spent queued or batched before the send
+    private void acknowledged(SyslogRecord syslogRecord) {
+        final long epochMillis = syslogRecord.epochMillis();
+        if (epochMillis != Long.MIN_VALUE) {
+            relpMetrics.eventAcknowledged((System.currentTimeMillis() - epochMillis) * 1_000_000L);
+        }
+    }
+
+    private RelpBatchConnection lease() {
+        final long start = System.nanoTime();
+        final RelpBatchConnection connection = relpConnectionPool.get();
+        relpMetrics.connectionWaited(System.nanoTime() - start);
+        return connection;
+    }
+
+    // the connection goes back to the pool even when the send fails, a bounded pool would lose the slot otherwise
+    private void send(List<byte[]> records, long bytes) {
+        final RelpBatchConnection connection = lease();
+        final long start = System.nanoTime();
+        try {
+            connection.ensureSent(records);
+        }
+        catch (RuntimeException e) {
+            relpMetrics.sendFailed();
+            // closed connections connect again on the next lease
+            closeQuietly(connection);
+            throw e;
+        }
+        finally {
+            relpConnectionPool.offer(connection);
+        }
+        relpMetrics.sent(records.size(), bytes, System.nanoTime() - start);
+    }
+
+    private void closeQuietly(RelpBatchConnection connection) {
+        try {
+            connection.close();
+        }
+        catch (IOException | RuntimeException e) {
+            System.err.println("Failed to close a relp connection after a failed send: <" + e.getMessage() + ">");
+        }
+    }
 
-        connection.ensureSent(syslogRecord.asSyslogMessage().toRfc5424SyslogMessage().getBytes(StandardCharsets.UTF_8));
-        relpConnectionPool.offer(connection);
+    private byte[] encode(SyslogRecord syslogRecord) {
+        final SyslogBuffer syslogBuffer = syslogBuffers.get();
+        syslogBuffer.clear();
+        syslogRecord.writeTo(syslogBuffer);
+        return syslogBuffer.toBytes();
     }
 
     @Override
@@ -0,0 +1,61 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib;
+
+import com.teragrep.jla_06.lib.journal.JournalReplayer;
+import com.teragrep.jla_06.lib.syslog.SyslogRecord;
+
+import java.util.List;
+
+public final class RelpLogAppenderJournaled implements RelpLogAppender {
+
+    private final RelpLogAppender relpLogAppender;
+    private final JournalReplayer journalReplayer;
+
+    public RelpLogAppenderJournaled(RelpLogAppender relpLogAppender, JournalReplayer journalReplayer) {
+        this.relpLogAppender = relpLogAppender;
+        this.journalReplayer = journalReplayer;
+    }
+
+    @Override
+    public void start() {
+        journalReplayer.start();
+        relpLogAppender.start();
+    }
+
+    @Override
+    public void append(SyslogRecord syslogRecord) {
+        relpLogAppender.append(syslogRecord);
+    }
+
+    @Override
+    public void append(List<SyslogRecord> syslogRecords) {
+        relpLogAppender.append(syslogRecords);
+    }
+
+    @Override
+    public void stop() {
+        // records drained by the appender may still be journaled, the replayer closes the journal last
+        relpLogAppender.stop();
+        journalReplayer.stop();
+    }
+
+    @Override
+    public boolean isStub() {
+        return false;
+    }
+}
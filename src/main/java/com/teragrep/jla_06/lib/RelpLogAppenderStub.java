@@ -18,8 +18,17 @@ package com.teragrep.jla_06.lib;
 
 import com.teragrep.jla_06.lib.syslog.SyslogRecord;
 
+import java.util.List;
+
 public final class RelpLogAppenderStub implements RelpLogAppender {
 
+    @Override
+    public void start() {
+        throw new UnsupportedOperationException(
+                "RelpAppenderStub does not support this. Perhaps appender is not started yet."
+        );
+    }
+
     @Override
     public void append(SyslogRecord syslogRecord) {
         throw new UnsupportedOperationException(
@@ -27,6 +36,13 @@ public final class RelpLogAppenderStub implements RelpLogAppender {
         );
     }
 
+    @Override
+    public void append(List<SyslogRecord> syslogRecords) {
+        throw new UnsupportedOperationException(
+                "RelpAppenderStub does not support this. Perhaps appender is not started yet."
+        );
+    }
+
     @Override
     public void stop() {
         throw new UnsupportedOperationException(
@@ -18,17 +18,46 @@ package com.teragrep.jla_06.lib;
 
 import com.teragrep.jla_06.lib.syslog.SyslogRecord;
 
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
 public final class RelpLogAppenderSynchronized implements RelpLogAppender {
 
     private final RelpLogAppender appender;
+    // a monitor held across blocking socket I/O would pin the carrier of a virtual thread
+    private final Lock lock;
 
     public RelpLogAppenderSynchronized(RelpLogAppender relpLogAppender) {
         this.appender = relpLogAppender;
+        this.lock = new ReentrantLock();
+    }
+
+    @Override
+    public void start() {
+        appender.start();
+    }
+
+    @Override
+    public void append(SyslogRecord syslogRecord) {
+        lock.lock();
+        try {
+            appender.append(syslogRecord);
+        }
+        finally {
+            lock.unlock();
+        }
     }
 
     @Override
-    public synchronized void append(SyslogRecord syslogRecord) {
-        appender.append(syslogRecord);
+    public void append(List<SyslogRecord> syslogRecords) {
+        lock.lock();
+        try {
+            appender.append(syslogRecords);
+        }
+        finally {
+            lock.unlock();
+        }
     }
 
     @Override
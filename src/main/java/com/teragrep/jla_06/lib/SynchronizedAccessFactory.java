@@ -0,0 +1,37 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib;
+
+public final class SynchronizedAccessFactory {
+
+    public RelpLogAppender create(String name, RelpLogAppender relpLogAppender, int maxBatchSize) {
+        final RelpLogAppender synchronizedAppender;
+        switch (name) {
+            case "lock":
+                synchronizedAppender = new RelpLogAppenderSynchronized(relpLogAppender);
+                break;
+            case "combining":
+                synchronizedAppender = new RelpLogAppenderCombining(relpLogAppender, maxBatchSize);
+                break;
+            default:
+                throw new IllegalArgumentException(
+                        "Unknown synchronized access mode <[" + name + "]>, expected one of lock, combining"
+                );
+        }
+        return synchronizedAppender;
+    }
+}
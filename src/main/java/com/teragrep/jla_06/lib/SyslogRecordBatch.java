@@ -0,0 +1,128 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib;
+
+import com.teragrep.jla_06.lib.syslog.SyslogRecord;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+public final class SyslogRecordBatch {
+
+    private final RelpLogAppender relpLogAppender;
+    private final int maxSize;
+    private final List<SyslogRecord> records;
+    // not a monitor, flushing blocks on socket I/O which would pin the carrier of a virtual thread
+    private final Lock lock;
+    // weak so that a batch does not keep a finished thread reachable
+    private final WeakReference<Thread> owner;
+    private long oldestNanos;
+
+    public SyslogRecordBatch(RelpLogAppender relpLogAppender, int maxSize) {
+        this(relpLogAppender, maxSize, Thread.currentThread());
+    }
+
+    public SyslogRecordBatch(RelpLogAppender relpLogAppender, int maxSize, Thread owner) {
+        this.relpLogAppender = relpLogAppender;
+        this.maxSize = maxSize;
+        this.records = new ArrayList<>(maxSize);
+        this.lock = new ReentrantLock();
+        this.owner = new WeakReference<>(owner);
+        this.oldestNanos = 0;
+    }
+
+    public void add(SyslogRecord syslogRecord, boolean endOfBatch) {
+        lock.lock();
+        try {
+            if (records.isEmpty()) {
+                oldestNanos = System.nanoTime();
+            }
+            records.add(syslogRecord);
+            if (endOfBatch || records.size() >= maxSize) {
+                flushLocked();
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    // sends the held records first so that the order is kept
+    public void addAll(List<SyslogRecord> syslogRecords) {
+        lock.lock();
+        try {
+            flushLocked();
+            relpLogAppender.append(syslogRecords);
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    public void flush() {
+        lock.lock();
+        try {
+            flushLocked();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    // flushes when the oldest held record was added before the deadline
+    public void flushAddedBefore(long deadlineNanos) {
+        lock.lock();
+        try {
+            if (!records.isEmpty() && oldestNanos - deadlineNanos <= 0) {
+                flushLocked();
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    // empty and no thread left to add to it
+    public boolean isAbandoned() {
+        final Thread thread = owner.get();
+        return (thread == null || !thread.isAlive()) && size() == 0;
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return records.size();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushLocked() {
+        if (!records.isEmpty()) {
+            try {
+                relpLogAppender.append(records);
+            }
+            finally {
+                records.clear();
+            }
+        }
+    }
+}
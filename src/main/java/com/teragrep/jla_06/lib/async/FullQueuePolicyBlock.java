@@ -0,0 +1,60 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.async;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+public final class FullQueuePolicyBlock<T> implements FullQueuePolicy<T> {
+
+    private final RingBuffer<T> ringBuffer;
+    private final WaitStrategy spaceAvailable;
+    private final BooleanSupplier notFullOrClosed;
+    private final LongAdder dropped;
+    private volatile boolean closed;
+
+    public FullQueuePolicyBlock(RingBuffer<T> ringBuffer, WaitStrategy spaceAvailable) {
+        this.ringBuffer = ringBuffer;
+        this.spaceAvailable = spaceAvailable;
+        this.notFullOrClosed = () -> !ringBuffer.isFull() || closed;
+        this.dropped = new LongAdder();
+        this.closed = false;
+    }
+
+    @Override
+    public void offer(T element) {
+        while (!ringBuffer.offer(element)) {
+            // the senders may already have drained for the last time
+            if (closed) {
+                dropped.increment();
+                return;
+            }
+            spaceAvailable.await(notFullOrClosed);
+        }
+    }
+
+    @Override
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        spaceAvailable.signal();
+    }
+}
@@ -0,0 +1,47 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.async;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public final class FullQueuePolicyDropNewest<T> implements FullQueuePolicy<T> {
+
+    private final RingBuffer<T> ringBuffer;
+    private final LongAdder dropped;
+
+    public FullQueuePolicyDropNewest(RingBuffer<T> ringBuffer) {
+        this.ringBuffer = ringBuffer;
+        this.dropped = new LongAdder();
+    }
+
+    @Override
+    public void offer(T element) {
+        if (!ringBuffer.offer(element)) {
+            dropped.increment();
+        }
+    }
+
+    @Override
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void close() {
+        // never waits for space
+    }
+}
@@ -0,0 +1,40 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.async;
+
+public final class FullQueuePolicyFactory<T> {
+
+    public FullQueuePolicy<T> create(String name, RingBuffer<T> ringBuffer, WaitStrategy spaceAvailable) {
+        final FullQueuePolicy<T> fullQueuePolicy;
+        switch (name) {
+            case "block":
+                fullQueuePolicy = new FullQueuePolicyBlock<>(ringBuffer, spaceAvailable);
+                break;
+            case "dropNewest":
+                fullQueuePolicy = new FullQueuePolicyDropNewest<>(ringBuffer);
+                break;
+            case "dropOldest":
+                fullQueuePolicy = new FullQueuePolicyDropOldest<>(ringBuffer);
+                break;
+            default:
+                throw new IllegalArgumentException(
+                        "Unknown full queue policy <[" + name + "]>, expected one of block, dropNewest, dropOldest"
+                );
+        }
+        return fullQueuePolicy;
+    }
+}
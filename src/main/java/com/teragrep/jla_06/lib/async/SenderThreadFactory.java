@@ -0,0 +1,44 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.async;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Java 21 and later use META-INF/versions/21 of this class, which supports virtual threads
+public final class SenderThreadFactory implements ThreadFactory {
+
+    private final String namePrefix;
+    private final boolean virtual;
+    private final AtomicInteger index;
+
+    public SenderThreadFactory(String namePrefix, boolean virtual) {
+        this.namePrefix = namePrefix;
+        this.virtual = virtual;
+        this.index = new AtomicInteger();
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+        if (virtual && index.get() == 0) {
+            System.err.println("Virtual threads require Java 21, using platform threads for <" + namePrefix + ">");
+        }
+        final Thread thread = new Thread(runnable, namePrefix + index.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+    }
+}
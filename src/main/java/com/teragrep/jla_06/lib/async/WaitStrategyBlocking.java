@@ -0,0 +1,79 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.async;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+public final class WaitStrategyBlocking implements WaitStrategy {
+
+    private final Lock lock;
+    private final Condition condition;
+    private final AtomicInteger waiters;
+    private final long maxWaitNanos;
+
+    public WaitStrategyBlocking() {
+        this(TimeUnit.MILLISECONDS.toNanos(10));
+    }
+
+    public WaitStrategyBlocking(long maxWaitNanos) {
+        this.lock = new ReentrantLock();
+        this.condition = lock.newCondition();
+        this.waiters = new AtomicInteger();
+        this.maxWaitNanos = maxWaitNanos;
+    }
+
+    @Override
+    public void await(BooleanSupplier condition) {
+        if (condition.getAsBoolean()) {
+            return;
+        }
+        // waiter is registered before the condition is re-checked under the lock, so a signal can not be missed
+        waiters.incrementAndGet();
+        lock.lock();
+        try {
+            long nanos = maxWaitNanos;
+            while (!condition.getAsBoolean() && nanos > 0) {
+                nanos = this.condition.awaitNanos(nanos);
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            lock.unlock();
+            waiters.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void signal() {
+        if (waiters.get() > 0) {
+            lock.lock();
+            try {
+                condition.signalAll();
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+    }
+}
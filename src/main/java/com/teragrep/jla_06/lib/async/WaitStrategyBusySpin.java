@@ -0,0 +1,32 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.async;
+
+import java.util.function.BooleanSupplier;
+
+public final class WaitStrategyBusySpin implements WaitStrategy {
+
+    @Override
+    public void await(BooleanSupplier condition) {
+        // spinning waiters re-check the condition immediately
+    }
+
+    @Override
+    public void signal() {
+        // spinning waiters poll the condition
+    }
+}
@@ -0,0 +1,43 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.async;
+
+public final class WaitStrategyFactory {
+
+    public WaitStrategy create(String name) {
+        final WaitStrategy waitStrategy;
+        switch (name) {
+            case "blocking":
+                waitStrategy = new WaitStrategyBlocking();
+                break;
+            case "sleeping":
+                waitStrategy = new WaitStrategySleeping();
+                break;
+            case "yielding":
+                waitStrategy = new WaitStrategyYielding();
+                break;
+            case "busySpin":
+                waitStrategy = new WaitStrategyBusySpin();
+                break;
+            default:
+                throw new IllegalArgumentException(
+                        "Unknown wait strategy <[" + name + "]>, expected one of blocking, sleeping, yielding, busySpin"
+                );
+        }
+        return waitStrategy;
+    }
+}
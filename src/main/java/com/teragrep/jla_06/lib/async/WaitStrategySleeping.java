@@ -0,0 +1,46 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.async;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+public final class WaitStrategySleeping implements WaitStrategy {
+
+    private final long sleepNanos;
+
+    public WaitStrategySleeping() {
+        this(TimeUnit.MICROSECONDS.toNanos(100));
+    }
+
+    public WaitStrategySleeping(long sleepNanos) {
+        this.sleepNanos = sleepNanos;
+    }
+
+    @Override
+    public void await(BooleanSupplier condition) {
+        if (!condition.getAsBoolean()) {
+            LockSupport.parkNanos(sleepNanos);
+        }
+    }
+
+    @Override
+    public void signal() {
+        // sleeping waiters poll the condition
+    }
+}
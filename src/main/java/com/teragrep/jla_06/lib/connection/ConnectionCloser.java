@@ -0,0 +1,122 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.connection;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+// closes every connection of a closing pool on a daemon thread of its own so that one slow relp close does not delay
+// the others, any other close runs on the calling thread so that a closed connection is never leased while closing
+public final class ConnectionCloser {
+
+    private final String threadNamePrefix;
+    private final AtomicInteger threadIndex;
+    private final Lock lock;
+    private final Condition allClosed;
+    private int closing;
+    private volatile Thread poolCloser;
+
+    public ConnectionCloser(String threadNamePrefix) {
+        this.threadNamePrefix = threadNamePrefix;
+        this.threadIndex = new AtomicInteger();
+        this.lock = new ReentrantLock();
+        this.allClosed = lock.newCondition();
+        this.closing = 0;
+        this.poolCloser = null;
+    }
+
+    // the connections closed by poolClose on this thread are closed in parallel
+    public void closeInParallel(Runnable poolClose) {
+        poolCloser = Thread.currentThread();
+        try {
+            poolClose.run();
+        }
+        finally {
+            poolCloser = null;
+        }
+    }
+
+    // returns immediately within closeInParallel, await reports whether the close finished
+    public void close(RelpBatchConnection relpBatchConnection) {
+        if (Thread.currentThread() != poolCloser) {
+            try {
+                relpBatchConnection.close();
+            }
+            catch (IOException | RuntimeException e) {
+                System.err.println("Failed to close a relp connection: <" + e.getMessage() + ">");
+            }
+            return;
+        }
+        lock.lock();
+        try {
+            closing++;
+        }
+        finally {
+            lock.unlock();
+        }
+        final Thread closer = new Thread(
+                () -> closeAndCount(relpBatchConnection),
+                threadNamePrefix + threadIndex.getAndIncrement()
+        );
+        closer.setDaemon(true);
+        closer.start();
+    }
+
+    private void closeAndCount(RelpBatchConnection relpBatchConnection) {
+        try {
+            relpBatchConnection.close();
+        }
+        catch (IOException | RuntimeException e) {
+            System.err.println("Failed to close a relp connection: <" + e.getMessage() + ">");
+        }
+        finally {
+            lock.lock();
+            try {
+                closing--;
+                if (closing == 0) {
+                    allClosed.signalAll();
+                }
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // waits until no close is in progress, returns the closes still running once the timeout passed
+    public int await(long timeout, TimeUnit timeUnit) {
+        long remainingNanos = timeUnit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (closing > 0 && remainingNanos > 0) {
+                remainingNanos = allClosed.awaitNanos(remainingNanos);
+            }
+            return closing;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return closing;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+}
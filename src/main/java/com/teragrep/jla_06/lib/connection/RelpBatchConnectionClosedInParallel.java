@@ -0,0 +1,75 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.connection;
+
+import java.io.IOException;
+import java.util.List;
+
+// hands close to the closer, the pools close their connections one at a time otherwise
+public final class RelpBatchConnectionClosedInParallel implements RelpBatchConnection {
+
+    private final RelpBatchConnection relpBatchConnection;
+    private final ConnectionCloser connectionCloser;
+
+    public RelpBatchConnectionClosedInParallel(
+            RelpBatchConnection relpBatchConnection,
+            ConnectionCloser connectionCloser
+    ) {
+        this.relpBatchConnection = relpBatchConnection;
+        this.connectionCloser = connectionCloser;
+    }
+
+    @Override
+    public void reconnect() {
+        relpBatchConnection.reconnect();
+    }
+
+    @Override
+    public void connect() throws IOException {
+        relpBatchConnection.connect();
+    }
+
+    @Override
+    public void connectOnce() {
+        relpBatchConnection.connectOnce();
+    }
+
+    @Override
+    public void forceReconnect() {
+        relpBatchConnection.forceReconnect();
+    }
+
+    @Override
+    public void ensureSent(byte[] bytes) {
+        relpBatchConnection.ensureSent(bytes);
+    }
+
+    @Override
+    public void ensureSent(List<byte[]> records) {
+        relpBatchConnection.ensureSent(records);
+    }
+
+    @Override
+    public boolean isStub() {
+        return relpBatchConnection.isStub();
+    }
+
+    @Override
+    public void close() {
+        connectionCloser.close(relpBatchConnection);
+    }
+}
@@ -0,0 +1,124 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.connection;
+
+import com.teragrep.jla_06.lib.metrics.RelpMetrics;
+import com.teragrep.rlp_01.RelpConnection;
+import com.teragrep.rlp_01.client.IRelpConnection;
+import com.teragrep.rlp_01.client.RelpConfig;
+import com.teragrep.rlp_01.client.RelpConnectionWithConfig;
+import com.teragrep.rlp_01.client.SSLContextSupplier;
+import com.teragrep.rlp_01.client.SocketConfig;
+
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+public final class RelpBatchConnectionFactory implements Supplier<RelpBatchConnection> {
+
+    private final RelpConfig relpConfig;
+    private final SocketConfig socketConfig;
+    private final SSLContextSupplier sslContextSupplier;
+    private final int maxInFlight;
+    private final int maxAttempts;
+    private final RelpMetrics relpMetrics;
+    private final BooleanSupplier abandoned;
+
+    public RelpBatchConnectionFactory(
+            RelpConfig relpConfig,
+            SocketConfig socketConfig,
+            SSLContextSupplier sslContextSupplier,
+            int maxInFlight
+    ) {
+        this(relpConfig, socketConfig, sslContextSupplier, maxInFlight, 0);
+    }
+
+    public RelpBatchConnectionFactory(
+            RelpConfig relpConfig,
+            SocketConfig socketConfig,
+            SSLContextSupplier sslContextSupplier,
+            int maxInFlight,
+            int maxAttempts
+    ) {
+        this(relpConfig, socketConfig, sslContextSupplier, maxInFlight, maxAttempts, new RelpMetrics());
+    }
+
+    public RelpBatchConnectionFactory(
+            RelpConfig relpConfig,
+            SocketConfig socketConfig,
+            SSLContextSupplier sslContextSupplier,
+            int maxInFlight,
+            int maxAttempts,
+            RelpMetrics relpMetrics
+    ) {
+        this(relpConfig, socketConfig, sslContextSupplier, maxInFlight, maxAttempts, relpMetrics, () -> false);
+    }
+
+    public RelpBatchConnectionFactory(
+            RelpConfig relpConfig,
+            SocketConfig socketConfig,
+            SSLContextSupplier sslContextSupplier,
+            int maxInFlight,
+            int maxAttempts,
+            RelpMetrics relpMetrics,
+            BooleanSupplier abandoned
+    ) {
+        this.relpConfig = relpConfig;
+        this.socketConfig = socketConfig;
+        this.sslContextSupplier = sslContextSupplier;
+        this.maxInFlight = maxInFlight;
+        this.maxAttempts = maxAttempts;
+        this.relpMetrics = relpMetrics;
+        this.abandoned = abandoned;
+    }
+
+    @Override
+    public RelpBatchConnection get() {
+        final IRelpConnection relpConnection;
+        if (sslContextSupplier.isStub()) {
+            relpConnection = new RelpConnectionWithConfig(new RelpConnection(), relpConfig);
+        }
+        else {
+            relpConnection = new RelpConnectionWithConfig(
+                    new RelpConnection(() -> sslContextSupplier.get().createSSLEngine()),
+                    relpConfig
+            );
+        }
+        relpConnection.setReadTimeout(socketConfig.readTimeout());
+        relpConnection.setWriteTimeout(socketConfig.writeTimeout());
+        relpConnection.setConnectionTimeout(socketConfig.connectTimeout());
+        relpConnection.setKeepAlive(socketConfig.keepAlive());
+
+        RelpBatchConnection relpBatchConnection = new RelpBatchConnectionImpl(
+                relpConnection,
+                maxInFlight,
+                maxAttempts,
+                relpMetrics,
+                abandoned
+        );
+        if (relpConfig.rebindEnabled) {
+            relpBatchConnection = new RelpBatchConnectionRebindable(
+                    relpBatchConnection,
+                    relpConfig.rebindRequestAmount,
+                    relpMetrics
+            );
+        }
+        if (relpConfig.maxIdleEnabled) {
+            relpBatchConnection = new RelpBatchConnectionRenewable(relpBatchConnection, relpConfig.maxIdle);
+        }
+        return relpBatchConnection;
+    }
+}
@@ -0,0 +1,238 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.connection;
+
+import com.teragrep.rlp_01.RelpBatch;
+import com.teragrep.jla_06.lib.metrics.RelpMetrics;
+import com.teragrep.rlp_01.client.IRelpConnection;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+
+public final class RelpBatchConnectionImpl implements RelpBatchConnection {
+
+    private final IRelpConnection relpConnection;
+    private final int maxInFlight;
+    // 0 retries until the records are sent, otherwise gives up with an exception after maxAttempts
+    private final int maxAttempts;
+    private final RelpMetrics relpMetrics;
+    // set once a stop deadline has passed, ends the retry loops regardless of maxAttempts
+    private final BooleanSupplier abandoned;
+    private boolean hasConnected;
+    private boolean open;
+
+    public RelpBatchConnectionImpl(IRelpConnection relpConnection, int maxInFlight) {
+        this(relpConnection, maxInFlight, 0);
+    }
+
+    public RelpBatchConnectionImpl(IRelpConnection relpConnection, int maxInFlight, int maxAttempts) {
+        this(relpConnection, maxInFlight, maxAttempts, new RelpMetrics());
+    }
+
+    public RelpBatchConnectionImpl(
+            IRelpConnection relpConnection,
+            int maxInFlight,
+            int maxAttempts,
+            RelpMetrics relpMetrics
+    ) {
+        this(relpConnection, maxInFlight, maxAttempts, relpMetrics, () -> false);
+    }
+
+    public RelpBatchConnectionImpl(
+            IRelpConnection relpConnection,
+            int maxInFlight,
+            int maxAttempts,
+            RelpMetrics relpMetrics,
+            BooleanSupplier abandoned
+    ) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be positive, was <" + maxInFlight + ">");
+        }
+        if (maxAttempts < 0) {
+            throw new IllegalArgumentException("maxAttempts must not be negative, was <" + maxAttempts + ">");
+        }
+        this.relpConnection = relpConnection;
+        this.maxInFlight = maxInFlight;
+        this.maxAttempts = maxAttempts;
+        this.relpMetrics = relpMetrics;
+        this.abandoned = abandoned;
+        this.hasConnected = false;
+        this.open = false;
+    }
+
+    @Override
+    public void forceReconnect() {
+        tearDown();
+        connect();
+    }
+
+    @Override
+    public void reconnect() {
+        close();
+        connect();
+    }
+
+    @Override
+    public void connect() {
+        connect(maxAttempts);
+    }
+
+    @Override
+    public void connectOnce() {
+        if (!hasConnected) {
+            connect(1);
+        }
+    }
+
+    private void connect(int attemptLimit) {
+        boolean connected = false;
+        int attempts = 0;
+        while (!connected) {
+            if (abandoned.getAsBoolean()) {
+                giveUp();
+                throw new IllegalStateException(
+                        "Abandoned connecting to relp server <[" + relpConnection.relpConfig().relpTarget + "]>:<["
+                                + relpConnection.relpConfig().relpPort + "]> after <" + attempts + "> attempts"
+                );
+            }
+            attempts++;
+            try {
+                this.hasConnected = true;
+                connected = relpConnection
+                        .connect(relpConnection.relpConfig().relpTarget, relpConnection.relpConfig().relpPort);
+            }
+            catch (Exception e) {
+                relpMetrics.connectFailed();
+                System.err
+                        .println(
+                                "Failed to connect to relp server <[" + relpConnection.relpConfig().relpTarget + "]>:<["
+                                        + relpConnection.relpConfig().relpPort + "]>: <" + e.getMessage() + ">"
+                        );
+                if (attemptLimit > 0 && attempts >= attemptLimit) {
+                    giveUp();
+                    throw new IllegalStateException(
+                            "Failed to connect to relp server <[" + relpConnection.relpConfig().relpTarget + "]>:<["
+                                    + relpConnection.relpConfig().relpPort + "]> after <" + attempts + "> attempts",
+                            e
+                    );
+                }
+                try {
+                    Thread.sleep(relpConnection.relpConfig().relpReconnectInterval);
+                }
+                catch (InterruptedException exception) {
+                    System.err.println("Reconnection timer interrupted, reconnecting now");
+                }
+            }
+        }
+        open = true;
+        relpMetrics.connected();
+    }
+
+    private boolean attemptsExhausted(int attempts) {
+        return maxAttempts > 0 && attempts >= maxAttempts;
+    }
+
+    // leaves the connection closed so that the next ensureSent starts with a fresh connect
+    private void giveUp() {
+        tearDown();
+        hasConnected = false;
+    }
+
+    private void tearDown() {
+        if (hasConnected) {
+            relpConnection.tearDown();
+        }
+        if (open) {
+            open = false;
+            relpMetrics.disconnected();
+        }
+    }
+
+    @Override
+    public void ensureSent(byte[] bytes) {
+        ensureSent(Collections.singletonList(bytes));
+    }
+
+    @Override
+    public void ensureSent(List<byte[]> records) {
+        if (!hasConnected) {
+            connect();
+        }
+        // rlp_01 writes every frame of a batch before reading the acks, so each window is pipelined
+        for (int from = 0; from < records.size(); from += maxInFlight) {
+            final int to = Math.min(records.size(), from + maxInFlight);
+            final RelpBatch relpBatch = new RelpBatch();
+            for (int i = from; i < to; i++) {
+                relpBatch.insert(records.get(i));
+            }
+            commit(relpBatch);
+        }
+    }
+
+    private void commit(RelpBatch relpBatch) {
+        boolean notSent = true;
+        int attempts = 0;
+        while (notSent) {
+            attempts++;
+            try {
+                relpConnection.commit(relpBatch);
+            }
+            catch (IllegalStateException | IOException | TimeoutException e) {
+                System.err.println("Exception <" + e.getMessage() + "> while sending relpBatch. Will retry");
+            }
+            if (!relpBatch.verifyTransactionAll()) {
+                relpMetrics.retried();
+                if (attemptsExhausted(attempts) || abandoned.getAsBoolean()) {
+                    giveUp();
+                    throw new IllegalStateException(
+                            "Failed to send relpBatch to relp server <[" + relpConnection.relpConfig().relpTarget
+                                    + "]>:<[" + relpConnection.relpConfig().relpPort + "]> after <" + attempts
+                                    + "> attempts"
+                    );
+                }
+                relpBatch.retryAllFailed();
+                tearDown();
+                connect();
+            }
+            else {
+                notSent = false;
+            }
+        }
+    }
+
+    @Override
+    public boolean isStub() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+        try {
+            relpConnection.disconnect();
+        }
+        catch (IllegalStateException | IOException | TimeoutException e) {
+            System.err.println("Forcefully closing connection due to exception <" + e.getMessage() + ">");
+        }
+        finally {
+            tearDown();
+            hasConnected = false;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.connection;
+
+import com.teragrep.jla_06.lib.metrics.RelpMetrics;
+
+import java.io.IOException;
+import java.util.List;
+
+public final class RelpBatchConnectionRebindable implements RelpBatchConnection {
+
+    private final RelpBatchConnection relpBatchConnection;
+    private final int rebindRequestAmount;
+    private final RelpMetrics relpMetrics;
+    private int recordsSent;
+
+    public RelpBatchConnectionRebindable(RelpBatchConnection relpBatchConnection, int rebindRequestAmount) {
+        this(relpBatchConnection, rebindRequestAmount, new RelpMetrics());
+    }
+
+    public RelpBatchConnectionRebindable(
+            RelpBatchConnection relpBatchConnection,
+            int rebindRequestAmount,
+            RelpMetrics relpMetrics
+    ) {
+        this.relpBatchConnection = relpBatchConnection;
+        this.rebindRequestAmount = rebindRequestAmount;
+        this.relpMetrics = relpMetrics;
+        this.recordsSent = 0;
+    }
+
+    @Override
+    public void reconnect() {
+        relpBatchConnection.reconnect();
+    }
+
+    @Override
+    public void connect() throws IOException {
+        relpBatchConnection.connect();
+    }
+
+    @Override
+    public void connectOnce() {
+        relpBatchConnection.connectOnce();
+    }
+
+    @Override
+    public void forceReconnect() {
+        relpBatchConnection.forceReconnect();
+    }
+
+    @Override
+    public void ensureSent(byte[] bytes) {
+        rebindIfNeeded();
+        relpBatchConnection.ensureSent(bytes);
+        recordsSent++;
+    }
+
+    @Override
+    public void ensureSent(List<byte[]> records) {
+        rebindIfNeeded();
+        relpBatchConnection.ensureSent(records);
+        recordsSent += records.size();
+    }
+
+    private void rebindIfNeeded() {
+        if (recordsSent >= rebindRequestAmount) {
+            reconnect();
+            relpMetrics.rebound();
+            recordsSent = 0;
+        }
+    }
+
+    @Override
+    public boolean isStub() {
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        relpBatchConnection.close();
+    }
+}
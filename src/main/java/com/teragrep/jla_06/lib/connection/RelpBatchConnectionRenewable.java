@@ -0,0 +1,88 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.connection;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+public final class RelpBatchConnectionRenewable implements RelpBatchConnection {
+
+    private final RelpBatchConnection relpBatchConnection;
+    private final Duration maxIdle;
+    private Instant lastAccess;
+
+    public RelpBatchConnectionRenewable(RelpBatchConnection relpBatchConnection, Duration maxIdle) {
+        this.relpBatchConnection = relpBatchConnection;
+        this.maxIdle = maxIdle;
+        this.lastAccess = Instant.ofEpochSecond(0);
+    }
+
+    @Override
+    public void reconnect() {
+        lastAccess = Instant.now();
+        relpBatchConnection.reconnect();
+    }
+
+    @Override
+    public void connect() throws IOException {
+        lastAccess = Instant.now();
+        relpBatchConnection.connect();
+    }
+
+    @Override
+    public void connectOnce() {
+        lastAccess = Instant.now();
+        relpBatchConnection.connectOnce();
+    }
+
+    @Override
+    public void forceReconnect() {
+        lastAccess = Instant.now();
+        relpBatchConnection.forceReconnect();
+    }
+
+    @Override
+    public void ensureSent(byte[] bytes) {
+        renewIfIdle();
+        relpBatchConnection.ensureSent(bytes);
+    }
+
+    @Override
+    public void ensureSent(List<byte[]> records) {
+        renewIfIdle();
+        relpBatchConnection.ensureSent(records);
+    }
+
+    private void renewIfIdle() {
+        if (lastAccess.plus(maxIdle).isBefore(Instant.now())) {
+            forceReconnect();
+        }
+        lastAccess = Instant.now();
+    }
+
+    @Override
+    public boolean isStub() {
+        return relpBatchConnection.isStub();
+    }
+
+    @Override
+    public void close() throws IOException {
+        relpBatchConnection.close();
+    }
+}
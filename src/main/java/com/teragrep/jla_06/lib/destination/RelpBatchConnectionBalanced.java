@@ -0,0 +1,153 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.destination;
+
+import com.teragrep.jla_06.lib.connection.RelpBatchConnection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+// sends each batch to one healthy destination and fails over to the others, shared by all logging threads
+public final class RelpBatchConnectionBalanced implements RelpBatchConnection {
+
+    private final List<RelpDestination> relpDestinations;
+    private final RelpDestinationSelection relpDestinationSelection;
+    private final long retryIntervalMillis;
+    private final BooleanSupplier abandoned;
+
+    public RelpBatchConnectionBalanced(
+            List<RelpDestination> relpDestinations,
+            RelpDestinationSelection relpDestinationSelection,
+            long retryIntervalMillis
+    ) {
+        this(relpDestinations, relpDestinationSelection, retryIntervalMillis, () -> false);
+    }
+
+    public RelpBatchConnectionBalanced(
+            List<RelpDestination> relpDestinations,
+            RelpDestinationSelection relpDestinationSelection,
+            long retryIntervalMillis,
+            BooleanSupplier abandoned
+    ) {
+        if (relpDestinations.isEmpty()) {
+            throw new IllegalArgumentException("At least one relp destination is required");
+        }
+        this.relpDestinations = new ArrayList<>(relpDestinations);
+        this.relpDestinationSelection = relpDestinationSelection;
+        this.retryIntervalMillis = retryIntervalMillis;
+        this.abandoned = abandoned;
+    }
+
+    @Override
+    public void ensureSent(byte[] bytes) {
+        ensureSent(Collections.singletonList(bytes));
+    }
+
+    @Override
+    public void ensureSent(List<byte[]> records) {
+        while (true) {
+            final List<RelpDestination> candidates = candidates();
+            while (!candidates.isEmpty()) {
+                final RelpDestination relpDestination = relpDestinationSelection.select(candidates);
+                try {
+                    relpDestination.send(records);
+                    return;
+                }
+                catch (RuntimeException runtimeException) {
+                    System.err
+                            .println(
+                                    "Exception <" + runtimeException.getMessage()
+                                            + "> while sending to relp destination <[" + relpDestination
+                                            + "]>, trying the next destination"
+                            );
+                    candidates.remove(relpDestination);
+                }
+            }
+            if (abandoned.getAsBoolean()) {
+                throw new IllegalStateException(
+                        "Abandoned <" + records.size() + "> records, every relp destination failed"
+                );
+            }
+            try {
+                Thread.sleep(retryIntervalMillis);
+            }
+            catch (InterruptedException exception) {
+                System.err.println("Destination retry timer interrupted, retrying now");
+            }
+        }
+    }
+
+    // all destinations are tried when every one of them is ejected
+    private List<RelpDestination> candidates() {
+        final List<RelpDestination> candidates = new ArrayList<>(relpDestinations.size());
+        for (RelpDestination relpDestination : relpDestinations) {
+            if (relpDestination.isAvailable()) {
+                candidates.add(relpDestination);
+            }
+        }
+        if (candidates.isEmpty()) {
+            candidates.addAll(relpDestinations);
+        }
+        return candidates;
+    }
+
+    @Override
+    public void connect() {
+        // destinations connect on demand
+    }
+
+    // one connection of every destination, a destination that can not be reached does not stop the others
+    @Override
+    public void connectOnce() {
+        for (RelpDestination relpDestination : relpDestinations) {
+            try {
+                relpDestination.connectOnce();
+            }
+            catch (RuntimeException runtimeException) {
+                System.err
+                        .println(
+                                "Exception <" + runtimeException.getMessage()
+                                        + "> while connecting to relp destination <[" + relpDestination + "]>"
+                        );
+            }
+        }
+    }
+
+    @Override
+    public void reconnect() {
+        throw new IllegalStateException("RelpBatchConnectionBalanced does not support this");
+    }
+
+    @Override
+    public void forceReconnect() {
+        throw new IllegalStateException("RelpBatchConnectionBalanced does not support this");
+    }
+
+    @Override
+    public boolean isStub() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+        for (RelpDestination relpDestination : relpDestinations) {
+            relpDestination.close();
+        }
+    }
+}
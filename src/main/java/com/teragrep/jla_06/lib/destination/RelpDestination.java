@@ -0,0 +1,133 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.destination;
+
+import com.teragrep.jla_06.lib.connection.RelpBatchConnection;
+import com.teragrep.rlp_01.pool.Pool;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// one relay with its own connection pool and health state
+public final class RelpDestination {
+
+    private final String name;
+    private final Pool<RelpBatchConnection> relpConnectionPool;
+    private final int ejectAfterFailures;
+    private final long ejectionNanos;
+    private final AtomicInteger outstanding;
+    private final AtomicInteger consecutiveFailures;
+    private final AtomicLong latencyNanos;
+    private volatile boolean ejected;
+    private volatile long ejectedAtNanos;
+
+    public RelpDestination(
+            String name,
+            Pool<RelpBatchConnection> relpConnectionPool,
+            int ejectAfterFailures,
+            Duration ejectionTime
+    ) {
+        if (ejectAfterFailures < 1) {
+            throw new IllegalArgumentException("ejectAfterFailures must be positive, was <" + ejectAfterFailures + ">");
+        }
+        this.name = name;
+        this.relpConnectionPool = relpConnectionPool;
+        this.ejectAfterFailures = ejectAfterFailures;
+        this.ejectionNanos = ejectionTime.toNanos();
+        this.outstanding = new AtomicInteger();
+        this.consecutiveFailures = new AtomicInteger();
+        this.latencyNanos = new AtomicLong();
+        this.ejected = false;
+        this.ejectedAtNanos = 0L;
+    }
+
+    // ejected destinations are reinstated on probation once the ejection time has passed
+    public boolean isAvailable() {
+        return !ejected || System.nanoTime() - ejectedAtNanos >= ejectionNanos;
+    }
+
+    public int outstanding() {
+        return outstanding.get();
+    }
+
+    // moving average of successful sends, 0 until the first one
+    public long latencyNanos() {
+        return latencyNanos.get();
+    }
+
+    public void send(List<byte[]> records) {
+        outstanding.incrementAndGet();
+        final long start = System.nanoTime();
+        final RelpBatchConnection connection = relpConnectionPool.get();
+        try {
+            connection.ensureSent(records);
+            succeeded(System.nanoTime() - start);
+        }
+        catch (RuntimeException runtimeException) {
+            failed();
+            throw runtimeException;
+        }
+        finally {
+            relpConnectionPool.offer(connection);
+            outstanding.decrementAndGet();
+        }
+    }
+
+    public void connectOnce() {
+        final RelpBatchConnection connection = relpConnectionPool.get();
+        try {
+            connection.connectOnce();
+        }
+        finally {
+            relpConnectionPool.offer(connection);
+        }
+    }
+
+    private void succeeded(long elapsedNanos) {
+        consecutiveFailures.set(0);
+        if (ejected) {
+            ejected = false;
+            System.err.println("Reinstated relp destination <[" + name + "]>");
+        }
+        latencyNanos.updateAndGet(previous -> previous == 0 ? elapsedNanos : previous + (elapsedNanos - previous) / 8);
+    }
+
+    private void failed() {
+        if (consecutiveFailures.incrementAndGet() >= ejectAfterFailures) {
+            ejectedAtNanos = System.nanoTime();
+            if (!ejected) {
+                ejected = true;
+                System.err
+                        .println(
+                                "Ejected relp destination <[" + name + "]> after <" + consecutiveFailures.get()
+                                        + "> consecutive failures"
+                        );
+            }
+        }
+    }
+
+    public void close() {
+        relpConnectionPool.close();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
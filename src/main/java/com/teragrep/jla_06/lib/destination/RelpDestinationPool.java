@@ -0,0 +1,65 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.destination;
+
+import com.teragrep.jla_06.lib.connection.RelpBatchConnection;
+import com.teragrep.rlp_01.pool.Pool;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// hands out the shared balanced connection, the destinations pool their own connections
+public final class RelpDestinationPool implements Pool<RelpBatchConnection> {
+
+    private final RelpBatchConnection relpBatchConnectionBalanced;
+    private final RelpBatchConnection stub;
+    private final AtomicBoolean closed;
+
+    public RelpDestinationPool(RelpBatchConnection relpBatchConnectionBalanced, RelpBatchConnection stub) {
+        this.relpBatchConnectionBalanced = relpBatchConnectionBalanced;
+        this.stub = stub;
+        this.closed = new AtomicBoolean();
+    }
+
+    @Override
+    public RelpBatchConnection get() {
+        if (closed.get()) {
+            return stub;
+        }
+        return relpBatchConnectionBalanced;
+    }
+
+    @Override
+    public void offer(RelpBatchConnection object) {
+        // the balanced connection is shared, nothing to return
+    }
+
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            try {
+                relpBatchConnectionBalanced.close();
+            }
+            catch (Exception exception) {
+                System.err
+                        .println(
+                                "Exception <" + exception.getMessage() + "> while closing <"
+                                        + relpBatchConnectionBalanced + ">"
+                        );
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.destination;
+
+public final class RelpDestinationSelectionFactory {
+
+    public RelpDestinationSelection create(String name) {
+        final RelpDestinationSelection relpDestinationSelection;
+        switch (name) {
+            case "roundRobin":
+                relpDestinationSelection = new RelpDestinationSelectionRoundRobin();
+                break;
+            case "leastOutstanding":
+                relpDestinationSelection = new RelpDestinationSelectionLeastOutstanding();
+                break;
+            case "lowestLatency":
+                relpDestinationSelection = new RelpDestinationSelectionLowestLatency();
+                break;
+            default:
+                throw new IllegalArgumentException(
+                        "Unknown destination selection <[" + name
+                                + "]>, expected one of roundRobin, leastOutstanding, lowestLatency"
+                );
+        }
+        return relpDestinationSelection;
+    }
+}
@@ -0,0 +1,34 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.destination;
+
+import java.util.List;
+
+public final class RelpDestinationSelectionLowestLatency implements RelpDestinationSelection {
+
+    @Override
+    public RelpDestination select(List<RelpDestination> candidates) {
+        // destinations without a measurement yet are tried first so that every one gets measured
+        RelpDestination selected = candidates.get(0);
+        for (int i = 1; i < candidates.size(); i++) {
+            if (candidates.get(i).latencyNanos() < selected.latencyNanos()) {
+                selected = candidates.get(i);
+            }
+        }
+        return selected;
+    }
+}
@@ -0,0 +1,51 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.journal;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.MappedByteBuffer;
+
+// Java 8, mapped buffers implement sun.nio.ch.DirectBuffer and are freed by their sun.misc.Cleaner
+public final class BufferUnmapperCleaner implements BufferUnmapper {
+
+    private final Method cleaner;
+    private final Method clean;
+
+    public BufferUnmapperCleaner() throws ReflectiveOperationException {
+        this.cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+        this.clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+    }
+
+    @Override
+    public void unmap(MappedByteBuffer buffer) {
+        try {
+            final Object bufferCleaner = cleaner.invoke(buffer);
+            if (bufferCleaner != null) {
+                clean.invoke(bufferCleaner);
+            }
+        }
+        catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Failed to unmap buffer", e);
+        }
+    }
+
+    @Override
+    public boolean isStub() {
+        return false;
+    }
+}
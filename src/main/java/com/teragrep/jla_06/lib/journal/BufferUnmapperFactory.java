@@ -0,0 +1,40 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.journal;
+
+public final class BufferUnmapperFactory {
+
+    // without an unmapper the mapping of a deleted segment lives until the buffer is garbage collected
+    public BufferUnmapper create() {
+        try {
+            return new BufferUnmapperUnsafe();
+        }
+        catch (ReflectiveOperationException | RuntimeException unsafeException) {
+            try {
+                return new BufferUnmapperCleaner();
+            }
+            catch (ReflectiveOperationException | RuntimeException cleanerException) {
+                System.err
+                        .println(
+                                "Journal segments are unmapped when garbage collected, no unmapper is available: <"
+                                        + cleanerException.getMessage() + ">"
+                        );
+                return new BufferUnmapperStub();
+            }
+        }
+    }
+}
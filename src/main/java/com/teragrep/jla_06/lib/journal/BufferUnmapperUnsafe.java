@@ -0,0 +1,53 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.journal;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+
+// Java 9 and later, sun.misc.Unsafe is exported by the jdk.unsupported module
+public final class BufferUnmapperUnsafe implements BufferUnmapper {
+
+    private final Object unsafe;
+    private final Method invokeCleaner;
+
+    public BufferUnmapperUnsafe() throws ReflectiveOperationException {
+        final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+        final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+        theUnsafe.setAccessible(true);
+        this.unsafe = theUnsafe.get(null);
+        this.invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+    }
+
+    @Override
+    public void unmap(MappedByteBuffer buffer) {
+        try {
+            invokeCleaner.invoke(unsafe, buffer);
+        }
+        catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Failed to unmap buffer", e);
+        }
+    }
+
+    @Override
+    public boolean isStub() {
+        return false;
+    }
+}
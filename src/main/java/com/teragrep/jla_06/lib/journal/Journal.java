@@ -0,0 +1,357 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.journal;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+public final class Journal {
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long maxBytes;
+    private final BufferUnmapper bufferUnmapper;
+    private final ReentrantLock lock;
+    private final Condition recordsAvailable;
+    // oldest segment first, records are appended to the last one
+    private final ArrayDeque<JournalSegment> segments;
+    private final AtomicLong pending;
+    private long bytes;
+    private long nextSequence;
+    private int readPosition;
+    private boolean closed;
+
+    public Journal(Path directory, int segmentSize, long maxBytes) {
+        this(directory, segmentSize, maxBytes, new BufferUnmapperFactory().create());
+    }
+
+    public Journal(Path directory, int segmentSize, long maxBytes, BufferUnmapper bufferUnmapper) {
+        if (segmentSize < 8) {
+            throw new IllegalArgumentException("segmentSize must be at least 8 bytes, was <" + segmentSize + ">");
+        }
+        if (maxBytes < segmentSize) {
+            throw new IllegalArgumentException(
+                    "maxBytes <" + maxBytes + "> must be at least segmentSize <" + segmentSize + ">"
+            );
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxBytes = maxBytes;
+        this.bufferUnmapper = bufferUnmapper;
+        this.lock = new ReentrantLock();
+        this.recordsAvailable = lock.newCondition();
+        this.segments = new ArrayDeque<>();
+        this.pending = new AtomicLong();
+        this.bytes = 0;
+        this.nextSequence = 0;
+        this.readPosition = 0;
+        this.closed = false;
+        recover();
+    }
+
+    private void recover() {
+        final List<Path> paths = new ArrayList<>();
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.journal")) {
+                for (Path path : stream) {
+                    paths.add(path);
+                }
+            }
+        }
+        catch (IOException e) {
+            throw new IllegalStateException("Failed to open journal directory <[" + directory + "]>", e);
+        }
+        // zero padded sequence numbers sort in write order
+        Collections.sort(paths);
+        for (Path path : paths) {
+            final String fileName = path.getFileName().toString();
+            final long sequence;
+            try {
+                sequence = Long.parseLong(fileName.substring(0, fileName.length() - ".journal".length()));
+            }
+            catch (NumberFormatException e) {
+                System.err.println("Ignoring unknown file <[" + path + "]> in journal directory");
+                continue;
+            }
+            final JournalSegment segment = new JournalSegment(path, segmentSize, bufferUnmapper);
+            segments.addLast(segment);
+            bytes = bytes + segment.capacity();
+            nextSequence = sequence + 1;
+            int position = 0;
+            int length;
+            while ((length = segment.length(position)) != 0) {
+                if (length > 0) {
+                    pending.incrementAndGet();
+                }
+                position = position + 4 + Math.abs(length);
+            }
+        }
+        skipAcknowledged();
+        release();
+        if (pending.get() > 0) {
+            System.err.println("Recovered <" + pending.get() + "> unsent records from journal <[" + directory + "]>");
+        }
+    }
+
+    // moves the read position over records that were acknowledged before a restart
+    private void skipAcknowledged() {
+        JournalSegment head = segments.peekFirst();
+        while (head != null) {
+            final int length = head.length(readPosition);
+            if (length > 0) {
+                return;
+            }
+            if (length == 0) {
+                if (head == segments.peekLast()) {
+                    return;
+                }
+                segments.removeFirst();
+                bytes = bytes - head.capacity();
+                head.delete();
+                readPosition = 0;
+                head = segments.peekFirst();
+            }
+            else {
+                readPosition = readPosition + 4 - length;
+            }
+        }
+    }
+
+    // deletes fully acknowledged segments, the last one only once it is full
+    private void release() {
+        JournalSegment head = segments.peekFirst();
+        while (head != null && head.length(readPosition) == 0 && readPosition == head.writePosition()) {
+            if (head == segments.peekLast() && head.fits(1)) {
+                return;
+            }
+            segments.removeFirst();
+            bytes = bytes - head.capacity();
+            head.delete();
+            readPosition = 0;
+            head = segments.peekFirst();
+        }
+    }
+
+    public boolean append(List<byte[]> records) {
+        lock.lock();
+        try {
+            if (closed || !fits(records)) {
+                return false;
+            }
+            for (byte[] record : records) {
+                JournalSegment tail = segments.peekLast();
+                if (tail == null || !tail.fits(record.length)) {
+                    tail = roll();
+                }
+                tail.append(record);
+            }
+            pending.addAndGet(records.size());
+            recordsAvailable.signalAll();
+            return true;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    // dry run of the appends so that a batch is journaled either completely or not at all
+    private boolean fits(List<byte[]> records) {
+        final JournalSegment tail = segments.peekLast();
+        long reservedBytes = bytes;
+        int free;
+        if (tail == null) {
+            free = -1;
+        }
+        else {
+            free = tail.capacity() - tail.writePosition();
+        }
+        for (byte[] record : records) {
+            final int required = record.length + 4;
+            if (record.length == 0 || required > segmentSize) {
+                return false;
+            }
+            if (required > free) {
+                reservedBytes = reservedBytes + segmentSize;
+                if (reservedBytes > maxBytes) {
+                    return false;
+                }
+                free = segmentSize;
+            }
+            free = free - required;
+        }
+        return true;
+    }
+
+    private JournalSegment roll() {
+        release();
+        final Path path = directory.resolve(String.format("%019d.journal", nextSequence));
+        nextSequence++;
+        final JournalSegment segment = new JournalSegment(path, segmentSize, bufferUnmapper);
+        if (segments.isEmpty()) {
+            readPosition = 0;
+        }
+        segments.addLast(segment);
+        bytes = bytes + segment.capacity();
+        return segment;
+    }
+
+    // oldest unacknowledged records, in the order they were journaled
+    public List<byte[]> peek(int maxRecords) {
+        lock.lock();
+        try {
+            final List<byte[]> records = new ArrayList<>();
+            int position = readPosition;
+            for (JournalSegment segment : segments) {
+                int length;
+                while (records.size() < maxRecords && (length = segment.length(position)) != 0) {
+                    if (length > 0) {
+                        records.add(segment.read(position));
+                    }
+                    position = position + 4 + Math.abs(length);
+                }
+                if (records.size() >= maxRecords) {
+                    break;
+                }
+                position = 0;
+            }
+            return records;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    // marks the oldest records as sent, called once the relp server has acknowledged them
+    public void acknowledge(int count) {
+        lock.lock();
+        try {
+            int remaining = count;
+            while (remaining > 0 && !segments.isEmpty()) {
+                final JournalSegment head = segments.peekFirst();
+                final int length = head.length(readPosition);
+                if (length == 0) {
+                    if (head == segments.peekLast()) {
+                        break;
+                    }
+                    segments.removeFirst();
+                    bytes = bytes - head.capacity();
+                    head.delete();
+                    readPosition = 0;
+                }
+                else {
+                    if (length > 0) {
+                        head.acknowledge(readPosition);
+                        pending.decrementAndGet();
+                        remaining--;
+                    }
+                    readPosition = readPosition + 4 + Math.abs(length);
+                }
+            }
+            release();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        return pending.get() == 0;
+    }
+
+    public long pending() {
+        return pending.get();
+    }
+
+    public void awaitRecords(long nanos) {
+        lock.lock();
+        try {
+            if (!closed && pending.get() == 0) {
+                recordsAvailable.awaitNanos(nanos);
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    public void wakeUp() {
+        lock.lock();
+        try {
+            recordsAvailable.signalAll();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    // group commit, one force covers every append since the previous sync
+    // forced under the lock, acknowledge deletes and unmaps segments
+    public void sync() {
+        lock.lock();
+        try {
+            for (JournalSegment segment : segments) {
+                if (segment.isDirty()) {
+                    segment.clean();
+                    segment.force();
+                }
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    public void close() {
+        sync();
+        lock.lock();
+        try {
+            if (!closed) {
+                closed = true;
+                for (JournalSegment segment : segments) {
+                    segment.close();
+                }
+                recordsAvailable.signalAll();
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    public long size() {
+        lock.lock();
+        try {
+            return bytes;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.journal;
+
+import com.teragrep.jla_06.lib.connection.RelpBatchConnection;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+public final class JournalReplayerImpl implements JournalReplayer {
+
+    private final Journal journal;
+    private final RelpBatchConnection relpBatchConnection;
+    private final int batchSize;
+    private final long syncIntervalNanos;
+    private final long retryIntervalNanos;
+    private final AtomicBoolean running;
+    private Thread replayer;
+
+    public JournalReplayerImpl(
+            Journal journal,
+            RelpBatchConnection relpBatchConnection,
+            int batchSize,
+            Duration syncInterval,
+            Duration retryInterval
+    ) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive, was <" + batchSize + ">");
+        }
+        if (syncInterval.isNegative() || syncInterval.isZero()) {
+            throw new IllegalArgumentException("syncInterval must be positive, was <" + syncInterval + ">");
+        }
+        this.journal = journal;
+        this.relpBatchConnection = relpBatchConnection;
+        this.batchSize = batchSize;
+        this.syncIntervalNanos = syncInterval.toNanos();
+        this.retryIntervalNanos = retryInterval.toNanos();
+        this.running = new AtomicBoolean();
+    }
+
+    @Override
+    public void start() {
+        if (running.compareAndSet(false, true)) {
+            replayer = new Thread(this::replay, "jla_06-journal-replayer");
+            replayer.setDaemon(true);
+            replayer.start();
+        }
+    }
+
+    private void replay() {
+        long lastSync = System.nanoTime();
+        while (running.get()) {
+            final List<byte[]> records = journal.peek(batchSize);
+            if (records.isEmpty()) {
+                journal.awaitRecords(syncIntervalNanos);
+            }
+            else {
+                try {
+                    relpBatchConnection.ensureSent(records);
+                    // segments are only released after the relp server has acknowledged the records
+                    journal.acknowledge(records.size());
+                }
+                catch (IllegalStateException e) {
+                    System.err
+                            .println(
+                                    "Failed to replay <" + records.size() + "> journaled records: <" + e.getMessage()
+                                            + ">, <" + journal.pending() + "> records remain journaled"
+                            );
+                    LockSupport.parkNanos(retryIntervalNanos);
+                }
+            }
+            final long now = System.nanoTime();
+            if (now - lastSync >= syncIntervalNanos) {
+                journal.sync();
+                lastSync = now;
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (running.compareAndSet(true, false)) {
+            journal.wakeUp();
+            LockSupport.unpark(replayer);
+            try {
+                replayer.join();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                System.err.println("Interrupted while stopping <[" + replayer.getName() + "]>");
+            }
+            journal.close();
+            try {
+                relpBatchConnection.close();
+            }
+            catch (IOException e) {
+                System.err.println("Failed to close journal replay connection: <" + e.getMessage() + ">");
+            }
+            if (!journal.isEmpty()) {
+                System.err.println("<" + journal.pending() + "> records remain journaled for the next start");
+            }
+        }
+    }
+
+    @Override
+    public boolean isStub() {
+        return false;
+    }
+}
@@ -0,0 +1,169 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.journal;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// records are stored as [int length][payload], length 0 ends the segment and a negative length marks an acknowledged record
+public final class JournalSegment {
+
+    private final Path path;
+    private final FileChannel fileChannel;
+    private final MappedByteBuffer buffer;
+    private final BufferUnmapper bufferUnmapper;
+    private final int capacity;
+    private int writePosition;
+    private boolean dirty;
+
+    public JournalSegment(Path path, int segmentSize) {
+        this(path, segmentSize, new BufferUnmapperFactory().create());
+    }
+
+    public JournalSegment(Path path, int segmentSize, BufferUnmapper bufferUnmapper) {
+        this.path = path;
+        this.bufferUnmapper = bufferUnmapper;
+        try {
+            this.fileChannel = FileChannel
+                    .open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            final long existingSize = fileChannel.size();
+            if (existingSize > Integer.MAX_VALUE) {
+                fileChannel.close();
+                throw new IllegalStateException(
+                        "Journal segment <[" + path + "]> is larger than <" + Integer.MAX_VALUE + "> bytes"
+                );
+            }
+            // segments written with another segment size keep their own size
+            this.capacity = existingSize > 0 ? (int) existingSize : segmentSize;
+            this.buffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        }
+        catch (IOException e) {
+            throw new IllegalStateException("Failed to open journal segment <[" + path + "]>", e);
+        }
+        this.writePosition = recoverWritePosition();
+        this.dirty = false;
+    }
+
+    private int recoverWritePosition() {
+        int position = 0;
+        int length;
+        while ((length = length(position)) != 0) {
+            final int size = Math.abs(length);
+            if (length == Integer.MIN_VALUE || size > capacity - position - 4) {
+                System.err
+                        .println(
+                                "Journal segment <[" + path + "]> is truncated at position <" + position
+                                        + ">, ignoring the rest"
+                        );
+                buffer.putInt(position, 0);
+                break;
+            }
+            position = position + 4 + size;
+        }
+        return position;
+    }
+
+    public boolean fits(int recordLength) {
+        return recordLength > 0 && recordLength <= capacity - writePosition - 4;
+    }
+
+    public void append(byte[] record) {
+        if (!fits(record.length)) {
+            throw new IllegalStateException(
+                    "Record of <" + record.length + "> bytes does not fit journal segment <[" + path + "]>"
+            );
+        }
+        buffer.position(writePosition + 4);
+        buffer.put(record);
+        // the length is written last so that a torn write reads as the end of the segment
+        buffer.putInt(writePosition, record.length);
+        writePosition = writePosition + 4 + record.length;
+        dirty = true;
+    }
+
+    // 0 when there are no more records at the position
+    public int length(int position) {
+        if (position > capacity - 4) {
+            return 0;
+        }
+        return buffer.getInt(position);
+    }
+
+    public byte[] read(int position) {
+        final byte[] record = new byte[length(position)];
+        buffer.position(position + 4);
+        buffer.get(record);
+        return record;
+    }
+
+    public void acknowledge(int position) {
+        buffer.putInt(position, -length(position));
+        dirty = true;
+    }
+
+    public int writePosition() {
+        return writePosition;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    public void clean() {
+        dirty = false;
+    }
+
+    public void force() {
+        buffer.force();
+    }
+
+    public void close() {
+        try {
+            fileChannel.close();
+        }
+        catch (IOException e) {
+            System.err.println("Failed to close journal segment <[" + path + "]>: <" + e.getMessage() + ">");
+        }
+    }
+
+    // the segment must not be accessed afterwards, its buffer is unmapped
+    public void delete() {
+        close();
+        if (!bufferUnmapper.isStub()) {
+            try {
+                bufferUnmapper.unmap(buffer);
+            }
+            catch (IllegalStateException e) {
+                System.err.println("Failed to unmap journal segment <[" + path + "]>: <" + e.getMessage() + ">");
+            }
+        }
+        try {
+            Files.deleteIfExists(path);
+        }
+        catch (IOException e) {
+            System.err.println("Failed to delete journal segment <[" + path + "]>: <" + e.getMessage() + ">");
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.journal;
+
+import com.teragrep.jla_06.lib.connection.RelpBatchConnection;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+public final class RelpBatchConnectionJournaled implements RelpBatchConnection {
+
+    private final RelpBatchConnection relpBatchConnection;
+    private final Journal journal;
+    private final BooleanSupplier backlogged;
+    private final long retryIntervalMillis;
+    private final BooleanSupplier abandoned;
+
+    public RelpBatchConnectionJournaled(
+            RelpBatchConnection relpBatchConnection,
+            Journal journal,
+            BooleanSupplier backlogged,
+            long retryIntervalMillis
+    ) {
+        this(relpBatchConnection, journal, backlogged, retryIntervalMillis, () -> false);
+    }
+
+    public RelpBatchConnectionJournaled(
+            RelpBatchConnection relpBatchConnection,
+            Journal journal,
+            BooleanSupplier backlogged,
+            long retryIntervalMillis,
+            BooleanSupplier abandoned
+    ) {
+        this.relpBatchConnection = relpBatchConnection;
+        this.journal = journal;
+        this.backlogged = backlogged;
+        this.retryIntervalMillis = retryIntervalMillis;
+        this.abandoned = abandoned;
+    }
+
+    @Override
+    public void ensureSent(byte[] bytes) {
+        ensureSent(Collections.singletonList(bytes));
+    }
+
+    @Override
+    public void ensureSent(List<byte[]> records) {
+        // while anything is journaled new records queue behind it to keep the order
+        if (!journal.isEmpty() || backlogged.getAsBoolean()) {
+            if (journal.append(records)) {
+                return;
+            }
+        }
+        else {
+            try {
+                relpBatchConnection.ensureSent(records);
+                return;
+            }
+            catch (IllegalStateException e) {
+                if (journal.append(records)) {
+                    System.err
+                            .println(
+                                    "Journaled <" + records.size() + "> records due to exception <" + e.getMessage()
+                                            + "> while sending"
+                            );
+                    return;
+                }
+            }
+        }
+        // journal is full, fall back to retrying on the caller thread
+        while (true) {
+            try {
+                relpBatchConnection.ensureSent(records);
+                return;
+            }
+            catch (IllegalStateException e) {
+                if (abandoned.getAsBoolean()) {
+                    throw e;
+                }
+                System.err
+                        .println("Journal can not hold <" + records.size() + "> records, retrying on the caller thread");
+                try {
+                    Thread.sleep(retryIntervalMillis);
+                }
+                catch (InterruptedException exception) {
+                    System.err.println("Retry timer interrupted, retrying now");
+                }
+            }
+        }
+    }
+
+    @Override
+    public void connect() throws IOException {
+        relpBatchConnection.connect();
+    }
+
+    @Override
+    public void reconnect() {
+        relpBatchConnection.reconnect();
+    }
+
+    @Override
+    public void connectOnce() {
+        relpBatchConnection.connectOnce();
+    }
+
+    @Override
+    public void forceReconnect() {
+        relpBatchConnection.forceReconnect();
+    }
+
+    @Override
+    public boolean isStub() {
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        relpBatchConnection.close();
+    }
+}
@@ -0,0 +1,195 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.metrics;
+
+import java.util.function.LongSupplier;
+
+public final class RelpAppenderMetrics implements RelpAppenderMetricsMBean {
+
+    private final RelpMetrics relpMetrics;
+    private final LongSupplier asyncBacklog;
+    private final LongSupplier journalBacklog;
+    private long lastBytes;
+    private long lastNanos;
+
+    public RelpAppenderMetrics(RelpMetrics relpMetrics, LongSupplier asyncBacklog, LongSupplier journalBacklog) {
+        this.relpMetrics = relpMetrics;
+        this.asyncBacklog = asyncBacklog;
+        this.journalBacklog = journalBacklog;
+        this.lastBytes = relpMetrics.bytes();
+        this.lastNanos = System.nanoTime();
+    }
+
+    @Override
+    public long getRecordsSent() {
+        return relpMetrics.records();
+    }
+
+    @Override
+    public long getBatchesSent() {
+        return relpMetrics.batches();
+    }
+
+    @Override
+    public long getBytesSent() {
+        return relpMetrics.bytes();
+    }
+
+    @Override
+    public synchronized double getBytesPerSecond() {
+        final long bytes = relpMetrics.bytes();
+        final long nanos = System.nanoTime();
+        final long elapsed = nanos - lastNanos;
+        final double bytesPerSecond;
+        if (elapsed > 0) {
+            bytesPerSecond = (bytes - lastBytes) * 1_000_000_000.0 / elapsed;
+        }
+        else {
+            bytesPerSecond = 0;
+        }
+        lastBytes = bytes;
+        lastNanos = nanos;
+        return bytesPerSecond;
+    }
+
+    @Override
+    public long getSendFailures() {
+        return relpMetrics.sendFailures();
+    }
+
+    @Override
+    public long getRetries() {
+        return relpMetrics.retries();
+    }
+
+    @Override
+    public long getConnects() {
+        return relpMetrics.connects();
+    }
+
+    @Override
+    public long getConnectFailures() {
+        return relpMetrics.connectFailures();
+    }
+
+    @Override
+    public long getRebinds() {
+        return relpMetrics.rebinds();
+    }
+
+    @Override
+    public long getLiveConnections() {
+        return relpMetrics.liveConnections();
+    }
+
+    @Override
+    public long getAsyncBacklog() {
+        return asyncBacklog.getAsLong();
+    }
+
+    @Override
+    public long getJournalBacklog() {
+        return journalBacklog.getAsLong();
+    }
+
+    @Override
+    public long getRateLimitedEvents() {
+        return relpMetrics.rateLimitedEvents();
+    }
+
+    @Override
+    public long getShedEvents() {
+        return relpMetrics.shedEvents();
+    }
+
+    @Override
+    public long getAcceptedRecords() {
+        return relpMetrics.acceptedRecords();
+    }
+
+    @Override
+    public long getAbandonedRecords() {
+        return relpMetrics.abandonedRecords();
+    }
+
+    @Override
+    public long getConnectionWaitP50Nanos() {
+        return relpMetrics.connectionWait().snapshot().p50();
+    }
+
+    @Override
+    public long getConnectionWaitP99Nanos() {
+        return relpMetrics.connectionWait().snapshot().p99();
+    }
+
+    @Override
+    public long getConnectionWaitP999Nanos() {
+        return relpMetrics.connectionWait().snapshot().p999();
+    }
+
+    @Override
+    public long getConnectionWaitMaxNanos() {
+        return relpMetrics.connectionWait().snapshot().max();
+    }
+
+    @Override
+    public long getSendP50Nanos() {
+        return relpMetrics.send().snapshot().p50();
+    }
+
+    @Override
+    public long getSendP99Nanos() {
+        return relpMetrics.send().snapshot().p99();
+    }
+
+    @Override
+    public long getSendP999Nanos() {
+        return relpMetrics.send().snapshot().p999();
+    }
+
+    @Override
+    public long getSendMaxNanos() {
+        return relpMetrics.send().snapshot().max();
+    }
+
+    @Override
+    public long getEventAgeP50Nanos() {
+        return relpMetrics.eventAge().snapshot().p50();
+    }
+
+    @Override
+    public long getEventAgeP99Nanos() {
+        return relpMetrics.eventAge().snapshot().p99();
+    }
+
+    @Override
+    public long getEventAgeP999Nanos() {
+        return relpMetrics.eventAge().snapshot().p999();
+    }
+
+    @Override
+    public long getEventAgeMaxNanos() {
+        return relpMetrics.eventAge().snapshot().max();
+    }
+
+    @Override
+    public void resetLatencies() {
+        relpMetrics.connectionWait().snapshotAndReset();
+        relpMetrics.send().snapshotAndReset();
+        relpMetrics.eventAge().snapshotAndReset();
+    }
+}
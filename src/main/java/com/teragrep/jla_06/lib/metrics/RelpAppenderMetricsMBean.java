@@ -0,0 +1,80 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.metrics;
+
+public interface RelpAppenderMetricsMBean {
+
+    long getRecordsSent();
+
+    long getBatchesSent();
+
+    long getBytesSent();
+
+    // since the previous read of this attribute
+    double getBytesPerSecond();
+
+    long getSendFailures();
+
+    long getRetries();
+
+    long getConnects();
+
+    long getConnectFailures();
+
+    long getRebinds();
+
+    long getLiveConnections();
+
+    long getAsyncBacklog();
+
+    long getJournalBacklog();
+
+    long getRateLimitedEvents();
+
+    long getShedEvents();
+
+    long getAcceptedRecords();
+
+    long getAbandonedRecords();
+
+    long getConnectionWaitP50Nanos();
+
+    long getConnectionWaitP99Nanos();
+
+    long getConnectionWaitP999Nanos();
+
+    long getConnectionWaitMaxNanos();
+
+    long getSendP50Nanos();
+
+    long getSendP99Nanos();
+
+    long getSendP999Nanos();
+
+    long getSendMaxNanos();
+
+    long getEventAgeP50Nanos();
+
+    long getEventAgeP99Nanos();
+
+    long getEventAgeP999Nanos();
+
+    long getEventAgeMaxNanos();
+
+    // starts a new histogram interval
+    void resetLatencies();
+}
@@ -0,0 +1,183 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// counters are striped so that concurrent senders do not contend on a single cache line
+public final class RelpMetrics {
+
+    private final LongAdder accepted;
+    private final LongAdder records;
+    private final LongAdder batches;
+    private final LongAdder bytes;
+    private final LongAdder sendFailures;
+    private final LongAdder retries;
+    private final LongAdder connects;
+    private final LongAdder connectFailures;
+    private final LongAdder disconnects;
+    private final LongAdder rebinds;
+    private final LongAdder rateLimited;
+    private final LongAdder shed;
+    private final LongAdder abandoned;
+    private final LatencyHistogram connectionWait;
+    private final LatencyHistogram send;
+    private final LatencyHistogram eventAge;
+
+    public RelpMetrics() {
+        this.accepted = new LongAdder();
+        this.records = new LongAdder();
+        this.batches = new LongAdder();
+        this.bytes = new LongAdder();
+        this.sendFailures = new LongAdder();
+        this.retries = new LongAdder();
+        this.connects = new LongAdder();
+        this.connectFailures = new LongAdder();
+        this.disconnects = new LongAdder();
+        this.rebinds = new LongAdder();
+        this.rateLimited = new LongAdder();
+        this.shed = new LongAdder();
+        this.abandoned = new LongAdder();
+        this.connectionWait = new LatencyHistogram();
+        this.send = new LatencyHistogram();
+        this.eventAge = new LatencyHistogram();
+    }
+
+    // handed to the sending side, stop compares it to the records sent
+    public void recordAccepted() {
+        accepted.increment();
+    }
+
+    public void sent(int recordCount, long byteCount, long sendNanos) {
+        records.add(recordCount);
+        batches.increment();
+        bytes.add(byteCount);
+        send.record(sendNanos);
+    }
+
+    public void connectionWaited(long nanos) {
+        connectionWait.record(nanos);
+    }
+
+    public void eventAcknowledged(long ageNanos) {
+        eventAge.record(ageNanos);
+    }
+
+    public void sendFailed() {
+        sendFailures.increment();
+    }
+
+    public void retried() {
+        retries.increment();
+    }
+
+    public void connected() {
+        connects.increment();
+    }
+
+    public void connectFailed() {
+        connectFailures.increment();
+    }
+
+    public void disconnected() {
+        disconnects.increment();
+    }
+
+    public void rebound() {
+        rebinds.increment();
+    }
+
+    public void eventRateLimited() {
+        rateLimited.increment();
+    }
+
+    public long acceptedRecords() {
+        return accepted.sum();
+    }
+
+    public void eventShed() {
+        shed.increment();
+    }
+
+    // records left unsent when a stop deadline passed
+    public void recordsAbandoned(long recordCount) {
+        abandoned.add(recordCount);
+    }
+
+    public long abandonedRecords() {
+        return abandoned.sum();
+    }
+
+    public long records() {
+        return records.sum();
+    }
+
+    public long batches() {
+        return batches.sum();
+    }
+
+    public long bytes() {
+        return bytes.sum();
+    }
+
+    public long sendFailures() {
+        return sendFailures.sum();
+    }
+
+    public long retries() {
+        return retries.sum();
+    }
+
+    public long connects() {
+        return connects.sum();
+    }
+
+    public long connectFailures() {
+        return connectFailures.sum();
+    }
+
+    public long rebinds() {
+        return rebinds.sum();
+    }
+
+    public long rateLimitedEvents() {
+        return rateLimited.sum();
+    }
+
+    public long shedEvents() {
+        return shed.sum();
+    }
+
+    public long liveConnections() {
+        return connects.sum() - disconnects.sum();
+    }
+
+    // time spent leasing a connection from the pool
+    public LatencyHistogram connectionWait() {
+        return connectionWait;
+    }
+
+    // time inside ensureSent until the relp server acknowledged the batch
+    public LatencyHistogram send() {
+        return send;
+    }
+
+    // time from the log event to the acknowledgement of its record
+    public LatencyHistogram eventAge() {
+        return eventAge;
+    }
+}
@@ -0,0 +1,183 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.pool;
+
+import com.teragrep.rlp_01.pool.Pool;
+import com.teragrep.rlp_01.pool.Poolable;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+public final class BoundedPool<T extends Poolable> implements Pool<T> {
+
+    private final Supplier<T> supplier;
+    private final T stub;
+    private final int maxSize;
+    private final long leaseTimeoutNanos;
+    private final LeaseTimeoutPolicy leaseTimeoutPolicy;
+    private final Deque<T> idle;
+    // fair lock hands freed objects to waiters in arrival order
+    private final Lock lock;
+    private final Condition available;
+    private int size;
+    private boolean closed;
+
+    public BoundedPool(
+            Supplier<T> supplier,
+            T stub,
+            int minSize,
+            int maxSize,
+            Duration leaseTimeout,
+            LeaseTimeoutPolicy leaseTimeoutPolicy
+    ) {
+        if (maxSize < 1 || minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException(
+                    "Pool size must satisfy 0 <= minSize <= maxSize and maxSize >= 1, got minSize <" + minSize
+                            + "> maxSize <" + maxSize + ">"
+            );
+        }
+        this.supplier = supplier;
+        this.stub = stub;
+        this.maxSize = maxSize;
+        this.leaseTimeoutNanos = leaseTimeout.toNanos();
+        this.leaseTimeoutPolicy = leaseTimeoutPolicy;
+        this.idle = new ArrayDeque<>(maxSize);
+        this.lock = new ReentrantLock(true);
+        this.available = lock.newCondition();
+        for (int i = 0; i < minSize; i++) {
+            idle.addLast(supplier.get());
+        }
+        this.size = minSize;
+        this.closed = false;
+    }
+
+    @Override
+    public T get() {
+        lock.lock();
+        try {
+            long remainingNanos = leaseTimeoutNanos;
+            while (true) {
+                if (closed) {
+                    return stub;
+                }
+                final T pooled = idle.pollFirst();
+                if (pooled != null) {
+                    return pooled;
+                }
+                if (size < maxSize) {
+                    break;
+                }
+                if (remainingNanos <= 0) {
+                    if (leaseTimeoutPolicy.exceedMaximum()) {
+                        break;
+                    }
+                    remainingNanos = leaseTimeoutNanos;
+                }
+                remainingNanos = available.awaitNanos(remainingNanos);
+            }
+            size++;
+        }
+        catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a free connection", interruptedException);
+        }
+        finally {
+            lock.unlock();
+        }
+
+        // created outside the lock, the slot is already reserved
+        try {
+            return supplier.get();
+        }
+        catch (RuntimeException runtimeException) {
+            release();
+            throw runtimeException;
+        }
+    }
+
+    @Override
+    public void offer(T object) {
+        if (object.isStub()) {
+            return;
+        }
+        final boolean retire;
+        lock.lock();
+        try {
+            retire = closed || size > maxSize;
+            if (retire) {
+                size--;
+            }
+            else {
+                // most recently used first, keeps the warmest connections busy
+                idle.addFirst(object);
+            }
+            available.signal();
+        }
+        finally {
+            lock.unlock();
+        }
+        if (retire) {
+            closeQuietly(object);
+        }
+    }
+
+    @Override
+    public void close() {
+        final List<T> closing;
+        lock.lock();
+        try {
+            closed = true;
+            closing = new ArrayList<>(idle);
+            size -= idle.size();
+            idle.clear();
+            available.signalAll();
+        }
+        finally {
+            lock.unlock();
+        }
+        for (T pooled : closing) {
+            closeQuietly(pooled);
+        }
+    }
+
+    private void release() {
+        lock.lock();
+        try {
+            size--;
+            available.signal();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    private void closeQuietly(T pooled) {
+        try {
+            pooled.close();
+        }
+        catch (Exception exception) {
+            System.err.println("Exception <" + exception.getMessage() + "> while closing poolable <" + pooled + ">");
+        }
+    }
+}
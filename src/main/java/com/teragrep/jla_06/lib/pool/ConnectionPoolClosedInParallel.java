@@ -0,0 +1,49 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.pool;
+
+import com.teragrep.jla_06.lib.connection.ConnectionCloser;
+import com.teragrep.rlp_01.pool.Pool;
+import com.teragrep.rlp_01.pool.Poolable;
+
+// only the final close of the pool is handed to the closer threads, a connection closed after a failed send is
+// closed before it goes back to the pool
+public final class ConnectionPoolClosedInParallel<T extends Poolable> implements Pool<T> {
+
+    private final Pool<T> pool;
+    private final ConnectionCloser connectionCloser;
+
+    public ConnectionPoolClosedInParallel(Pool<T> pool, ConnectionCloser connectionCloser) {
+        this.pool = pool;
+        this.connectionCloser = connectionCloser;
+    }
+
+    @Override
+    public T get() {
+        return pool.get();
+    }
+
+    @Override
+    public void offer(T object) {
+        pool.offer(object);
+    }
+
+    @Override
+    public void close() {
+        connectionCloser.closeInParallel(pool::close);
+    }
+}
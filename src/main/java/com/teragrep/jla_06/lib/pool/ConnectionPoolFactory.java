@@ -0,0 +1,99 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.pool;
+
+import com.teragrep.rlp_01.pool.Pool;
+import com.teragrep.rlp_01.pool.Poolable;
+import com.teragrep.rlp_01.pool.UnboundPool;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+public final class ConnectionPoolFactory {
+
+    private final int maxConnections;
+    private final int minConnections;
+    private final Duration leaseTimeout;
+    private final String leaseTimeoutPolicy;
+    private final boolean stripedLeasing;
+    private final int leasingStripes;
+
+    public ConnectionPoolFactory(
+            int maxConnections,
+            int minConnections,
+            Duration leaseTimeout,
+            String leaseTimeoutPolicy,
+            boolean stripedLeasing,
+            int leasingStripes
+    ) {
+        if (maxConnections <= 0 && minConnections > 0) {
+            // the unbounded pool creates connections on demand only
+            throw new IllegalArgumentException(
+                    "minConnections <" + minConnections + "> requires maxConnections to be set, was <" + maxConnections
+                            + ">"
+            );
+        }
+        this.maxConnections = maxConnections;
+        this.minConnections = minConnections;
+        this.leaseTimeout = leaseTimeout;
+        this.leaseTimeoutPolicy = leaseTimeoutPolicy;
+        this.stripedLeasing = stripedLeasing;
+        this.leasingStripes = leasingStripes;
+    }
+
+    public <T extends Poolable> Pool<T> create(Supplier<T> supplier, T stub) {
+        int stripeCount = 1;
+        if (stripedLeasing) {
+            stripeCount = leasingStripes > 0 ? leasingStripes : Runtime.getRuntime().availableProcessors();
+        }
+        if (maxConnections > 0) {
+            // every stripe gets at least one connection and the stripes share maxConnections exactly
+            stripeCount = Math.min(stripeCount, maxConnections);
+        }
+        final List<Pool<T>> stripes = new ArrayList<>(stripeCount);
+        for (int stripe = 0; stripe < stripeCount; stripe++) {
+            if (maxConnections > 0) {
+                final int stripeMin = minConnections / stripeCount + (stripe < minConnections % stripeCount ? 1 : 0);
+                final int stripeMax = maxConnections / stripeCount + (stripe < maxConnections % stripeCount ? 1 : 0);
+                stripes
+                        .add(
+                                new BoundedPool<>(
+                                        supplier,
+                                        stub,
+                                        stripeMin,
+                                        stripeMax,
+                                        leaseTimeout,
+                                        new LeaseTimeoutPolicyFactory().create(leaseTimeoutPolicy)
+                                )
+                        );
+            }
+            else {
+                stripes.add(new UnboundPool<>(supplier, stub));
+            }
+        }
+        final Pool<T> pool;
+        if (stripedLeasing) {
+            pool = new StripedPool<>(stripes);
+        }
+        else {
+            pool = stripes.get(0);
+        }
+        return pool;
+    }
+}
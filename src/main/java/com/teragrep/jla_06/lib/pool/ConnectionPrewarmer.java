@@ -0,0 +1,104 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.pool;
+
+import com.teragrep.jla_06.lib.connection.RelpBatchConnection;
+import com.teragrep.rlp_01.pool.Pool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+// opens pooled connections in parallel on daemon threads so that the first events find them connected
+public final class ConnectionPrewarmer {
+
+    private final Pool<RelpBatchConnection> relpConnectionPool;
+    private final int connections;
+    private final long holdMillis;
+    private final String threadNamePrefix;
+    private final List<Thread> prewarmThreads;
+
+    public ConnectionPrewarmer(
+            Pool<RelpBatchConnection> relpConnectionPool,
+            int connections,
+            long holdMillis,
+            String threadNamePrefix
+    ) {
+        if (connections < 0) {
+            throw new IllegalArgumentException("connections must not be negative, was <" + connections + ">");
+        }
+        this.relpConnectionPool = relpConnectionPool;
+        this.connections = connections;
+        this.holdMillis = holdMillis;
+        this.threadNamePrefix = threadNamePrefix;
+        this.prewarmThreads = new ArrayList<>(connections);
+    }
+
+    // returns immediately, 0 connections disables prewarming
+    public void start() {
+        final CountDownLatch warmed = new CountDownLatch(connections);
+        for (int i = 0; i < connections; i++) {
+            final Thread prewarm = new Thread(() -> warm(warmed), threadNamePrefix + i);
+            prewarm.setDaemon(true);
+            prewarmThreads.add(prewarm);
+            prewarm.start();
+        }
+    }
+
+    // a prewarm thread still connecting ends after its single attempt at the latest
+    public void stop() {
+        for (Thread prewarm : prewarmThreads) {
+            prewarm.interrupt();
+        }
+        for (Thread prewarm : prewarmThreads) {
+            try {
+                prewarm.join(holdMillis);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                System.err.println("Interrupted while stopping <[" + prewarm.getName() + "]>");
+                break;
+            }
+        }
+        prewarmThreads.clear();
+    }
+
+    private void warm(CountDownLatch warmed) {
+        final RelpBatchConnection connection = relpConnectionPool.get();
+        try {
+            // a single attempt, an unreachable server must not keep the lease for longer than the connection timeout
+            connection.connectOnce();
+        }
+        catch (RuntimeException e) {
+            System.err.println("Failed to prewarm a relp connection: <" + e.getMessage() + ">");
+        }
+        finally {
+            warmed.countDown();
+        }
+        try {
+            // held until the others are leased too, otherwise the pool would hand the same connection out again
+            warmed.await(holdMillis, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            relpConnectionPool.offer(connection);
+        }
+    }
+}
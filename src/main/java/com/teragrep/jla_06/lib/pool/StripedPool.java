@@ -0,0 +1,85 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.pool;
+
+import com.teragrep.rlp_01.pool.Pool;
+import com.teragrep.rlp_01.pool.Poolable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// threads hash to a stripe and reuse the object last returned to it before falling back to the stripe's own pool
+public final class StripedPool<T extends Poolable> implements Pool<T> {
+
+    // slots of different stripes are kept on separate cache lines
+    private static final int SLOT_SPACING = 16;
+
+    private final List<Pool<T>> stripes;
+    private final AtomicReferenceArray<T> affineSlots;
+    private final AtomicBoolean closed;
+
+    public StripedPool(List<Pool<T>> stripes) {
+        if (stripes.isEmpty()) {
+            throw new IllegalArgumentException("StripedPool requires at least one stripe");
+        }
+        this.stripes = new ArrayList<>(stripes);
+        this.affineSlots = new AtomicReferenceArray<>(stripes.size() * SLOT_SPACING);
+        this.closed = new AtomicBoolean();
+    }
+
+    @Override
+    public T get() {
+        final int stripe = stripe();
+        final T affine = affineSlots.getAndSet(stripe * SLOT_SPACING, null);
+        if (affine != null) {
+            return affine;
+        }
+        return stripes.get(stripe).get();
+    }
+
+    @Override
+    public void offer(T object) {
+        final int stripe = stripe();
+        final int slot = stripe * SLOT_SPACING;
+        if (!object.isStub() && !closed.get() && affineSlots.compareAndSet(slot, null, object)) {
+            // close may have drained the slot before the object landed in it
+            if (!closed.get() || !affineSlots.compareAndSet(slot, object, null)) {
+                return;
+            }
+        }
+        stripes.get(stripe).offer(object);
+    }
+
+    @Override
+    public void close() {
+        closed.set(true);
+        for (int stripe = 0; stripe < stripes.size(); stripe++) {
+            final T affine = affineSlots.getAndSet(stripe * SLOT_SPACING, null);
+            if (affine != null) {
+                stripes.get(stripe).offer(affine);
+            }
+            stripes.get(stripe).close();
+        }
+    }
+
+    private int stripe() {
+        final long mixed = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+        return (int) Math.floorMod(mixed >>> 32, (long) stripes.size());
+    }
+}
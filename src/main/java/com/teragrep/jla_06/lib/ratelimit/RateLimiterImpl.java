@@ -0,0 +1,116 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.ratelimit;
+
+import com.teragrep.jla_06.lib.metrics.RelpMetrics;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class RateLimiterImpl implements RateLimiter {
+
+    private final TokenBucket appenderBucket;
+    private final long perLoggerRate;
+    private final int maxLoggers;
+    private final ConcurrentMap<String, TokenBucket> loggerBuckets;
+    // shared by the loggers that did not fit in loggerBuckets
+    private final TokenBucket overflowBucket;
+    private final RelpMetrics relpMetrics;
+    private final long summaryIntervalNanos;
+    private final AtomicLong nextSummary;
+    private final AtomicLong summarized;
+
+    public RateLimiterImpl(
+            long rate,
+            long burst,
+            long perLoggerRate,
+            int maxLoggers,
+            long summaryIntervalNanos,
+            RelpMetrics relpMetrics
+    ) {
+        if (maxLoggers < 1) {
+            throw new IllegalArgumentException("maxLoggers must be positive, was <" + maxLoggers + ">");
+        }
+        if (rate > 0) {
+            this.appenderBucket = new TokenBucket(rate, burst);
+        }
+        else {
+            this.appenderBucket = null;
+        }
+        this.perLoggerRate = perLoggerRate;
+        this.maxLoggers = maxLoggers;
+        this.loggerBuckets = new ConcurrentHashMap<>();
+        if (perLoggerRate > 0) {
+            this.overflowBucket = new TokenBucket(perLoggerRate, perLoggerRate);
+        }
+        else {
+            this.overflowBucket = null;
+        }
+        this.summaryIntervalNanos = summaryIntervalNanos;
+        this.relpMetrics = relpMetrics;
+        this.nextSummary = new AtomicLong(System.nanoTime() + summaryIntervalNanos);
+        this.summarized = new AtomicLong(relpMetrics.rateLimitedEvents());
+    }
+
+    @Override
+    public boolean tryAcquire(String loggerName, long nanoTime) {
+        // a logger's own bucket first, so that a runaway logger does not use up the appender's tokens
+        final TokenBucket loggerBucket = overflowBucket == null ? null : loggerBucket(loggerName);
+        boolean acquired = loggerBucket == null || loggerBucket.tryAcquire(nanoTime);
+        if (acquired && appenderBucket != null && !appenderBucket.tryAcquire(nanoTime)) {
+            // the event is not sent, so it does not count against its logger
+            if (loggerBucket != null) {
+                loggerBucket.refund();
+            }
+            acquired = false;
+        }
+        if (!acquired) {
+            relpMetrics.eventRateLimited();
+        }
+        return acquired;
+    }
+
+    private TokenBucket loggerBucket(String loggerName) {
+        final String name = loggerName == null ? "" : loggerName;
+        TokenBucket bucket = loggerBuckets.get(name);
+        if (bucket == null) {
+            if (loggerBuckets.size() < maxLoggers) {
+                bucket = loggerBuckets.computeIfAbsent(name, n -> new TokenBucket(perLoggerRate, perLoggerRate));
+            }
+            else {
+                bucket = overflowBucket;
+            }
+        }
+        return bucket;
+    }
+
+    @Override
+    public long summarize(long nanoTime) {
+        final long next = nextSummary.get();
+        if (nanoTime - next < 0 || !nextSummary.compareAndSet(next, nanoTime + summaryIntervalNanos)) {
+            return 0;
+        }
+        final long total = relpMetrics.rateLimitedEvents();
+        return total - summarized.getAndSet(total);
+    }
+
+    @Override
+    public boolean isStub() {
+        return false;
+    }
+}
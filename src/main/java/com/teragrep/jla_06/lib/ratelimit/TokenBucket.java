@@ -0,0 +1,60 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// token bucket kept as the time at which it is full again (GCRA), so that taking a token is a single CAS
+public final class TokenBucket {
+
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final AtomicLong fullAt;
+
+    public TokenBucket(long tokensPerSecond, long burst) {
+        if (tokensPerSecond < 1) {
+            throw new IllegalArgumentException("tokensPerSecond must be positive, was <" + tokensPerSecond + ">");
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("burst must be positive, was <" + burst + ">");
+        }
+        this.nanosPerToken = Math.max(1, 1_000_000_000L / tokensPerSecond);
+        this.burstNanos = nanosPerToken * burst;
+        // starts full
+        this.fullAt = new AtomicLong(System.nanoTime() - burstNanos);
+    }
+
+    public boolean tryAcquire(long nanoTime) {
+        while (true) {
+            final long current = fullAt.get();
+            // an empty bucket is only read, rejections do not write to the shared cache line
+            final long base = current - nanoTime < 0 ? nanoTime : current;
+            final long next = base + nanosPerToken;
+            if (next - nanoTime > burstNanos) {
+                return false;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    // returns a token taken by tryAcquire, a bucket that has refilled meanwhile stays capped at the burst
+    public void refund() {
+        fullAt.addAndGet(-nanosPerToken);
+    }
+}
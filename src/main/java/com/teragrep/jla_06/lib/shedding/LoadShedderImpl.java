@@ -0,0 +1,58 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.shedding;
+
+import org.apache.logging.log4j.Level;
+
+import java.util.function.LongSupplier;
+
+// TRACE and DEBUG are shed from the threshold on, INFO once the backlog is halfway from there to full, WARN and above never
+public final class LoadShedderImpl implements LoadShedder {
+
+    private final LongSupplier backlog;
+    private final long debugThreshold;
+    private final long infoThreshold;
+
+    public LoadShedderImpl(LongSupplier backlog, int threshold, int capacity) {
+        if (threshold < 1 || threshold >= capacity) {
+            throw new IllegalArgumentException(
+                    "Load shedding threshold must be between 1 and the capacity <" + capacity + ">, was <" + threshold
+                            + ">"
+            );
+        }
+        this.backlog = backlog;
+        this.debugThreshold = threshold;
+        this.infoThreshold = threshold + (capacity - threshold) / 2;
+    }
+
+    @Override
+    public boolean shed(Level level) {
+        if (level.isMoreSpecificThan(Level.WARN)) {
+            return false;
+        }
+        final long current = backlog.getAsLong();
+        if (level.isMoreSpecificThan(Level.INFO)) {
+            return current >= infoThreshold;
+        }
+        return current >= debugThreshold;
+    }
+
+    @Override
+    public boolean isStub() {
+        return false;
+    }
+}
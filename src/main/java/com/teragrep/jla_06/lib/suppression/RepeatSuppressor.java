@@ -0,0 +1,28 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.suppression;
+
+import com.teragrep.rlp_01.pool.Stubable;
+import org.apache.logging.log4j.core.LogEvent;
+
+public interface RepeatSuppressor extends Stubable {
+
+    // false when the event repeats the previous one of the thread within the window
+    boolean admit(LogEvent event, long nanoTime);
+
+    void flush();
+}
@@ -0,0 +1,89 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.suppression;
+
+import org.apache.logging.log4j.core.LogEvent;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// compares each event to the previous one of the same thread, a retry loop repeats on one thread
+public final class RepeatSuppressorImpl implements RepeatSuppressor {
+
+    private final long windowNanos;
+    private final Consumer<String> summaries;
+    private final ThreadLocal<SuppressionState> states;
+    private final Queue<SuppressionState> allStates;
+    private final AtomicLong nextSweep;
+
+    public RepeatSuppressorImpl(long windowNanos, Consumer<String> summaries) {
+        if (windowNanos < 1) {
+            throw new IllegalArgumentException("windowNanos must be positive, was <" + windowNanos + ">");
+        }
+        this.windowNanos = windowNanos;
+        this.summaries = summaries;
+        this.allStates = new ConcurrentLinkedQueue<>();
+        this.states = ThreadLocal.withInitial(() -> {
+            final SuppressionState state = new SuppressionState(windowNanos, Thread.currentThread());
+            allStates.add(state);
+            return state;
+        });
+        this.nextSweep = new AtomicLong(System.nanoTime() + windowNanos);
+    }
+
+    @Override
+    public boolean admit(LogEvent event, long nanoTime) {
+        sweep(nanoTime);
+        return states.get().admit(event, nanoTime, summaries);
+    }
+
+    // once per window the appending thread summarizes windows of threads which stopped logging
+    // and forgets the states of finished threads
+    private void sweep(long nanoTime) {
+        final long next = nextSweep.get();
+        if (nanoTime - next >= 0 && nextSweep.compareAndSet(next, nanoTime + windowNanos)) {
+            final Iterator<SuppressionState> iterator = allStates.iterator();
+            while (iterator.hasNext()) {
+                final SuppressionState state = iterator.next();
+                state.expire(nanoTime, summaries);
+                if (state.isAbandoned()) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void flush() {
+        for (SuppressionState state : allStates) {
+            state.flush(summaries);
+        }
+    }
+
+    // states currently tracked, finished threads are pruned by the next sweep
+    public int states() {
+        return allStates.size();
+    }
+
+    @Override
+    public boolean isStub() {
+        return false;
+    }
+}
@@ -0,0 +1,37 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.suppression;
+
+import org.apache.logging.log4j.core.LogEvent;
+
+public final class RepeatSuppressorStub implements RepeatSuppressor {
+
+    @Override
+    public boolean admit(LogEvent event, long nanoTime) {
+        throw new IllegalStateException("RepeatSuppressorStub does not support this");
+    }
+
+    @Override
+    public void flush() {
+        throw new IllegalStateException("RepeatSuppressorStub does not support this");
+    }
+
+    @Override
+    public boolean isStub() {
+        return true;
+    }
+}
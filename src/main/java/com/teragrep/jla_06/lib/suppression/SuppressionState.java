@@ -0,0 +1,153 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.suppression;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.message.Message;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+// one thread's last forwarded event, only contended while RepeatSuppressorImpl sweeps expired windows
+public final class SuppressionState {
+
+    private final long windowNanos;
+    // weak so that the states of finished threads can be pruned without holding on to the threads
+    private final WeakReference<Thread> owner;
+    private final Lock lock;
+    private String loggerName;
+    private Level level;
+    private String format;
+    private Class<? extends Throwable> throwableType;
+    private long windowEnd;
+    private long repeats;
+
+    public SuppressionState(long windowNanos, Thread owner) {
+        this.windowNanos = windowNanos;
+        this.owner = new WeakReference<>(owner);
+        this.lock = new ReentrantLock();
+        this.loggerName = null;
+        this.level = null;
+        this.format = null;
+        this.throwableType = null;
+        this.windowEnd = 0;
+        this.repeats = 0;
+    }
+
+    // summaries are passed on after unlocking, they are sent over the network
+    public boolean admit(LogEvent event, long nanoTime, Consumer<String> summaries) {
+        final String eventFormat = format(event.getMessage());
+        final Throwable thrown = event.getThrown();
+        final Class<? extends Throwable> eventThrowableType = thrown == null ? null : thrown.getClass();
+        final String summary;
+        lock.lock();
+        try {
+            final boolean repeat = level == event.getLevel() && throwableType == eventThrowableType
+                    && equal(loggerName, event.getLoggerName()) && equal(format, eventFormat);
+            if (repeat && windowEnd - nanoTime > 0) {
+                repeats++;
+                return false;
+            }
+            summary = takeSummary();
+            loggerName = event.getLoggerName();
+            level = event.getLevel();
+            format = eventFormat;
+            throwableType = eventThrowableType;
+            windowEnd = nanoTime + windowNanos;
+        }
+        finally {
+            lock.unlock();
+        }
+        if (summary != null) {
+            summaries.accept(summary);
+        }
+        return true;
+    }
+
+    // a window which closed without a following event
+    public void expire(long nanoTime, Consumer<String> summaries) {
+        final String summary;
+        lock.lock();
+        try {
+            summary = windowEnd - nanoTime > 0 ? null : takeSummary();
+        }
+        finally {
+            lock.unlock();
+        }
+        if (summary != null) {
+            summaries.accept(summary);
+        }
+    }
+
+    public void flush(Consumer<String> summaries) {
+        final String summary;
+        lock.lock();
+        try {
+            summary = takeSummary();
+        }
+        finally {
+            lock.unlock();
+        }
+        if (summary != null) {
+            summaries.accept(summary);
+        }
+    }
+
+    // a finished owner can not log again, its last window is summarized by expire or flush first
+    public boolean isAbandoned() {
+        final Thread thread = owner.get();
+        if (thread != null && thread.isAlive()) {
+            return false;
+        }
+        lock.lock();
+        try {
+            return repeats == 0;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    // the format keeps the parameters out of the fingerprint, log4j deprecated it without a replacement
+    @SuppressWarnings("deprecation")
+    private String format(Message message) {
+        final String messageFormat = message.getFormat();
+        if (messageFormat == null) {
+            // messages without a format are compared by their text
+            return message.getFormattedMessage();
+        }
+        return messageFormat;
+    }
+
+    private String takeSummary() {
+        if (repeats == 0) {
+            return null;
+        }
+        final String summary = "Last message repeated <" + repeats + "> times: logger <" + loggerName + "> level <"
+                + level + "> message <" + format + ">"
+                + (throwableType == null ? "" : " throwable <" + throwableType.getName() + ">");
+        repeats = 0;
+        return summary;
+    }
+
+    private boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
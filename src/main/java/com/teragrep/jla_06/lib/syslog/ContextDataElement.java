@@ -0,0 +1,133 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.syslog;
+
+import com.teragrep.rlo_14.SDElement;
+import org.apache.logging.log4j.util.ReadOnlyStringMap;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// selected context data keys as the params of one SD element, names are validated and encoded once
+public final class ContextDataElement {
+
+    private final String sdID;
+    private final String[] keys;
+    private final byte[] elementStart;
+    private final byte[][] paramStarts;
+
+    public ContextDataElement(String sdID, List<String> keys) {
+        validateName("SD-ID", sdID);
+        this.sdID = sdID;
+        this.keys = keys.toArray(new String[0]);
+        this.elementStart = ("[" + sdID).getBytes(StandardCharsets.US_ASCII);
+        this.paramStarts = new byte[this.keys.length][];
+        for (int i = 0; i < this.keys.length; i++) {
+            validateName("SD-NAME", this.keys[i]);
+            paramStarts[i] = (" " + this.keys[i] + "=\"").getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    // RFC 5424 SD-NAME, 1 to 32 printable US-ASCII characters other than '=', ']' and '"'
+    private static void validateName(String kind, String name) {
+        if (name == null || name.isEmpty() || name.length() > 32) {
+            throw new IllegalArgumentException(kind + " <[" + name + "]> must be 1 to 32 characters long");
+        }
+        for (int i = 0; i < name.length(); i++) {
+            final char c = name.charAt(i);
+            if (c < 33 || c > 126 || c == '=' || c == ']' || c == '"') {
+                throw new IllegalArgumentException(
+                        kind + " <[" + name + "]> must not contain <[" + c
+                                + "]>, only printable US-ASCII other than '=', ']' and '\"'"
+                );
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return keys.length == 0;
+    }
+
+    // copied while the event is still valid, null for a key the event does not have
+    public String[] values(ReadOnlyStringMap contextData) {
+        final String[] values = new String[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            final Object value = contextData.getValue(keys[i]);
+            if (value != null) {
+                values[i] = String.valueOf(value);
+            }
+        }
+        return values;
+    }
+
+    public boolean hasValues(String[] values) {
+        for (String value : values) {
+            if (value != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // the element is left out when none of the keys are present
+    public void writeTo(SyslogBytes structuredData, String[] values) {
+        boolean started = false;
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] != null) {
+                started = writeParam(structuredData, started, i, values[i]);
+            }
+        }
+        if (started) {
+            structuredData.write((byte) ']');
+        }
+    }
+
+    // reads the context data in place, for records written before append returns
+    public void writeTo(SyslogBytes structuredData, ReadOnlyStringMap contextData) {
+        boolean started = false;
+        for (int i = 0; i < keys.length; i++) {
+            final Object value = contextData.getValue(keys[i]);
+            if (value != null) {
+                started = writeParam(structuredData, started, i, String.valueOf(value));
+            }
+        }
+        if (started) {
+            structuredData.write((byte) ']');
+        }
+    }
+
+    private boolean writeParam(SyslogBytes structuredData, boolean started, int index, String value) {
+        if (!started) {
+            structuredData.write(elementStart);
+        }
+        structuredData.write(paramStarts[index]);
+        // utf-8 encoding and escaping in the same pass over the value
+        structuredData.writeEscapedUtf8(value);
+        structuredData.write((byte) '"');
+        return true;
+    }
+
+    public SDElement asSDElement(String[] values) {
+        final SDElement sdElement = new SDElement(sdID);
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] != null) {
+                sdElement.addSDParam(keys[i], values[i]);
+            }
+        }
+        return sdElement;
+    }
+}
@@ -0,0 +1,197 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.syslog;
+
+import com.teragrep.rlo_14.Facility;
+import com.teragrep.rlo_14.Severity;
+
+import java.util.UUID;
+
+public final class SyslogBuffer {
+
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+    private static final byte[] EMPTY = new byte[0];
+
+    private final SyslogBytes header;
+    private final SyslogBytes structuredData;
+    private final SyslogBytes msg;
+    private final SyslogTimestamp syslogTimestamp;
+    private int priority;
+    private long timestamp;
+    private String hostname;
+    private String appName;
+    private boolean hasMsg;
+    private boolean hasEncodedHeader;
+    private byte[] encodedBeforeTimestamp;
+    private byte[] encodedAfterTimestamp;
+
+    public SyslogBuffer() {
+        this.header = new SyslogBytes(128);
+        this.structuredData = new SyslogBytes(256);
+        this.msg = new SyslogBytes(1024);
+        this.syslogTimestamp = new SyslogTimestamp();
+        clear();
+    }
+
+    public void clear() {
+        header.clear();
+        structuredData.clear();
+        msg.clear();
+        priority = -1;
+        timestamp = NO_TIMESTAMP;
+        hostname = "-";
+        appName = "-";
+        hasMsg = false;
+        hasEncodedHeader = false;
+        encodedBeforeTimestamp = EMPTY;
+        encodedAfterTimestamp = EMPTY;
+    }
+
+    public void encodedHeader(byte[] beforeTimestamp, long epochMillis, byte[] afterTimestamp) {
+        hasEncodedHeader = true;
+        encodedBeforeTimestamp = beforeTimestamp;
+        timestamp = epochMillis;
+        encodedAfterTimestamp = afterTimestamp;
+    }
+
+    public void priority(Facility facility, Severity severity) {
+        if (facility == null) {
+            throw new IllegalArgumentException("Facility must be set before constructing a message.");
+        }
+        if (severity == null) {
+            throw new IllegalArgumentException("Severity must be set before constructing a message");
+        }
+        priority = facility.numericalCode() * 8 + severity.numericalCode();
+    }
+
+    public void timestamp(long epochMillis) {
+        timestamp = epochMillis;
+    }
+
+    public void hostname(String hostname) {
+        this.hostname = hostname;
+    }
+
+    public void appName(String appName) {
+        this.appName = appName;
+    }
+
+    public void startSDElement(String sdID) {
+        structuredData.write((byte) '[');
+        structuredData.writeUtf8(sdID);
+    }
+
+    public void addSDParam(String name, String value) {
+        startSDParam(name);
+        structuredData.writeEscapedUtf8(value);
+        structuredData.write((byte) '"');
+    }
+
+    public void addSDParam(String name, long value) {
+        startSDParam(name);
+        structuredData.writeDecimal(value);
+        structuredData.write((byte) '"');
+    }
+
+    public void addSDParam(String name, UUID value) {
+        startSDParam(name);
+        structuredData.writeUuid(value);
+        structuredData.write((byte) '"');
+    }
+
+    private void startSDParam(String name) {
+        structuredData.write((byte) ' ');
+        structuredData.writeUtf8(name);
+        structuredData.write((byte) '=');
+        structuredData.write((byte) '"');
+    }
+
+    public void endSDElement() {
+        structuredData.write((byte) ']');
+    }
+
+    public SyslogBytes structuredData() {
+        return structuredData;
+    }
+
+    public void msg(String msg) {
+        this.msg.clear();
+        hasMsg = msg != null;
+        if (hasMsg) {
+            this.msg.writeUtf8(msg);
+        }
+    }
+
+    // msg bytes are written directly by the caller
+    public SyslogBytes msgBytes() {
+        this.msg.clear();
+        hasMsg = true;
+        return this.msg;
+    }
+
+    public byte[] toBytes() {
+        header.clear();
+        if (hasEncodedHeader) {
+            header.write(encodedBeforeTimestamp);
+            syslogTimestamp.writeTo(header, timestamp);
+            header.write(encodedAfterTimestamp);
+        }
+        else {
+            writeHeader();
+        }
+        if (structuredData.length() == 0) {
+            header.write((byte) '-');
+        }
+
+        final int msgLength = hasMsg ? msg.length() + 1 : 0;
+        final byte[] frame = new byte[header.length() + structuredData.length() + msgLength];
+        header.copyTo(frame, 0);
+        structuredData.copyTo(frame, header.length());
+        if (hasMsg) {
+            frame[header.length() + structuredData.length()] = ' ';
+            msg.copyTo(frame, header.length() + structuredData.length() + 1);
+        }
+        return frame;
+    }
+
+    private void writeHeader() {
+        if (priority < 0) {
+            throw new IllegalArgumentException("Facility must be set before constructing a message.");
+        }
+        header.write((byte) '<');
+        header.writeDecimal(priority);
+        header.write((byte) '>');
+        header.write((byte) '1');
+        header.write((byte) ' ');
+        if (timestamp == NO_TIMESTAMP) {
+            header.write((byte) '-');
+        }
+        else {
+            syslogTimestamp.writeTo(header, timestamp);
+        }
+        header.write((byte) ' ');
+        header.writeUtf8(String.valueOf(hostname));
+        header.write((byte) ' ');
+        header.writeUtf8(String.valueOf(appName));
+        // procId and msgId are not used
+        header.write((byte) ' ');
+        header.write((byte) '-');
+        header.write((byte) ' ');
+        header.write((byte) '-');
+        header.write((byte) ' ');
+    }
+}
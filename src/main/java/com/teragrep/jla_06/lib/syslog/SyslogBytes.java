@@ -0,0 +1,242 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.syslog;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.UUID;
+
+public final class SyslogBytes {
+
+    private static final byte[] DIGITS = {
+            '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'
+    };
+    private static final long MIN_FAST_EPOCH_MILLIS = -62_167_219_200_000L; // 0000-01-01T00:00:00Z
+    private static final long MAX_FAST_EPOCH_MILLIS = 253_402_300_800_000L; // 10000-01-01T00:00:00Z
+
+    private byte[] bytes;
+    private int length;
+
+    public SyslogBytes() {
+        this(256);
+    }
+
+    public SyslogBytes(int initialCapacity) {
+        this.bytes = new byte[Math.max(16, initialCapacity)];
+        this.length = 0;
+    }
+
+    public void clear() {
+        length = 0;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public void truncate(int length) {
+        if (length < 0 || length > this.length) {
+            throw new IllegalArgumentException("Cannot truncate <" + this.length + "> bytes to <" + length + ">");
+        }
+        this.length = length;
+    }
+
+    public void write(byte b) {
+        ensureCapacity(1);
+        bytes[length++] = b;
+    }
+
+    public void write(byte[] source) {
+        write(source, 0, source.length);
+    }
+
+    public void write(byte[] source, int offset, int count) {
+        ensureCapacity(count);
+        System.arraycopy(source, offset, bytes, length, count);
+        length += count;
+    }
+
+    public void write(SyslogBytes source) {
+        write(source.bytes, 0, source.length);
+    }
+
+    public void writeUtf8(String value) {
+        writeUtf8(value, false);
+    }
+
+    public void writeEscapedUtf8(String value) {
+        writeUtf8(value, true);
+    }
+
+    // matches String.getBytes(UTF_8), including '?' for unpaired surrogates
+    private void writeUtf8(String value, boolean escape) {
+        final int chars = value.length();
+        ensureCapacity(chars);
+        for (int i = 0; i < chars; i++) {
+            final char c = value.charAt(i);
+            if (c < 0x80) {
+                if (escape && (c == '"' || c == '\\' || c == ']')) {
+                    write((byte) '\\');
+                }
+                write((byte) c);
+            }
+            else if (c < 0x800) {
+                ensureCapacity(2);
+                bytes[length++] = (byte) (0xC0 | (c >> 6));
+                bytes[length++] = (byte) (0x80 | (c & 0x3F));
+            }
+            else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < chars && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    final int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    ensureCapacity(4);
+                    bytes[length++] = (byte) (0xF0 | (codePoint >> 18));
+                    bytes[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    bytes[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    bytes[length++] = (byte) (0x80 | (codePoint & 0x3F));
+                }
+                else {
+                    write((byte) '?');
+                }
+            }
+            else {
+                ensureCapacity(3);
+                bytes[length++] = (byte) (0xE0 | (c >> 12));
+                bytes[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[length++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    public void writeDecimal(long value) {
+        if (value == Long.MIN_VALUE) {
+            writeUtf8(Long.toString(value));
+            return;
+        }
+        if (value < 0) {
+            write((byte) '-');
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest = rest / 10) {
+            digits++;
+        }
+        ensureCapacity(digits);
+        for (int i = length + digits - 1; i >= length; i--) {
+            bytes[i] = DIGITS[(int) (value % 10)];
+            value = value / 10;
+        }
+        length += digits;
+    }
+
+    public void writeUuid(UUID uuid) {
+        writeUuid(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    // same layout as UUID.toString()
+    public void writeUuid(long mostSignificantBits, long leastSignificantBits) {
+        ensureCapacity(36);
+        writeHex(mostSignificantBits >>> 32, 8);
+        bytes[length++] = '-';
+        writeHex(mostSignificantBits >>> 16, 4);
+        bytes[length++] = '-';
+        writeHex(mostSignificantBits, 4);
+        bytes[length++] = '-';
+        writeHex(leastSignificantBits >>> 48, 4);
+        bytes[length++] = '-';
+        writeHex(leastSignificantBits, 12);
+    }
+
+    private void writeHex(long value, int digits) {
+        for (int i = length + digits - 1; i >= length; i--) {
+            bytes[i] = DIGITS[(int) (value & 0xF)];
+            value = value >>> 4;
+        }
+        length += digits;
+    }
+
+    // same text as Instant.ofEpochMilli(epochMillis).toString()
+    public void writeTimestamp(long epochMillis) {
+        if (epochMillis < MIN_FAST_EPOCH_MILLIS || epochMillis >= MAX_FAST_EPOCH_MILLIS) {
+            writeUtf8(Instant.ofEpochMilli(epochMillis).toString());
+            return;
+        }
+        writeTimestampSeconds(Math.floorDiv(epochMillis, 1000L));
+        writeTimestampFraction((int) Math.floorMod(epochMillis, 1000L));
+    }
+
+    // yyyy-MM-ddTHH:mm:ss for years 0000-9999
+    private void writeTimestampSeconds(long epochSecond) {
+        final long epochDay = Math.floorDiv(epochSecond, 86_400L);
+        final int secondOfDay = (int) Math.floorMod(epochSecond, 86_400L);
+
+        // civil date from days since 1970-01-01, see howardhinnant.github.io/date_algorithms.html
+        final long shifted = epochDay + 719_468;
+        final long era = Math.floorDiv(shifted, 146_097);
+        final long dayOfEra = shifted - era * 146_097;
+        final long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        final long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        final long monthPosition = (5 * dayOfYear + 2) / 153;
+        final int day = (int) (dayOfYear - (153 * monthPosition + 2) / 5 + 1);
+        final int month = (int) (monthPosition < 10 ? monthPosition + 3 : monthPosition - 9);
+        final int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+
+        ensureCapacity(19);
+        writeFixed(year, 4);
+        bytes[length++] = '-';
+        writeFixed(month, 2);
+        bytes[length++] = '-';
+        writeFixed(day, 2);
+        bytes[length++] = 'T';
+        writeFixed(secondOfDay / 3600, 2);
+        bytes[length++] = ':';
+        writeFixed((secondOfDay / 60) % 60, 2);
+        bytes[length++] = ':';
+        writeFixed(secondOfDay % 60, 2);
+    }
+
+    // .SSSZ, or only Z on a full second
+    public void writeTimestampFraction(int millisOfSecond) {
+        ensureCapacity(5);
+        if (millisOfSecond != 0) {
+            bytes[length++] = '.';
+            writeFixed(millisOfSecond, 3);
+        }
+        bytes[length++] = 'Z';
+    }
+
+    private void writeFixed(int value, int digits) {
+        for (int i = length + digits - 1; i >= length; i--) {
+            bytes[i] = DIGITS[value % 10];
+            value = value / 10;
+        }
+        length += digits;
+    }
+
+    public byte[] toBytes() {
+        return Arrays.copyOf(bytes, length);
+    }
+
+    public void copyTo(byte[] target, int offset) {
+        System.arraycopy(bytes, 0, target, offset, length);
+    }
+
+    private void ensureCapacity(int additional) {
+        if (length + additional > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length << 1, length + additional));
+        }
+    }
+}
@@ -21,4 +21,9 @@ import com.teragrep.rlo_14.SyslogMessage;
 public interface SyslogRecord {
 
     SyslogMessage asSyslogMessage();
+
+    void writeTo(SyslogBuffer buffer);
+
+    // same as the header timestamp, Long.MIN_VALUE when the header has no timestamp
+    long epochMillis();
 }
@@ -51,6 +51,19 @@ public final class SyslogRecordConfigured implements SyslogRecord {
         return syslogMessage;
     }
 
+    @Override
+    public void writeTo(SyslogBuffer buffer) {
+        buffer.priority(facility, severity);
+        buffer.hostname(hostname);
+        buffer.appName(appName);
+    }
+
+    @Override
+    public long epochMillis() {
+        // the header timestamp is left out
+        return Long.MIN_VALUE;
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(hostname, appName, severity, facility);
@@ -0,0 +1,72 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.syslog;
+
+import com.teragrep.rlo_14.Severity;
+import com.teragrep.rlo_14.SyslogMessage;
+
+import java.util.Objects;
+
+public final class SyslogRecordTemplated implements SyslogRecord {
+
+    private final SyslogTemplate syslogTemplate;
+    private final long epochMillis;
+    private final Severity severity;
+
+    public SyslogRecordTemplated(SyslogTemplate syslogTemplate, long epochMillis) {
+        this(syslogTemplate, epochMillis, Severity.WARNING);
+    }
+
+    public SyslogRecordTemplated(SyslogTemplate syslogTemplate, long epochMillis, Severity severity) {
+        this.syslogTemplate = syslogTemplate;
+        this.epochMillis = epochMillis;
+        this.severity = severity;
+    }
+
+    @Override
+    public SyslogMessage asSyslogMessage() {
+        return syslogTemplate.asSyslogMessage(epochMillis, severity);
+    }
+
+    @Override
+    public void writeTo(SyslogBuffer buffer) {
+        syslogTemplate.writeTo(buffer, epochMillis, severity);
+    }
+
+    @Override
+    public long epochMillis() {
+        return epochMillis;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(syslogTemplate, epochMillis, severity);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        SyslogRecordTemplated other = (SyslogRecordTemplated) o;
+        return Objects.equals(this.syslogTemplate, other.syslogTemplate) && this.epochMillis == other.epochMillis
+                && this.severity == other.severity;
+    }
+}
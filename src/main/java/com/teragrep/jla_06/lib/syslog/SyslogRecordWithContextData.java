@@ -0,0 +1,77 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.syslog;
+
+import com.teragrep.rlo_14.SyslogMessage;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+public final class SyslogRecordWithContextData implements SyslogRecord {
+
+    private final SyslogRecord syslogRecord;
+    private final ContextDataElement contextDataElement;
+    private final String[] values;
+
+    public SyslogRecordWithContextData(
+            SyslogRecord syslogRecord,
+            ContextDataElement contextDataElement,
+            String[] values
+    ) {
+        this.syslogRecord = syslogRecord;
+        this.contextDataElement = contextDataElement;
+        this.values = values;
+    }
+
+    @Override
+    public SyslogMessage asSyslogMessage() {
+        final SyslogMessage syslogMessage = syslogRecord.asSyslogMessage();
+        if (!contextDataElement.hasValues(values)) {
+            return syslogMessage;
+        }
+        return syslogMessage.withSDElement(contextDataElement.asSDElement(values));
+    }
+
+    @Override
+    public void writeTo(SyslogBuffer buffer) {
+        syslogRecord.writeTo(buffer);
+        contextDataElement.writeTo(buffer.structuredData(), values);
+    }
+
+    @Override
+    public long epochMillis() {
+        return syslogRecord.epochMillis();
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Objects.hash(syslogRecord, contextDataElement) + Arrays.hashCode(values);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        SyslogRecordWithContextData other = (SyslogRecordWithContextData) o;
+        return Objects.equals(this.syslogRecord, other.syslogRecord) && Objects
+                .equals(this.contextDataElement, other.contextDataElement) && Arrays.equals(this.values, other.values);
+    }
+}
@@ -16,20 +16,39 @@
  */
 package com.teragrep.jla_06.lib.syslog;
 
+import com.teragrep.jla_06.lib.syslog.eventid.EventIDGenerator;
+import com.teragrep.jla_06.lib.syslog.eventid.EventIDGeneratorSecure;
 import com.teragrep.rlo_14.SDElement;
 import com.teragrep.rlo_14.SyslogMessage;
 
+import java.time.Clock;
 import java.util.Objects;
-import java.util.UUID;
 
 public final class SyslogRecordWithEventID implements SyslogRecord {
 
     private final SyslogRecord syslogRecord;
     private final String hostname;
+    private final EventIDGenerator eventIDGenerator;
+    private final Clock clock;
 
     public SyslogRecordWithEventID(SyslogRecord syslogRecord, String hostname) {
+        this(syslogRecord, hostname, new EventIDGeneratorSecure());
+    }
+
+    public SyslogRecordWithEventID(SyslogRecord syslogRecord, String hostname, EventIDGenerator eventIDGenerator) {
+        this(syslogRecord, hostname, eventIDGenerator, Clock.systemUTC());
+    }
+
+    public SyslogRecordWithEventID(
+            SyslogRecord syslogRecord,
+            String hostname,
+            EventIDGenerator eventIDGenerator,
+            Clock clock
+    ) {
         this.syslogRecord = syslogRecord;
         this.hostname = hostname;
+        this.eventIDGenerator = eventIDGenerator;
+        this.clock = clock;
     }
 
     @Override
@@ -38,20 +57,37 @@ public final class SyslogRecordWithEventID implements SyslogRecord {
 
         eventIdSDE.addSDParam("hostname", hostname);
 
-        String uuid = UUID.randomUUID().toString();
+        long unixtime = clock.millis();
+        String uuid = eventIDGenerator.next(unixtime).toString();
         eventIdSDE.addSDParam("uuid", uuid);
         eventIdSDE.addSDParam("source", "source");
 
-        long unixtime = System.currentTimeMillis();
         String epochtime = Long.toString(unixtime);
         eventIdSDE.addSDParam("unixtime", epochtime);
 
         return syslogRecord.asSyslogMessage().withSDElement(eventIdSDE);
     }
 
+    @Override
+    public void writeTo(SyslogBuffer buffer) {
+        syslogRecord.writeTo(buffer);
+        buffer.startSDElement("event_id@48577");
+        buffer.addSDParam("hostname", hostname);
+        final long unixtime = clock.millis();
+        buffer.addSDParam("uuid", eventIDGenerator.next(unixtime));
+        buffer.addSDParam("source", "source");
+        buffer.addSDParam("unixtime", unixtime);
+        buffer.endSDElement();
+    }
+
+    @Override
+    public long epochMillis() {
+        return syslogRecord.epochMillis();
+    }
+
     @Override
     public int hashCode() {
-        return Objects.hash(syslogRecord, hostname);
+        return Objects.hash(syslogRecord, hostname, eventIDGenerator, clock);
     }
 
     @Override
@@ -63,6 +99,8 @@ public final class SyslogRecordWithEventID implements SyslogRecord {
             return false;
         }
         SyslogRecordWithEventID other = (SyslogRecordWithEventID) o;
-        return Objects.equals(this.syslogRecord, other.syslogRecord) && Objects.equals(this.hostname, other.hostname);
+        return Objects.equals(this.syslogRecord, other.syslogRecord) && Objects
+                .equals(this.hostname, other.hostname) && Objects.equals(this.eventIDGenerator, other.eventIDGenerator)
+                && Objects.equals(this.clock, other.clock);
     }
 }
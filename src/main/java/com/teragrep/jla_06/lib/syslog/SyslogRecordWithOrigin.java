@@ -39,6 +39,19 @@ public final class SyslogRecordWithOrigin implements SyslogRecord {
         return syslogRecord.asSyslogMessage().withSDElement(origin);
     }
 
+    @Override
+    public void writeTo(SyslogBuffer buffer) {
+        syslogRecord.writeTo(buffer);
+        buffer.startSDElement("origin@48577");
+        buffer.addSDParam("hostname", hostname);
+        buffer.endSDElement();
+    }
+
+    @Override
+    public long epochMillis() {
+        return syslogRecord.epochMillis();
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(syslogRecord, hostname);
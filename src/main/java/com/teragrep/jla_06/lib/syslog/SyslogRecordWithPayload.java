@@ -37,6 +37,17 @@ public final class SyslogRecordWithPayload implements SyslogRecord {
         return syslogMessage;
     }
 
+    @Override
+    public void writeTo(SyslogBuffer buffer) {
+        syslogRecord.writeTo(buffer);
+        buffer.msg(payload);
+    }
+
+    @Override
+    public long epochMillis() {
+        return syslogRecord.epochMillis();
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(syslogRecord, payload);
@@ -40,6 +40,19 @@ public final class SyslogRecordWithSystemID implements SyslogRecord {
         return syslogRecord.asSyslogMessage().withSDElement(systemIDSD);
     }
 
+    @Override
+    public void writeTo(SyslogBuffer buffer) {
+        syslogRecord.writeTo(buffer);
+        buffer.startSDElement("businessSystem@48577");
+        buffer.addSDParam("systemId", systemID);
+        buffer.endSDElement();
+    }
+
+    @Override
+    public long epochMillis() {
+        return syslogRecord.epochMillis();
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(syslogRecord, systemID);
@@ -40,6 +40,17 @@ public final class SyslogRecordWithTimestamp implements SyslogRecord {
         return syslogRecord.asSyslogMessage().withTimestamp(timestamp.toEpochMilli());
     }
 
+    @Override
+    public void writeTo(SyslogBuffer buffer) {
+        syslogRecord.writeTo(buffer);
+        buffer.timestamp(timestamp.toEpochMilli());
+    }
+
+    @Override
+    public long epochMillis() {
+        return timestamp.toEpochMilli();
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(syslogRecord, timestamp);
@@ -0,0 +1,209 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.syslog;
+
+import com.teragrep.jla_06.lib.syslog.eventid.EventIDGenerator;
+import com.teragrep.jla_06.lib.syslog.eventid.EventIDGeneratorSecure;
+import com.teragrep.rlo_14.Facility;
+import com.teragrep.rlo_14.Severity;
+import com.teragrep.rlo_14.SyslogMessage;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Objects;
+
+public final class SyslogTemplate {
+
+    private final String hostname;
+    private final String appName;
+    private final String originalHostname;
+    private final boolean useSD;
+    private final boolean enableSystemID;
+    private final String systemID;
+    private final EventIDGenerator eventIDGenerator;
+    private final byte[][] headersBeforeTimestamp;
+    private final byte[] headerAfterTimestamp;
+    private final byte[] sdBeforeEventUuid;
+    private final byte[] sdBeforeEventUnixtime;
+    private final byte[] sdAfterEventUnixtime;
+
+    public SyslogTemplate(
+            String hostname,
+            String appName,
+            String originalHostname,
+            boolean useSD,
+            boolean enableSystemID,
+            String systemID
+    ) {
+        this(hostname, appName, originalHostname, useSD, enableSystemID, systemID, new EventIDGeneratorSecure());
+    }
+
+    public SyslogTemplate(
+            String hostname,
+            String appName,
+            String originalHostname,
+            boolean useSD,
+            boolean enableSystemID,
+            String systemID,
+            EventIDGenerator eventIDGenerator
+    ) {
+        this.hostname = hostname;
+        this.appName = appName;
+        this.originalHostname = originalHostname;
+        this.useSD = useSD;
+        this.enableSystemID = enableSystemID;
+        this.systemID = systemID;
+        this.eventIDGenerator = eventIDGenerator;
+
+        // the priority of every severity is encoded up front, indexed by the severity's numerical code
+        final SyslogBytes bytes = new SyslogBytes();
+        final Severity[] severities = Severity.values();
+        this.headersBeforeTimestamp = new byte[severities.length][];
+        for (Severity severity : severities) {
+            bytes.clear();
+            bytes.write((byte) '<');
+            bytes.writeDecimal(Facility.USER.numericalCode() * 8 + severity.numericalCode());
+            bytes.write((byte) '>');
+            bytes.write((byte) '1');
+            bytes.write((byte) ' ');
+            headersBeforeTimestamp[severity.numericalCode()] = bytes.toBytes();
+        }
+
+        bytes.clear();
+        bytes.write((byte) ' ');
+        bytes.writeUtf8(String.valueOf(hostname));
+        bytes.write((byte) ' ');
+        bytes.writeUtf8(String.valueOf(appName));
+        bytes.writeUtf8(" - - ");
+        this.headerAfterTimestamp = bytes.toBytes();
+
+        bytes.clear();
+        if (useSD) {
+            bytes.writeUtf8("[origin@48577 hostname=\"");
+            bytes.writeEscapedUtf8(originalHostname);
+            bytes.writeUtf8("\"][event_id@48577 hostname=\"");
+            bytes.writeEscapedUtf8(originalHostname);
+            bytes.writeUtf8("\" uuid=\"");
+        }
+        this.sdBeforeEventUuid = bytes.toBytes();
+
+        bytes.clear();
+        if (useSD) {
+            bytes.writeUtf8("\" source=\"source\" unixtime=\"");
+        }
+        this.sdBeforeEventUnixtime = bytes.toBytes();
+
+        bytes.clear();
+        if (useSD) {
+            bytes.writeUtf8("\"]");
+        }
+        if (enableSystemID) {
+            bytes.writeUtf8("[businessSystem@48577 systemId=\"");
+            bytes.writeEscapedUtf8(systemID);
+            bytes.writeUtf8("\"]");
+        }
+        this.sdAfterEventUnixtime = bytes.toBytes();
+    }
+
+    public String originalHostname() {
+        return originalHostname;
+    }
+
+    public SyslogTemplate withOriginalHostname(String originalHostname) {
+        return new SyslogTemplate(
+                hostname,
+                appName,
+                originalHostname,
+                useSD,
+                enableSystemID,
+                systemID,
+                eventIDGenerator
+        );
+    }
+
+    public void writeTo(SyslogBuffer buffer, long epochMillis) {
+        writeTo(buffer, epochMillis, Severity.WARNING);
+    }
+
+    public void writeTo(SyslogBuffer buffer, long epochMillis, Severity severity) {
+        buffer.encodedHeader(headersBeforeTimestamp[severity.numericalCode()], epochMillis, headerAfterTimestamp);
+        final SyslogBytes structuredData = buffer.structuredData();
+        if (useSD) {
+            structuredData.write(sdBeforeEventUuid);
+            eventIDGenerator.writeTo(structuredData, epochMillis);
+            structuredData.write(sdBeforeEventUnixtime);
+            structuredData.writeDecimal(epochMillis);
+        }
+        structuredData.write(sdAfterEventUnixtime);
+    }
+
+    public SyslogMessage asSyslogMessage(long epochMillis) {
+        return asSyslogMessage(epochMillis, Severity.WARNING);
+    }
+
+    public SyslogMessage asSyslogMessage(long epochMillis, Severity severity) {
+        SyslogRecord syslogRecord = new SyslogRecordConfigured(hostname, appName, severity, Facility.USER);
+        final Instant timestamp = Instant.ofEpochMilli(epochMillis);
+        syslogRecord = new SyslogRecordWithTimestamp(syslogRecord, timestamp);
+        if (useSD) {
+            syslogRecord = new SyslogRecordWithOrigin(syslogRecord, originalHostname);
+            syslogRecord = new SyslogRecordWithEventID(
+                    syslogRecord,
+                    originalHostname,
+                    eventIDGenerator,
+                    Clock.fixed(timestamp, ZoneOffset.UTC)
+            );
+        }
+        if (enableSystemID) {
+            syslogRecord = new SyslogRecordWithSystemID(syslogRecord, systemID);
+        }
+        return syslogRecord.asSyslogMessage();
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Objects
+                .hash(hostname, appName, originalHostname, useSD, enableSystemID, systemID, eventIDGenerator);
+        result = 31 * result + Arrays.deepHashCode(headersBeforeTimestamp);
+        result = 31 * result + Arrays.hashCode(headerAfterTimestamp);
+        result = 31 * result + Arrays.hashCode(sdBeforeEventUuid);
+        result = 31 * result + Arrays.hashCode(sdBeforeEventUnixtime);
+        result = 31 * result + Arrays.hashCode(sdAfterEventUnixtime);
+        return result;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        SyslogTemplate other = (SyslogTemplate) o;
+        final boolean sameConfiguration = Objects.equals(this.hostname, other.hostname) && Objects
+                .equals(this.appName, other.appName) && Objects.equals(this.originalHostname, other.originalHostname)
+                && this.useSD == other.useSD && this.enableSystemID == other.enableSystemID && Objects
+                        .equals(this.systemID, other.systemID)
+                && Objects.equals(this.eventIDGenerator, other.eventIDGenerator);
+        final boolean sameEncoding = Arrays.deepEquals(this.headersBeforeTimestamp, other.headersBeforeTimestamp)
+                && Arrays.equals(this.headerAfterTimestamp, other.headerAfterTimestamp) && Arrays.equals(this.sdBeforeEventUuid, other.sdBeforeEventUuid) && Arrays.equals(this.sdBeforeEventUnixtime, other.sdBeforeEventUnixtime) && Arrays.equals(this.sdAfterEventUnixtime, other.sdAfterEventUnixtime);
+        return sameConfiguration && sameEncoding;
+    }
+}
@@ -0,0 +1,43 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.syslog;
+
+// RFC 3339 timestamp formatter that formats the date and time once per second, not thread-safe
+public final class SyslogTimestamp {
+
+    private final SyslogBytes secondPrefix;
+    private long cachedEpochSecond;
+
+    public SyslogTimestamp() {
+        this.secondPrefix = new SyslogBytes(32);
+        this.cachedEpochSecond = Long.MIN_VALUE;
+    }
+
+    // same text as Instant.ofEpochMilli(epochMillis).toString()
+    public void writeTo(SyslogBytes target, long epochMillis) {
+        final long epochSecond = Math.floorDiv(epochMillis, 1000L);
+        if (epochSecond != cachedEpochSecond) {
+            secondPrefix.clear();
+            secondPrefix.writeTimestamp(epochSecond * 1000L);
+            // drop the trailing Z, the fraction writes it
+            secondPrefix.truncate(secondPrefix.length() - 1);
+            cachedEpochSecond = epochSecond;
+        }
+        target.write(secondPrefix);
+        target.writeTimestampFraction((int) Math.floorMod(epochMillis, 1000L));
+    }
+}
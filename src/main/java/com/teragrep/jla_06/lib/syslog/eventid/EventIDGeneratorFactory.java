@@ -0,0 +1,44 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.syslog.eventid;
+
+public final class EventIDGeneratorFactory {
+
+    public EventIDGenerator create(String name) {
+        final EventIDGenerator eventIDGenerator;
+        switch (name) {
+            case "secure":
+                eventIDGenerator = new EventIDGeneratorSecure();
+                break;
+            case "threadLocalRandom":
+                eventIDGenerator = new EventIDGeneratorThreadLocalRandom();
+                break;
+            case "timeOrdered":
+                eventIDGenerator = new EventIDGeneratorTimeOrdered();
+                break;
+            case "sequence":
+                eventIDGenerator = new EventIDGeneratorSequence();
+                break;
+            default:
+                throw new IllegalArgumentException(
+                        "Unknown event id generator <[" + name
+                                + "]>, expected one of secure, threadLocalRandom, timeOrdered, sequence"
+                );
+        }
+        return eventIDGenerator;
+    }
+}
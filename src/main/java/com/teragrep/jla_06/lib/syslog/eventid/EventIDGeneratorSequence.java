@@ -0,0 +1,53 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.syslog.eventid;
+
+import com.teragrep.jla_06.lib.syslog.SyslogBytes;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+// UUIDv8, random boot nonce followed by a monotonic sequence
+public final class EventIDGeneratorSequence implements EventIDGenerator {
+
+    private final long nonce;
+    private final AtomicLong sequence;
+
+    public EventIDGeneratorSequence() {
+        this(new SecureRandom().nextLong());
+    }
+
+    public EventIDGeneratorSequence(long nonce) {
+        this.nonce = (nonce & 0xFFFFFFFFFFFF0FFFL) | 0x0000000000008000L;
+        this.sequence = new AtomicLong();
+    }
+
+    @Override
+    public UUID next(long epochMillis) {
+        return new UUID(nonce, leastSignificantBits());
+    }
+
+    @Override
+    public void writeTo(SyslogBytes target, long epochMillis) {
+        target.writeUuid(nonce, leastSignificantBits());
+    }
+
+    private long leastSignificantBits() {
+        return (sequence.getAndIncrement() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.syslog.eventid;
+
+import com.teragrep.jla_06.lib.syslog.SyslogBytes;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+public final class EventIDGeneratorThreadLocalRandom implements EventIDGenerator {
+
+    @Override
+    public UUID next(long epochMillis) {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new UUID(mostSignificantBits(random), leastSignificantBits(random));
+    }
+
+    @Override
+    public void writeTo(SyslogBytes target, long epochMillis) {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        target.writeUuid(mostSignificantBits(random), leastSignificantBits(random));
+    }
+
+    // version 4
+    private long mostSignificantBits(ThreadLocalRandom random) {
+        return (random.nextLong() & 0xFFFFFFFFFFFF0FFFL) | 0x0000000000004000L;
+    }
+
+    // IETF variant
+    private long leastSignificantBits(ThreadLocalRandom random) {
+        return (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.syslog.hostname;
+
+import java.util.concurrent.TimeUnit;
+
+// the local hostname is the same for every appender, it is resolved once per JVM
+public final class HostnameCache {
+
+    private static final HostnameResolver RESOLVER = new HostnameResolver(new Hostname(""));
+
+    private final long refreshNanos;
+
+    public HostnameCache() {
+        this(0);
+    }
+
+    // 0 resolves only once
+    public HostnameCache(long refreshMillis) {
+        if (refreshMillis < 0) {
+            throw new IllegalArgumentException("refreshMillis must not be negative, was <" + refreshMillis + ">");
+        }
+        this.refreshNanos = refreshMillis == 0 ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(refreshMillis);
+    }
+
+    // the resolver refreshes at the shortest interval of the started caches
+    public void start() {
+        RESOLVER.register(this);
+    }
+
+    public void stop() {
+        RESOLVER.unregister(this);
+    }
+
+    public long refreshNanos() {
+        return refreshNanos;
+    }
+
+    public boolean await(long timeoutMillis) {
+        return RESOLVER.await(timeoutMillis);
+    }
+
+    public void await() {
+        RESOLVER.await();
+    }
+
+    // never blocks, returns the fallback until the first resolution completes
+    public String hostname(String fallback) {
+        return RESOLVER.hostname(fallback);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.syslog.hostname;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+// resolves on a daemon thread so that a broken resolver never blocks the caller longer than it chooses to wait
+public final class HostnameResolver {
+
+    private final Hostname hostname;
+    private final AtomicBoolean started;
+    private final CountDownLatch resolvedOnce;
+    private final Set<HostnameCache> caches;
+    private final Thread resolver;
+    private volatile String resolved;
+
+    public HostnameResolver(Hostname hostname) {
+        this.hostname = hostname;
+        this.started = new AtomicBoolean();
+        this.resolvedOnce = new CountDownLatch(1);
+        this.caches = ConcurrentHashMap.newKeySet();
+        this.resolver = new Thread(this::resolve, "jla_06-hostname-resolver");
+        this.resolver.setDaemon(true);
+        this.resolved = null;
+    }
+
+    public void start() {
+        if (started.compareAndSet(false, true)) {
+            resolver.start();
+        }
+    }
+
+    // a stopped cache no longer holds the interval of the others down
+    public void register(HostnameCache hostnameCache) {
+        final long previous = refreshNanos();
+        caches.add(hostnameCache);
+        if (hostnameCache.refreshNanos() < previous) {
+            LockSupport.unpark(resolver);
+        }
+    }
+
+    public void unregister(HostnameCache hostnameCache) {
+        caches.remove(hostnameCache);
+    }
+
+    // the shortest interval of the registered caches
+    public long refreshNanos() {
+        long nanos = Long.MAX_VALUE;
+        for (HostnameCache hostnameCache : caches) {
+            nanos = Math.min(nanos, hostnameCache.refreshNanos());
+        }
+        return nanos;
+    }
+
+    public boolean await(long timeoutMillis) {
+        start();
+        try {
+            return resolvedOnce.await(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public void await() {
+        start();
+        try {
+            resolvedOnce.await();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public String hostname(String fallback) {
+        start();
+        final String current = resolved;
+        return current == null ? fallback : current;
+    }
+
+    private void resolve() {
+        while (true) {
+            try {
+                final String name = hostname.hostname();
+                // a failed refresh keeps the previously resolved name
+                if (!name.isEmpty()) {
+                    resolved = name;
+                }
+            }
+            catch (RuntimeException e) {
+                System.err.println("Could not determine hostname: <" + e.getMessage() + ">");
+            }
+            finally {
+                // waiters are released by a failed attempt too, they fall back
+                resolvedOnce.countDown();
+            }
+            long waited = 0;
+            long interval = refreshNanos();
+            while (waited < interval) {
+                final long start = System.nanoTime();
+                LockSupport.parkNanos(this, interval - waited);
+                waited = waited + System.nanoTime() - start;
+                interval = refreshNanos();
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.syslog.severity;
+
+import com.teragrep.rlo_14.Severity;
+import org.apache.logging.log4j.Level;
+
+// every level gets the same severity, WARNING has been the severity of all records so far
+public final class SeverityMappingFixed implements SeverityMapping {
+
+    private final Severity severity;
+
+    public SeverityMappingFixed() {
+        this(Severity.WARNING);
+    }
+
+    public SeverityMappingFixed(Severity severity) {
+        this.severity = severity;
+    }
+
+    @Override
+    public Severity severity(Level level) {
+        return severity;
+    }
+}
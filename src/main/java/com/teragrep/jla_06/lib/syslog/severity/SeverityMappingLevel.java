@@ -0,0 +1,42 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.syslog.severity;
+
+import com.teragrep.rlo_14.Severity;
+import org.apache.logging.log4j.Level;
+
+// same mapping as log4j's own syslog appender, custom levels map by their nearest standard level
+public final class SeverityMappingLevel implements SeverityMapping {
+
+    @Override
+    public Severity severity(Level level) {
+        switch (level.getStandardLevel()) {
+            case OFF:
+                return Severity.EMERGENCY;
+            case FATAL:
+                return Severity.ALERT;
+            case ERROR:
+                return Severity.ERROR;
+            case WARN:
+                return Severity.WARNING;
+            case INFO:
+                return Severity.INFORMATIONAL;
+            default:
+                return Severity.DEBUG;
+        }
+    }
+}
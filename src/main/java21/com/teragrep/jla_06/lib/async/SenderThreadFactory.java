@@ -0,0 +1,48 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06.lib.async;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class SenderThreadFactory implements ThreadFactory {
+
+    private final String namePrefix;
+    private final boolean virtual;
+    private final AtomicInteger index;
+
+    public SenderThreadFactory(String namePrefix, boolean virtual) {
+        this.namePrefix = namePrefix;
+        this.virtual = virtual;
+        this.index = new AtomicInteger();
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+        final String name = namePrefix + index.getAndIncrement();
+        final Thread thread;
+        if (virtual) {
+            // virtual threads are always daemon threads
+            thread = Thread.ofVirtual().name(name).unstarted(runnable);
+        }
+        else {
+            thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+        }
+        return thread;
+    }
+}
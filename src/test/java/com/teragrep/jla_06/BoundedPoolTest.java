@@ -0,0 +1,180 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06;
+
+import com.teragrep.jla_06.lib.RelpLogAppenderImpl;
+import com.teragrep.jla_06.lib.connection.RelpBatchConnection;
+import com.teragrep.jla_06.lib.connection.RelpBatchConnectionStub;
+import com.teragrep.jla_06.lib.pool.BoundedPool;
+import com.teragrep.jla_06.lib.pool.ConnectionPoolFactory;
+import com.teragrep.jla_06.lib.pool.LeaseTimeoutPolicyFactory;
+import com.teragrep.jla_06.lib.pool.LeaseTimeoutPolicyFail;
+import com.teragrep.jla_06.lib.pool.LeaseTimeoutPolicyOverflow;
+import com.teragrep.jla_06.lib.pool.LeaseTimeoutPolicyWait;
+import com.teragrep.jla_06.lib.syslog.SyslogRecordConfigured;
+import com.teragrep.jla_06.lib.syslog.SyslogRecordWithPayload;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BoundedPoolTest {
+
+    @Test
+    @DisplayName(value = "Test bounded pool never exceeds maxSize under contention")
+    public void testBoundedUnderContention() throws InterruptedException {
+        final AtomicInteger open = new AtomicInteger();
+        final AtomicInteger leased = new AtomicInteger();
+        final AtomicInteger maxLeased = new AtomicInteger();
+        final BoundedPool<PoolableCounting> pool = new BoundedPool<>(
+                () -> new PoolableCounting(open),
+                new PoolableCounting(open, true),
+                1,
+                3,
+                Duration.ofMillis(10),
+                new LeaseTimeoutPolicyWait()
+        );
+        Assertions.assertEquals(1, open.get());
+
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 200; j++) {
+                    PoolableCounting poolable = pool.get();
+                    maxLeased.accumulateAndGet(leased.incrementAndGet(), Math::max);
+                    Thread.yield();
+                    leased.decrementAndGet();
+                    pool.offer(poolable);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assertions.assertTrue(maxLeased.get() <= 3, "leased " + maxLeased.get());
+        Assertions.assertTrue(open.get() <= 3, "open " + open.get());
+        pool.close();
+        Assertions.assertEquals(0, open.get());
+        Assertions.assertTrue(pool.get().isStub());
+    }
+
+    @Test
+    @DisplayName(value = "Test fail policy throws when the lease times out")
+    public void testFailPolicy() {
+        final AtomicInteger open = new AtomicInteger();
+        final BoundedPool<PoolableCounting> pool = new BoundedPool<>(
+                () -> new PoolableCounting(open),
+                new PoolableCounting(open, true),
+                0,
+                1,
+                Duration.ofMillis(20),
+                new LeaseTimeoutPolicyFail()
+        );
+        PoolableCounting leased = pool.get();
+        Assertions.assertThrows(IllegalStateException.class, pool::get);
+        pool.offer(leased);
+        Assertions.assertSame(leased, pool.get());
+    }
+
+    @Test
+    @DisplayName(value = "Test a failed send returns the connection to the pool for the next lease")
+    public void testFailedSendReturnsConnection() {
+        final ConcurrentLinkedQueue<byte[]> sent = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean failing = new AtomicBoolean(true);
+        final BoundedPool<RelpBatchConnection> pool = new BoundedPool<>(
+                () -> new RelpBatchConnectionCollecting(sent, failing, 0),
+                new RelpBatchConnectionStub(),
+                0,
+                1,
+                Duration.ofMillis(20),
+                new LeaseTimeoutPolicyFail()
+        );
+        final RelpLogAppenderImpl relpLogAppender = new RelpLogAppenderImpl(pool);
+        Assertions
+                .assertThrows(
+                        IllegalStateException.class, () -> relpLogAppender
+                                .append(new SyslogRecordWithPayload(new SyslogRecordConfigured("host", "app"), "failed"))
+                );
+        failing.set(false);
+        // with the slot lost the fail policy would throw here
+        relpLogAppender.append(new SyslogRecordWithPayload(new SyslogRecordConfigured("host", "app"), "sent"));
+        Assertions.assertEquals(1, sent.size());
+    }
+
+    @Test
+    @DisplayName(value = "Test overflow policy leases above maxSize and closes the extra on return")
+    public void testOverflowPolicy() {
+        final AtomicInteger open = new AtomicInteger();
+        final BoundedPool<PoolableCounting> pool = new BoundedPool<>(
+                () -> new PoolableCounting(open),
+                new PoolableCounting(open, true),
+                0,
+                1,
+                Duration.ofMillis(20),
+                new LeaseTimeoutPolicyOverflow()
+        );
+        PoolableCounting first = pool.get();
+        PoolableCounting overflow = pool.get();
+        Assertions.assertEquals(2, open.get());
+        pool.offer(overflow);
+        Assertions.assertEquals(1, open.get());
+        pool.offer(first);
+        Assertions.assertSame(first, pool.get());
+    }
+
+    @Test
+    @DisplayName(value = "Test waiting thread gets the returned object and invalid configuration is rejected")
+    public void testWaitAndConfiguration() throws InterruptedException {
+        final AtomicInteger open = new AtomicInteger();
+        final BoundedPool<PoolableCounting> pool = new BoundedPool<>(
+                () -> new PoolableCounting(open),
+                new PoolableCounting(open, true),
+                0,
+                1,
+                Duration.ofMillis(5),
+                new LeaseTimeoutPolicyWait()
+        );
+        final PoolableCounting leased = pool.get();
+        final List<PoolableCounting> received = new ArrayList<>();
+        Thread waiter = new Thread(() -> received.add(pool.get()));
+        waiter.start();
+        Thread.sleep(50);
+        Assertions.assertTrue(waiter.isAlive());
+        pool.offer(leased);
+        waiter.join(1000);
+        Assertions.assertSame(leased, received.get(0));
+
+        Assertions
+                .assertThrows(IllegalArgumentException.class, () -> new BoundedPool<>(() -> new PoolableCounting(open), new PoolableCounting(open, true), 2, 1, Duration.ZERO, new LeaseTimeoutPolicyWait()));
+        Assertions
+                .assertThrows(IllegalArgumentException.class, () -> new LeaseTimeoutPolicyFactory().create("unknown"));
+        Assertions
+                .assertThrows(
+                        IllegalArgumentException.class,
+                        () -> new ConnectionPoolFactory(0, 1, Duration.ZERO, "wait", false, 0)
+                );
+    }
+}
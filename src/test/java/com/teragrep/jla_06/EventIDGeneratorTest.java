@@ -0,0 +1,122 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06;
+
+import com.teragrep.jla_06.lib.syslog.SyslogBuffer;
+import com.teragrep.jla_06.lib.syslog.SyslogRecordTemplated;
+import com.teragrep.jla_06.lib.syslog.SyslogRecordWithPayload;
+import com.teragrep.jla_06.lib.syslog.SyslogTemplate;
+import com.teragrep.jla_06.lib.syslog.eventid.EventIDGenerator;
+import com.teragrep.jla_06.lib.syslog.eventid.EventIDGeneratorFactory;
+import com.teragrep.jla_06.lib.syslog.eventid.EventIDGeneratorSequence;
+import com.teragrep.jla_06.lib.syslog.eventid.EventIDGeneratorTimeOrdered;
+import com.teragrep.rlo_06.RFC5424Frame;
+import com.teragrep.rlo_06.SDVector;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class EventIDGeneratorTest {
+
+    private static final String[] NAMES = {
+            "secure", "threadLocalRandom", "timeOrdered", "sequence"
+    };
+
+    @Test
+    @DisplayName(value = "Test every generator produces unique RFC 4122 variant UUIDs from many threads")
+    public void testUniqueAcrossThreads() throws InterruptedException {
+        for (String name : NAMES) {
+            final EventIDGenerator eventIDGenerator = new EventIDGeneratorFactory().create(name);
+            final Set<UUID> uuids = ConcurrentHashMap.newKeySet();
+            final List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                Thread thread = new Thread(() -> {
+                    for (int j = 0; j < 1000; j++) {
+                        uuids.add(eventIDGenerator.next(System.currentTimeMillis()));
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            Assertions.assertEquals(8000, uuids.size(), name);
+            for (UUID uuid : uuids) {
+                Assertions.assertEquals(2, uuid.variant(), name);
+                Assertions.assertEquals(uuid, UUID.fromString(uuid.toString()), name);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName(value = "Test time ordered generator produces UUIDv7 with the record time")
+    public void testTimeOrdered() {
+        UUID uuid = new EventIDGeneratorTimeOrdered().next(1700000000123L);
+        Assertions.assertEquals(7, uuid.version());
+        Assertions.assertEquals(1700000000123L, uuid.getMostSignificantBits() >>> 16);
+    }
+
+    @Test
+    @DisplayName(value = "Test sequence generator keeps the nonce and increments the sequence")
+    public void testSequence() {
+        EventIDGenerator eventIDGenerator = new EventIDGeneratorSequence(0x0123456789ABCDEFL);
+        UUID first = eventIDGenerator.next(0L);
+        UUID second = eventIDGenerator.next(0L);
+        Assertions.assertEquals(8, first.version());
+        Assertions.assertEquals(first.getMostSignificantBits(), second.getMostSignificantBits());
+        Assertions.assertEquals(first.getLeastSignificantBits() + 1, second.getLeastSignificantBits());
+        Assertions.assertEquals("01234567-89ab-8def-8000-000000000000", first.toString());
+    }
+
+    @Test
+    @DisplayName(value = "Test configured generator is used for the event_id@48577 uuid")
+    public void testTemplateUsesGenerator() {
+        SyslogTemplate syslogTemplate = new SyslogTemplate(
+                "host",
+                "app",
+                "origin",
+                true,
+                false,
+                "",
+                new EventIDGeneratorSequence(0L)
+        );
+        SyslogBuffer syslogBuffer = new SyslogBuffer();
+        new SyslogRecordWithPayload(new SyslogRecordTemplated(syslogTemplate, 0L), "payload").writeTo(syslogBuffer);
+        RFC5424Frame rfc5424Frame = new RFC5424Frame();
+        rfc5424Frame.load(new ByteArrayInputStream(syslogBuffer.toBytes()));
+        Assertions.assertDoesNotThrow(() -> Assertions.assertTrue(rfc5424Frame.next()));
+        Assertions
+                .assertEquals(
+                        "00000000-0000-8000-8000-000000000000",
+                        rfc5424Frame.structuredData.getValue(new SDVector("event_id@48577", "uuid")).toString()
+                );
+    }
+
+    @Test
+    @DisplayName(value = "Test unknown generator name is rejected")
+    public void testUnknownGenerator() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new EventIDGeneratorFactory().create("unknown"));
+    }
+}
@@ -0,0 +1,118 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06;
+
+import com.teragrep.jla_06.lib.syslog.SyslogBuffer;
+import com.teragrep.jla_06.lib.syslog.eventid.EventIDGeneratorSequence;
+import com.teragrep.jla_06.lib.syslog.eventid.EventIDGeneratorThreadLocalRandom;
+import com.teragrep.jla_06.lib.syslog.eventid.EventIDGeneratorTimeOrdered;
+import com.teragrep.jla_06.lib.syslog.eventid.EventIDGenerator;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.core.layout.PatternLayout;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+public class GarbageFreeTest {
+
+    private static final int WARMUP = 50000;
+    private static final int ITERATIONS = 10000;
+    // incidental allocations of the measurement itself, far below one object per event
+    private static final long ALLOCATION_TOLERANCE = 1024;
+
+    @Test
+    @DisplayName(value = "Test steady-state encoding of a reused record allocates nothing per event")
+    public void testReusedRecordAllocatesNothing() {
+        final com.sun.management.ThreadMXBean threadMXBean = threadMXBean();
+        final PatternLayout layout = PatternLayout
+                .newBuilder()
+                .withPattern("%p %m%n")
+                .withCharset(StandardCharsets.UTF_8)
+                .build();
+        final LogEvent event = Log4jLogEvent
+                .newBuilder()
+                .setLevel(Level.INFO)
+                .setMessage(new SimpleMessage("garbage-free payload åäö"))
+                .build();
+        final EventIDGenerator[] eventIDGenerators = {
+                new EventIDGeneratorThreadLocalRandom(),
+                new EventIDGeneratorTimeOrdered(),
+                new EventIDGeneratorSequence()
+        };
+
+        for (EventIDGenerator eventIDGenerator : eventIDGenerators) {
+            final SyslogRecordFactory syslogRecordFactory = new SyslogRecordFactory(
+                    "host",
+                    "app",
+                    "origin",
+                    true,
+                    true,
+                    "system",
+                    eventIDGenerator
+            );
+            final SyslogBuffer syslogBuffer = new SyslogBuffer();
+
+            encode(syslogRecordFactory, layout, event, syslogBuffer, WARMUP);
+            final long threadId = Thread.currentThread().getId();
+            final long overheadBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+            final long overheadAfter = threadMXBean.getThreadAllocatedBytes(threadId);
+            final long before = threadMXBean.getThreadAllocatedBytes(threadId);
+            encode(syslogRecordFactory, layout, event, syslogBuffer, ITERATIONS);
+            final long after = threadMXBean.getThreadAllocatedBytes(threadId);
+
+            // a single allocation per event would add at least 16 bytes for each of the ITERATIONS
+            final long allocated = after - before - (overheadAfter - overheadBefore);
+            Assertions
+                    .assertTrue(
+                            allocated <= ALLOCATION_TOLERANCE,
+                            eventIDGenerator.getClass().getSimpleName() + " allocated <" + allocated + "> bytes"
+                    );
+
+            String frame = new String(syslogBuffer.toBytes(), StandardCharsets.UTF_8);
+            Assertions.assertTrue(frame.endsWith(" INFO garbage-free payload åäö" + System.lineSeparator()), frame);
+        }
+    }
+
+    private void encode(
+            SyslogRecordFactory syslogRecordFactory,
+            PatternLayout layout,
+            LogEvent event,
+            SyslogBuffer syslogBuffer,
+            int count
+    ) {
+        for (int i = 0; i < count; i++) {
+            syslogBuffer.clear();
+            syslogRecordFactory.reuse(layout, event, 1700000000000L + i).writeTo(syslogBuffer);
+        }
+    }
+
+    private com.sun.management.ThreadMXBean threadMXBean() {
+        Assumptions.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        Assumptions.assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        return threadMXBean;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06;
+
+import com.teragrep.jla_06.lib.syslog.hostname.Hostname;
+import com.teragrep.jla_06.lib.syslog.hostname.HostnameCache;
+import com.teragrep.jla_06.lib.syslog.hostname.HostnameResolver;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class HostnameResolverTest {
+
+    @Test
+    @DisplayName(value = "Test HostnameResolver refreshes at the shortest interval of the registered caches")
+    public void testRefreshInterval() {
+        HostnameResolver hostnameResolver = new HostnameResolver(new Hostname(""));
+        HostnameCache once = new HostnameCache(0);
+        HostnameCache fast = new HostnameCache(100);
+        HostnameCache slow = new HostnameCache(1000);
+        hostnameResolver.register(once);
+        Assertions.assertEquals(Long.MAX_VALUE, hostnameResolver.refreshNanos());
+        hostnameResolver.register(slow);
+        hostnameResolver.register(fast);
+        Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(100), hostnameResolver.refreshNanos());
+        hostnameResolver.unregister(fast);
+        Assertions.assertEquals(TimeUnit.SECONDS.toNanos(1), hostnameResolver.refreshNanos());
+        hostnameResolver.unregister(slow);
+        Assertions.assertEquals(Long.MAX_VALUE, hostnameResolver.refreshNanos());
+    }
+
+    @Test
+    @DisplayName(value = "Test HostnameResolver await without a timeout returns after the first resolution")
+    public void testAwait() {
+        HostnameResolver hostnameResolver = new HostnameResolver(new Hostname(""));
+        hostnameResolver.await();
+        Assertions.assertTrue(hostnameResolver.await(0));
+    }
+}
@@ -0,0 +1,181 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06;
+
+import com.teragrep.jla_06.lib.journal.BufferUnmapper;
+import com.teragrep.jla_06.lib.journal.BufferUnmapperFactory;
+import com.teragrep.jla_06.lib.journal.Journal;
+import com.teragrep.jla_06.lib.journal.JournalReplayerImpl;
+import com.teragrep.jla_06.lib.journal.JournalSegment;
+import com.teragrep.jla_06.lib.journal.RelpBatchConnectionJournaled;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+public class JournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName(value = "Test journal rolls segments, replays in order and deletes acknowledged segments")
+    public void testSegments() throws IOException {
+        // 10 byte records take 14 bytes each, 4 fit into a segment
+        Journal journal = new Journal(directory, 64, 1024);
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertTrue(journal.append(Collections.singletonList(record(i))));
+        }
+        Assertions.assertEquals(10, journal.pending());
+        Assertions.assertEquals(3, segmentFiles());
+
+        List<byte[]> peeked = journal.peek(6);
+        Assertions.assertEquals(6, peeked.size());
+        for (int i = 0; i < 6; i++) {
+            Assertions.assertArrayEquals(record(i), peeked.get(i));
+        }
+        // peek does not consume
+        Assertions.assertArrayEquals(record(0), journal.peek(1).get(0));
+
+        journal.acknowledge(6);
+        Assertions.assertEquals(4, journal.pending());
+        Assertions.assertEquals(2, segmentFiles());
+        Assertions.assertArrayEquals(record(6), journal.peek(1).get(0));
+
+        journal.acknowledge(4);
+        Assertions.assertTrue(journal.isEmpty());
+        Assertions.assertTrue(journal.peek(10).isEmpty());
+        journal.close();
+    }
+
+    @Test
+    @DisplayName(value = "Test journal rejects batches beyond the disk cap as a whole")
+    public void testDiskCap() {
+        Journal journal = new Journal(directory, 64, 128);
+        List<byte[]> batch = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            batch.add(record(i));
+        }
+        Assertions.assertTrue(journal.append(batch));
+        Assertions.assertFalse(journal.append(Collections.singletonList(record(8))));
+        Assertions.assertEquals(8, journal.pending());
+        Assertions.assertFalse(journal.append(Collections.singletonList(new byte[61])));
+
+        journal.acknowledge(4);
+        Assertions.assertTrue(journal.append(Collections.singletonList(record(8))));
+        journal.close();
+    }
+
+    @Test
+    @DisplayName(value = "Test journal recovers unacknowledged records after a restart")
+    public void testRecovery() {
+        Journal journal = new Journal(directory, 64, 1024);
+        for (int i = 0; i < 7; i++) {
+            journal.append(Collections.singletonList(record(i)));
+        }
+        journal.acknowledge(3);
+        journal.close();
+
+        Journal reopened = new Journal(directory, 64, 1024);
+        Assertions.assertEquals(4, reopened.pending());
+        List<byte[]> peeked = reopened.peek(10);
+        Assertions.assertEquals(4, peeked.size());
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertArrayEquals(record(i + 3), peeked.get(i));
+        }
+        Assertions.assertTrue(reopened.append(Collections.singletonList(record(7))));
+        Assertions.assertArrayEquals(record(7), reopened.peek(5).get(4));
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName(value = "Test records are journaled during an outage and replayed in order afterwards")
+    public void testOutageReplay() throws InterruptedException {
+        Journal journal = new Journal(directory, 1024, 8192);
+        Queue<byte[]> sent = new ConcurrentLinkedQueue<>();
+        AtomicBoolean failing = new AtomicBoolean(true);
+        RelpBatchConnectionJournaled connection = new RelpBatchConnectionJournaled(
+                new RelpBatchConnectionCollecting(sent, failing, 0),
+                journal,
+                () -> false,
+                10
+        );
+        JournalReplayerImpl replayer = new JournalReplayerImpl(
+                journal,
+                new RelpBatchConnectionCollecting(sent, failing, 0),
+                4,
+                Duration.ofMillis(50),
+                Duration.ofMillis(10)
+        );
+        replayer.start();
+
+        for (int i = 0; i < 10; i++) {
+            connection.ensureSent(Arrays.asList(record(i * 2), record(i * 2 + 1)));
+        }
+        Assertions.assertTrue(sent.isEmpty());
+        Assertions.assertEquals(20, journal.pending());
+
+        failing.set(false);
+        for (int i = 0; i < 100 && !journal.isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+        Assertions.assertTrue(journal.isEmpty());
+        connection.ensureSent(Collections.singletonList(record(20)));
+        replayer.stop();
+
+        List<byte[]> received = new ArrayList<>(sent);
+        Assertions.assertEquals(21, received.size());
+        for (int i = 0; i < 21; i++) {
+            Assertions.assertArrayEquals(record(i), received.get(i));
+        }
+    }
+
+    @Test
+    @DisplayName(value = "Test deleted journal segments are unmapped on the running Java version")
+    public void testDeleteUnmaps() throws IOException {
+        BufferUnmapper bufferUnmapper = new BufferUnmapperFactory().create();
+        Assertions.assertFalse(bufferUnmapper.isStub());
+        JournalSegment segment = new JournalSegment(directory.resolve("0.journal"), 64, bufferUnmapper);
+        segment.append(record(0));
+        segment.delete();
+        Assertions.assertEquals(0, segmentFiles());
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private byte[] record(int i) {
+        return String.format("record %03d", i).getBytes(StandardCharsets.US_ASCII);
+    }
+}
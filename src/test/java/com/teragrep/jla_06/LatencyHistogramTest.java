@@ -0,0 +1,98 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06;
+
+import com.teragrep.jla_06.lib.metrics.LatencyHistogram;
+import com.teragrep.jla_06.lib.metrics.LatencySnapshot;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+public class LatencyHistogramTest {
+
+    @Test
+    @DisplayName(value = "Test LatencyHistogram percentiles stay within the bucket resolution")
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1_000);
+        }
+        LatencySnapshot snapshot = histogram.snapshot();
+        Assertions.assertEquals(100_000, snapshot.count());
+        Assertions.assertEquals(100_000_000, snapshot.max());
+        assertWithin(50_000_000, snapshot.p50());
+        assertWithin(99_000_000, snapshot.p99());
+        assertWithin(99_900_000, snapshot.p999());
+        Assertions.assertEquals(snapshot.max(), snapshot.percentile(1.0));
+    }
+
+    @Test
+    @DisplayName(value = "Test LatencyHistogram keeps small and huge values")
+    public void testRange() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(0);
+        histogram.record(15);
+        histogram.record(Long.MAX_VALUE);
+        LatencySnapshot snapshot = histogram.snapshot();
+        Assertions.assertEquals(4, snapshot.count());
+        Assertions.assertEquals(0, snapshot.percentile(0.5));
+        Assertions.assertEquals(15, snapshot.percentile(0.75));
+        Assertions.assertEquals(Long.MAX_VALUE, snapshot.percentile(1.0));
+    }
+
+    @Test
+    @DisplayName(
+            value = "Test LatencyHistogram snapshotAndReset starts a new interval without losing concurrent records"
+    )
+    public void testConcurrentReset() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        final int threads = 4;
+        final int records = 100_000;
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < records; i++) {
+                    histogram.record(i);
+                }
+                done.countDown();
+            }).start();
+        }
+        List<LatencySnapshot> intervals = new ArrayList<>();
+        while (done.getCount() > 0) {
+            intervals.add(histogram.snapshotAndReset());
+        }
+        done.await();
+        intervals.add(histogram.snapshotAndReset());
+
+        long total = 0;
+        for (LatencySnapshot interval : intervals) {
+            total = total + interval.count();
+        }
+        Assertions.assertEquals((long) threads * records, total);
+        Assertions.assertEquals(0, histogram.snapshot().count());
+    }
+
+    private void assertWithin(long expected, long actual) {
+        Assertions
+                .assertTrue(Math.abs(actual - expected) <= expected / 16, "expected <" + expected + "> but was <" + actual + ">");
+    }
+}
@@ -0,0 +1,61 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06;
+
+import com.teragrep.jla_06.lib.shedding.LoadShedderImpl;
+import org.apache.logging.log4j.Level;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class LoadShedderTest {
+
+    @Test
+    @DisplayName(value = "Test LoadShedder sheds TRACE and DEBUG first, then INFO, and never WARN or above")
+    public void testShedByLevel() {
+        AtomicLong backlog = new AtomicLong();
+        LoadShedderImpl loadShedder = new LoadShedderImpl(backlog::get, 100, 1000);
+
+        backlog.set(99);
+        Assertions.assertFalse(loadShedder.shed(Level.TRACE));
+        Assertions.assertFalse(loadShedder.shed(Level.DEBUG));
+
+        backlog.set(100);
+        Assertions.assertTrue(loadShedder.shed(Level.TRACE));
+        Assertions.assertTrue(loadShedder.shed(Level.DEBUG));
+        Assertions.assertFalse(loadShedder.shed(Level.INFO));
+
+        // halfway from the threshold to the capacity
+        backlog.set(550);
+        Assertions.assertTrue(loadShedder.shed(Level.INFO));
+        Assertions.assertFalse(loadShedder.shed(Level.WARN));
+
+        backlog.set(1000);
+        Assertions.assertFalse(loadShedder.shed(Level.WARN));
+        Assertions.assertFalse(loadShedder.shed(Level.ERROR));
+        Assertions.assertFalse(loadShedder.shed(Level.FATAL));
+    }
+
+    @Test
+    @DisplayName(value = "Test LoadShedder rejects a threshold at or above the capacity")
+    public void testThresholdAboveCapacity() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new LoadShedderImpl(() -> 0, 1000, 1000));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new LoadShedderImpl(() -> 0, 0, 1000));
+    }
+}
@@ -0,0 +1,49 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06;
+
+import com.teragrep.rlp_01.pool.Poolable;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+final class PoolableCounting implements Poolable {
+
+    private final AtomicInteger open;
+    private final boolean stub;
+
+    PoolableCounting(AtomicInteger open) {
+        this(open, false);
+    }
+
+    PoolableCounting(AtomicInteger open, boolean stub) {
+        this.open = open;
+        this.stub = stub;
+        if (!stub) {
+            open.incrementAndGet();
+        }
+    }
+
+    @Override
+    public boolean isStub() {
+        return stub;
+    }
+
+    @Override
+    public void close() {
+        open.decrementAndGet();
+    }
+}
@@ -0,0 +1,95 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06;
+
+import com.teragrep.jla_06.lib.metrics.RelpMetrics;
+import com.teragrep.jla_06.lib.ratelimit.RateLimiterImpl;
+import com.teragrep.jla_06.lib.ratelimit.TokenBucket;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class RateLimiterTest {
+
+    @Test
+    @DisplayName(value = "Test TokenBucket allows the burst and refills at the rate")
+    public void testTokenBucket() {
+        long now = System.nanoTime();
+        TokenBucket tokenBucket = new TokenBucket(10, 5);
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertTrue(tokenBucket.tryAcquire(now));
+        }
+        Assertions.assertFalse(tokenBucket.tryAcquire(now));
+        // one token every 100 ms
+        Assertions.assertFalse(tokenBucket.tryAcquire(now + TimeUnit.MILLISECONDS.toNanos(50)));
+        Assertions.assertTrue(tokenBucket.tryAcquire(now + TimeUnit.MILLISECONDS.toNanos(100)));
+        Assertions.assertFalse(tokenBucket.tryAcquire(now + TimeUnit.MILLISECONDS.toNanos(100)));
+        // idle time refills up to the burst only
+        long later = now + TimeUnit.SECONDS.toNanos(10);
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertTrue(tokenBucket.tryAcquire(later));
+        }
+        Assertions.assertFalse(tokenBucket.tryAcquire(later));
+    }
+
+    @Test
+    @DisplayName(value = "Test a runaway logger is limited by its own bucket")
+    public void testPerLogger() {
+        long now = System.nanoTime();
+        RelpMetrics relpMetrics = new RelpMetrics();
+        RateLimiterImpl rateLimiter = new RateLimiterImpl(0, 0, 3, 16, TimeUnit.SECONDS.toNanos(60), relpMetrics);
+        for (int i = 0; i < 10; i++) {
+            rateLimiter.tryAcquire("runaway", now);
+        }
+        Assertions.assertTrue(rateLimiter.tryAcquire("quiet", now));
+        Assertions.assertEquals(7, relpMetrics.rateLimitedEvents());
+    }
+
+    @Test
+    @DisplayName(value = "Test an event rejected by the appender bucket does not use a token of its logger")
+    public void testAppenderRejectionRefundsLogger() {
+        long now = System.nanoTime();
+        RelpMetrics relpMetrics = new RelpMetrics();
+        RateLimiterImpl rateLimiter = new RateLimiterImpl(10, 1, 1, 16, TimeUnit.SECONDS.toNanos(60), relpMetrics);
+        Assertions.assertTrue(rateLimiter.tryAcquire("other", now));
+        // the appender bucket is empty, the logger bucket is refunded every time
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertFalse(rateLimiter.tryAcquire("logger", now));
+        }
+        Assertions.assertEquals(10, relpMetrics.rateLimitedEvents());
+        // the appender refills in 100 ms, the logger would need a second had its token been taken
+        Assertions.assertTrue(rateLimiter.tryAcquire("logger", now + TimeUnit.MILLISECONDS.toNanos(100)));
+    }
+
+    @Test
+    @DisplayName(value = "Test rejected events are summarized once per interval")
+    public void testSummary() {
+        RelpMetrics relpMetrics = new RelpMetrics();
+        long interval = TimeUnit.SECONDS.toNanos(1);
+        RateLimiterImpl rateLimiter = new RateLimiterImpl(1, 1, 0, 16, interval, relpMetrics);
+        long now = System.nanoTime();
+        for (int i = 0; i < 4; i++) {
+            rateLimiter.tryAcquire("logger", now);
+        }
+        Assertions.assertEquals(0, rateLimiter.summarize(now));
+        Assertions.assertEquals(3, rateLimiter.summarize(now + interval));
+        Assertions.assertEquals(0, rateLimiter.summarize(now + interval));
+        Assertions.assertEquals(0, rateLimiter.summarize(now + 2 * interval + 1));
+    }
+}
@@ -0,0 +1,281 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06;
+
+import com.teragrep.jla_06.server.TestServer;
+import com.teragrep.jla_06.server.TestServerFactory;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.Layout;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.core.layout.PatternLayout;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class RelpAppenderMetricsTest {
+
+    @TempDir
+    Path journalDirectory;
+
+    @Test
+    @DisplayName(value = "Test RelpAppender exposes send and connection metrics via JMX")
+    public void testMetricsMBean() {
+        final int records = 100;
+        final ConcurrentLinkedDeque<byte[]> messageList = new ConcurrentLinkedDeque<>();
+        final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+        Assertions.assertDoesNotThrow(() -> {
+            final ObjectName objectName = new ObjectName(
+                    "org.apache.logging.log4j2:type=RelpAppender,name=metricsAppender"
+            );
+            try (
+                    TestServer server = new TestServerFactory()
+                            .create(1602, messageList, new AtomicLong(), new AtomicLong())
+            ) {
+                server.run();
+                Layout<String> layout = PatternLayout
+                        .newBuilder()
+                        .withPattern("%msg")
+                        .withCharset(StandardCharsets.UTF_8)
+                        .build();
+                RelpAppender relpAppender = RelpAppender
+                        .createAppender(
+                                "metricsAppender", false, "jla-06-metrics", "jla-06-metrics", 5000, 5000, 5000, 5000,
+                                true, "127.0.0.1", 1602, false, null, null, null, false, "", 1000, false, 1000, false,
+                                false, 1024, 1, "blocking", "block", 128, "secure", false, false, 0, 0, 5000, "wait",
+                                false, 0, "", "roundRobin", 3, 30000, "", 67_108_864, 1_073_741_824L, 1000, 0, false,
+                                128, false, "lock", 0, 0, 0, 1024, 60000, 0, 0, 0, "", 0, false, 0, 0, "",
+                                "context@48577", 100, layout, null
+                        );
+                relpAppender.start();
+                Assertions.assertTrue(mBeanServer.isRegistered(objectName));
+                for (int i = 0; i < records; i++) {
+                    relpAppender
+                            .append(Log4jLogEvent.newBuilder().setMessage(new SimpleMessage("metrics " + i)).setLevel(Level.INFO).build());
+                }
+
+                Assertions.assertEquals((long) records, mBeanServer.getAttribute(objectName, "RecordsSent"));
+                Assertions.assertEquals((long) records, mBeanServer.getAttribute(objectName, "BatchesSent"));
+                long bytes = 0;
+                for (byte[] message : messageList) {
+                    bytes = bytes + message.length;
+                }
+                Assertions.assertEquals(bytes, mBeanServer.getAttribute(objectName, "BytesSent"));
+                Assertions.assertEquals(1L, mBeanServer.getAttribute(objectName, "Connects"));
+                Assertions.assertEquals(1L, mBeanServer.getAttribute(objectName, "LiveConnections"));
+                Assertions.assertEquals(0L, mBeanServer.getAttribute(objectName, "SendFailures"));
+                Assertions.assertEquals(0L, mBeanServer.getAttribute(objectName, "AsyncBacklog"));
+                Assertions.assertEquals(records, relpAppender.metrics().send().snapshot().count());
+                Assertions.assertEquals(records, relpAppender.metrics().connectionWait().snapshot().count());
+                Assertions.assertEquals(records, relpAppender.metrics().eventAge().snapshot().count());
+                Assertions.assertTrue((Long) mBeanServer.getAttribute(objectName, "SendP50Nanos") > 0);
+                Assertions
+                        .assertTrue((Long) mBeanServer.getAttribute(objectName, "SendMaxNanos") >= (Long) mBeanServer.getAttribute(objectName, "SendP99Nanos"));
+                mBeanServer.invoke(objectName, "resetLatencies", new Object[0], new String[0]);
+                Assertions.assertEquals(0, relpAppender.metrics().send().snapshot().count());
+
+                relpAppender.stop();
+                Assertions.assertFalse(mBeanServer.isRegistered(objectName));
+            }
+        });
+        Assertions.assertEquals(records, messageList.size());
+    }
+
+    @Test
+    @DisplayName(value = "Test RelpAppender records the event age of asyncSend records once they are acknowledged")
+    public void testEventAgeAsync() {
+        final int records = 100;
+        final ConcurrentLinkedDeque<byte[]> messageList = new ConcurrentLinkedDeque<>();
+
+        Assertions.assertDoesNotThrow(() -> {
+            try (
+                    TestServer server = new TestServerFactory()
+                            .create(1607, messageList, new AtomicLong(), new AtomicLong())
+            ) {
+                server.run();
+                Layout<String> layout = PatternLayout
+                        .newBuilder()
+                        .withPattern("%msg")
+                        .withCharset(StandardCharsets.UTF_8)
+                        .build();
+                RelpAppender relpAppender = RelpAppender
+                        .createAppender(
+                                "eventAgeAppender", false, "jla-06-metrics", "jla-06-metrics", 5000, 5000, 5000, 5000,
+                                true, "127.0.0.1", 1607, false, null, null, null, false, "", 1000, false, 1000, false,
+                                true, 1024, 1, "blocking", "block", 128, "secure", false, false, 0, 0, 5000, "wait",
+                                false, 0, "", "roundRobin", 3, 30000, "", 67_108_864, 1_073_741_824L, 1000, 0, false,
+                                128, false, "lock", 0, 0, 0, 1024, 60000, 0, 0, 0, "", 0, false, 0, 0, "",
+                                "context@48577", 100, layout, null
+                        );
+                relpAppender.start();
+                for (int i = 0; i < records; i++) {
+                    relpAppender
+                            .append(Log4jLogEvent.newBuilder().setMessage(new SimpleMessage("age " + i)).setLevel(Level.INFO).build());
+                }
+                // stop drains the queue
+                relpAppender.stop();
+                Assertions.assertEquals(records, relpAppender.metrics().eventAge().snapshot().count());
+            }
+        });
+        Assertions.assertEquals(records, messageList.size());
+    }
+
+    @Test
+    @DisplayName(value = "Test RelpAppender sends ERROR events over the priority lane's own connection")
+    public void testPriorityLane() {
+        final ConcurrentLinkedDeque<byte[]> messageList = new ConcurrentLinkedDeque<>();
+        Assertions.assertDoesNotThrow(() -> {
+            try (
+                    TestServer server = new TestServerFactory()
+                            .create(1606, messageList, new AtomicLong(), new AtomicLong())
+            ) {
+                server.run();
+                Layout<String> layout = PatternLayout
+                        .newBuilder()
+                        .withPattern("%msg")
+                        .withCharset(StandardCharsets.UTF_8)
+                        .build();
+                RelpAppender relpAppender = RelpAppender
+                        .createAppender(
+                                "priorityAppender", false, "jla-06-metrics", "jla-06-metrics", 5000, 5000, 5000, 5000,
+                                false, "127.0.0.1", 1606, false, null, null, null, false, "", 1000, false, 1000, false,
+                                true, 1024, 1, "blocking", "block", 128, "secure", false, false, 0, 0, 5000, "wait",
+                                false, 0, "", "roundRobin", 3, 30000, "", 67_108_864, 1_073_741_824L, 1000, 0, false,
+                                128, false, "lock", 0, 0, 0, 1024, 60000, 0, 0, 0, "", 0, true, 64, 0, "",
+                                "context@48577", 100, layout, null
+                        );
+                relpAppender.start();
+                relpAppender
+                        .append(Log4jLogEvent.newBuilder().setMessage(new SimpleMessage("info")).setLevel(Level.INFO).build());
+                relpAppender
+                        .append(Log4jLogEvent.newBuilder().setMessage(new SimpleMessage("error")).setLevel(Level.ERROR).build());
+                Assertions.assertTrue(relpAppender.stop(10, TimeUnit.SECONDS));
+                Assertions.assertEquals(2, relpAppender.metrics().connects(), "one connection per lane");
+            }
+        });
+        Assertions.assertEquals(2, messageList.size());
+        for (byte[] message : messageList) {
+            final String syslog = new String(message, StandardCharsets.UTF_8);
+            if (syslog.endsWith("error")) {
+                Assertions.assertTrue(syslog.startsWith("<11>1 "));
+            }
+            else {
+                Assertions.assertTrue(syslog.startsWith("<14>1 "));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName(value = "Test the priority lane is not spilled to the journal behind the backlog")
+    public void testPriorityLaneNotJournaled() {
+        final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        Layout<String> layout = PatternLayout
+                .newBuilder()
+                .withPattern("%msg")
+                .withCharset(StandardCharsets.UTF_8)
+                .build();
+        // nothing listens on the port, the main lane journals its failed sends
+        RelpAppender relpAppender = RelpAppender
+                .createAppender(
+                        "journaledPriorityAppender", false, "jla-06-metrics", "jla-06-metrics", 5000, 5000, 100, 5000,
+                        false, "127.0.0.1", 1605, false, null, null, null, false, "", 1000, false, 1000, false, true,
+                        1024, 1, "blocking", "block", 128, "secure", false, false, 0, 0, 5000, "wait", false, 0, "",
+                        "roundRobin", 3, 30000, journalDirectory.toString(), 67_108_864, 1_073_741_824L, 1000, 0, false,
+                        128, false, "lock", 0, 0, 0, 1024, 60000, 0, 0, 0, "", 0, true, 64, 0, "", "context@48577", 100,
+                        layout, null
+                );
+        relpAppender.start();
+        Assertions.assertDoesNotThrow(() -> {
+            final ObjectName objectName = new ObjectName(
+                    "org.apache.logging.log4j2:type=RelpAppender,name=journaledPriorityAppender"
+            );
+            relpAppender
+                    .append(Log4jLogEvent.newBuilder().setMessage(new SimpleMessage("info")).setLevel(Level.INFO).build());
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while ((long) mBeanServer.getAttribute(objectName, "JournalBacklog") == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            Assertions.assertEquals(1L, mBeanServer.getAttribute(objectName, "JournalBacklog"));
+            relpAppender
+                    .append(Log4jLogEvent.newBuilder().setMessage(new SimpleMessage("error")).setLevel(Level.ERROR).build());
+            // the priority sender keeps retrying the error itself instead of queueing it behind the journal
+            Thread.sleep(300);
+            Assertions.assertEquals(1L, mBeanServer.getAttribute(objectName, "JournalBacklog"));
+            Assertions.assertTrue(relpAppender.metrics().connectFailures() >= 2);
+        });
+        relpAppender.stop(200, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    @DisplayName(value = "Test RelpAppender opens prewarmConnections connections before the first event")
+    public void testPrewarmConnections() {
+        final ConcurrentLinkedDeque<byte[]> messageList = new ConcurrentLinkedDeque<>();
+        Assertions.assertDoesNotThrow(() -> {
+            try (
+                    TestServer server = new TestServerFactory()
+                            .create(1603, messageList, new AtomicLong(), new AtomicLong())
+            ) {
+                server.run();
+                Layout<String> layout = PatternLayout
+                        .newBuilder()
+                        .withPattern("%msg")
+                        .withCharset(StandardCharsets.UTF_8)
+                        .build();
+                RelpAppender relpAppender = RelpAppender
+                        .createAppender(
+                                "prewarmAppender", false, "jla-06-metrics", "jla-06-metrics", 5000, 5000, 5000, 5000,
+                                true, "127.0.0.1", 1603, false, null, null, null, false, "", 1000, false, 1000, false,
+                                false, 1024, 1, "blocking", "block", 128, "secure", false, false, 0, 0, 5000, "wait",
+                                false, 0, "", "roundRobin", 3, 30000, "", 67_108_864, 1_073_741_824L, 1000, 0, false,
+                                128, false, "lock", 0, 0, 0, 1024, 60000, 0, 0, 0, "", 3, false, 0, 0, "",
+                                "context@48577", 100, layout, null
+                        );
+                relpAppender.start();
+                final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+                // the prewarm threads return the connections to the pool when they finish
+                while (prewarming() && System.nanoTime() < deadline) {
+                    Thread.sleep(10);
+                }
+                Assertions.assertEquals(3, relpAppender.metrics().connects());
+                relpAppender
+                        .append(Log4jLogEvent.newBuilder().setMessage(new SimpleMessage("prewarmed")).setLevel(Level.INFO).build());
+                Assertions.assertEquals(3, relpAppender.metrics().connects(), "the event used a prewarmed connection");
+                relpAppender.stop();
+            }
+        });
+        Assertions.assertEquals(1, messageList.size());
+    }
+
+    private boolean prewarming() {
+        return Thread
+                .getAllStackTraces()
+                .keySet()
+                .stream()
+                .anyMatch(thread -> thread.getName().startsWith("jla_06-relp-prewarm-prewarmAppender-"));
+    }
+}
@@ -0,0 +1,211 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06;
+
+import com.teragrep.jla_06.lib.RelpLogAppender;
+import com.teragrep.jla_06.lib.RelpLogAppenderAsync;
+import com.teragrep.jla_06.lib.RelpLogAppenderImpl;
+import com.teragrep.jla_06.lib.async.FullQueuePolicyFactory;
+import com.teragrep.jla_06.lib.async.RingBuffer;
+import com.teragrep.jla_06.lib.async.WaitStrategy;
+import com.teragrep.jla_06.lib.async.WaitStrategyFactory;
+import com.teragrep.jla_06.lib.connection.ConnectionCloser;
+import com.teragrep.jla_06.lib.connection.RelpBatchConnection;
+import com.teragrep.jla_06.lib.connection.RelpBatchConnectionClosedInParallel;
+import com.teragrep.jla_06.lib.connection.RelpBatchConnectionStub;
+import com.teragrep.jla_06.lib.pool.ConnectionPoolClosedInParallel;
+import com.teragrep.jla_06.lib.syslog.SyslogRecord;
+import com.teragrep.jla_06.lib.syslog.SyslogRecordConfigured;
+import com.teragrep.jla_06.lib.syslog.SyslogRecordWithPayload;
+import com.teragrep.jla_06.server.TestServer;
+import com.teragrep.jla_06.server.TestServerFactory;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.Layout;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.core.layout.PatternLayout;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import com.teragrep.rlp_01.pool.Pool;
+import com.teragrep.rlp_01.pool.UnboundPool;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class RelpAppenderStopTest {
+
+    private RelpAppender createAsyncAppender(String name, int port, int prewarmConnections) {
+        Layout<String> layout = PatternLayout
+                .newBuilder()
+                .withPattern("%msg")
+                .withCharset(StandardCharsets.UTF_8)
+                .build();
+        return RelpAppender
+                .createAppender(
+                        name, false, "jla-06-stop", "jla-06-stop", 5000, 5000, 100, 5000, true, "127.0.0.1", port,
+                        false, null, null, null, false, "", 1000, false, 1000, false, true, 1024, 1, "blocking",
+                        "block", 128, "secure", false, false, 0, 0, 5000, "wait", false, 0, "", "roundRobin", 3, 30000,
+                        "", 67_108_864, 1_073_741_824L, 1000, 0, false, 128, false, "lock", 0, 0, 0, 1024, 60000, 0, 0,
+                        0, "", prewarmConnections, false, 0, 0, "", "context@48577", 100, layout, null
+                );
+    }
+
+    @Test
+    @DisplayName(value = "Test stop with a timeout delivers queued events and closes the pooled connections")
+    public void testStopDeliversWithinTimeout() {
+        final int records = 100;
+        final ConcurrentLinkedDeque<byte[]> messageList = new ConcurrentLinkedDeque<>();
+        final AtomicLong closeCount = new AtomicLong();
+        Assertions.assertDoesNotThrow(() -> {
+            try (TestServer server = new TestServerFactory().create(1604, messageList, new AtomicLong(), closeCount)) {
+                server.run();
+                RelpAppender relpAppender = createAsyncAppender("stopAppender", 1604, 3);
+                relpAppender.start();
+                for (int i = 0; i < records; i++) {
+                    relpAppender
+                            .append(Log4jLogEvent.newBuilder().setMessage(new SimpleMessage("stop " + i)).setLevel(Level.INFO).build());
+                }
+                Assertions.assertTrue(relpAppender.stop(10, TimeUnit.SECONDS));
+                Assertions.assertTrue(relpAppender.isStopped());
+                Assertions.assertEquals(records, relpAppender.metrics().records());
+                Assertions.assertEquals(records, relpAppender.metrics().acceptedRecords());
+                final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+                // the server counts a close once it has read the end of the stream
+                while (closeCount.get() < relpAppender.metrics().connects() && System.nanoTime() < deadline) {
+                    Thread.sleep(10);
+                }
+                Assertions.assertTrue(relpAppender.metrics().connects() >= 3);
+                Assertions.assertEquals(relpAppender.metrics().connects(), closeCount.get());
+            }
+        });
+        Assertions.assertEquals(records, messageList.size());
+    }
+
+    @Test
+    @DisplayName(value = "Test stop with a timeout abandons events it can not deliver before the deadline")
+    public void testStopAbandonsAfterTimeout() {
+        // nothing listens on the port, the sender keeps reconnecting
+        RelpAppender relpAppender = createAsyncAppender("abandoningAppender", 1605, 0);
+        relpAppender.start();
+        for (int i = 0; i < 10; i++) {
+            relpAppender
+                    .append(Log4jLogEvent.newBuilder().setMessage(new SimpleMessage("abandoned " + i)).setLevel(Level.INFO).build());
+        }
+        final long startNanos = System.nanoTime();
+        Assertions.assertFalse(relpAppender.stop(200, TimeUnit.MILLISECONDS));
+        Assertions.assertTrue(System.nanoTime() - startNanos < TimeUnit.SECONDS.toNanos(5));
+        Assertions.assertTrue(relpAppender.isStopped());
+        Assertions.assertEquals(0, relpAppender.metrics().records());
+        Assertions.assertEquals(10, relpAppender.metrics().acceptedRecords());
+        Assertions.assertEquals(10, relpAppender.metrics().abandonedRecords());
+        // the sender and stop threads end their retry loops once the deadline has passed
+        Assertions.assertDoesNotThrow(() -> {
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!appenderThreads("abandoningAppender").isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+        });
+        Assertions.assertEquals(Collections.emptyList(), appenderThreads("abandoningAppender"));
+    }
+
+    @Test
+    @DisplayName(value = "Test prewarm threads make a single connection attempt and end")
+    public void testPrewarmUnreachable() {
+        RelpAppender relpAppender = createAsyncAppender("unreachablePrewarmAppender", 1605, 3);
+        relpAppender.start();
+        Assertions.assertDoesNotThrow(() -> {
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!appenderThreads("prewarm-unreachablePrewarmAppender").isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+        });
+        Assertions.assertEquals(Collections.emptyList(), appenderThreads("prewarm-unreachablePrewarmAppender"));
+        Assertions.assertEquals(3, relpAppender.metrics().connectFailures());
+        Assertions.assertTrue(relpAppender.stop(5, TimeUnit.SECONDS));
+        Assertions.assertDoesNotThrow(() -> {
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!appenderThreads("unreachablePrewarmAppender").isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+        });
+        Assertions.assertEquals(Collections.emptyList(), appenderThreads("unreachablePrewarmAppender"));
+    }
+
+    @Test
+    @DisplayName(value = "Test a connection closed after a failed send is not leased while a stop closes the pool")
+    public void testFailedSendClosedBeforeLease() {
+        final AtomicBoolean overlapped = new AtomicBoolean();
+        final AtomicInteger closes = new AtomicInteger();
+        final ConnectionCloser connectionCloser = new ConnectionCloser("jla_06-relp-close-exclusive-");
+        final Pool<RelpBatchConnection> pool = new ConnectionPoolClosedInParallel<>(
+                new UnboundPool<>(
+                        () -> new RelpBatchConnectionClosedInParallel(
+                                new RelpBatchConnectionExclusive(overlapped, closes, 2),
+                                connectionCloser
+                        ),
+                        new RelpBatchConnectionStub()
+                ),
+                connectionCloser
+        );
+        final WaitStrategyFactory waitStrategyFactory = new WaitStrategyFactory();
+        final WaitStrategy spaceAvailable = waitStrategyFactory.create("blocking");
+        final RingBuffer<SyslogRecord> ringBuffer = new RingBuffer<>(256);
+        final RelpLogAppender relpLogAppender = new RelpLogAppenderAsync(
+                new RelpLogAppenderImpl(pool),
+                ringBuffer,
+                new FullQueuePolicyFactory<SyslogRecord>().create("block", ringBuffer, spaceAvailable),
+                waitStrategyFactory.create("blocking"),
+                spaceAvailable,
+                2,
+                1
+        );
+        relpLogAppender.start();
+        for (int i = 0; i < 200; i++) {
+            relpLogAppender.append(new SyslogRecordWithPayload(new SyslogRecordConfigured("host", "app"), "failing"));
+        }
+        Assertions.assertDoesNotThrow(() -> {
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (closes.get() < 10 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+        });
+        // the pool is closed while both senders keep failing, as when stop passes its deadline
+        pool.close();
+        relpLogAppender.stop();
+        Assertions.assertEquals(0, connectionCloser.await(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(closes.get() >= 10);
+        Assertions.assertFalse(overlapped.get());
+    }
+
+    private List<String> appenderThreads(String appenderName) {
+        final List<String> names = new ArrayList<>();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("jla_06") && thread.getName().contains(appenderName)) {
+                names.add(thread.getName());
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06;
+
+import com.teragrep.jla_06.lib.connection.RelpBatchConnection;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+final class RelpBatchConnectionCollecting implements RelpBatchConnection {
+
+    private final Queue<byte[]> sent;
+    private final AtomicBoolean failing;
+    private final long delayMillis;
+
+    RelpBatchConnectionCollecting(Queue<byte[]> sent, AtomicBoolean failing, long delayMillis) {
+        this.sent = sent;
+        this.failing = failing;
+        this.delayMillis = delayMillis;
+    }
+
+    @Override
+    public void ensureSent(byte[] bytes) {
+        if (failing.get()) {
+            throw new IllegalStateException("failing on purpose");
+        }
+        if (delayMillis > 0) {
+            try {
+                Thread.sleep(delayMillis);
+            }
+            catch (InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        sent.add(bytes);
+    }
+
+    @Override
+    public void ensureSent(List<byte[]> records) {
+        for (byte[] record : records) {
+            ensureSent(record);
+        }
+    }
+
+    @Override
+    public void connect() {
+        // nothing to connect
+    }
+
+    @Override
+    public void connectOnce() {
+        // nothing to connect
+    }
+
+    @Override
+    public void reconnect() {
+        // nothing to reconnect
+    }
+
+    @Override
+    public void forceReconnect() {
+        // nothing to reconnect
+    }
+
+    @Override
+    public boolean isStub() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+        // nothing to close
+    }
+}
@@ -0,0 +1,97 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06;
+
+import com.teragrep.jla_06.lib.connection.RelpBatchConnection;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// fails every send slowly and records whether two threads ever used it at the same time
+final class RelpBatchConnectionExclusive implements RelpBatchConnection {
+
+    private final AtomicBoolean overlapped;
+    private final AtomicInteger closes;
+    private final long delayMillis;
+    private final AtomicInteger inUse;
+
+    RelpBatchConnectionExclusive(AtomicBoolean overlapped, AtomicInteger closes, long delayMillis) {
+        this.overlapped = overlapped;
+        this.closes = closes;
+        this.delayMillis = delayMillis;
+        this.inUse = new AtomicInteger();
+    }
+
+    private void use() {
+        if (inUse.incrementAndGet() > 1) {
+            overlapped.set(true);
+        }
+        try {
+            Thread.sleep(delayMillis);
+        }
+        catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            inUse.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void ensureSent(byte[] bytes) {
+        use();
+        throw new IllegalStateException("failing on purpose");
+    }
+
+    @Override
+    public void ensureSent(List<byte[]> records) {
+        use();
+        throw new IllegalStateException("failing on purpose");
+    }
+
+    @Override
+    public void connect() {
+        use();
+    }
+
+    @Override
+    public void connectOnce() {
+        use();
+    }
+
+    @Override
+    public void reconnect() {
+        use();
+    }
+
+    @Override
+    public void forceReconnect() {
+        use();
+    }
+
+    @Override
+    public boolean isStub() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+        use();
+        closes.incrementAndGet();
+    }
+}
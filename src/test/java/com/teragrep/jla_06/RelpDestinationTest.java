@@ -0,0 +1,129 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06;
+
+import com.teragrep.jla_06.lib.connection.RelpBatchConnectionStub;
+import com.teragrep.jla_06.lib.destination.RelpBatchConnectionBalanced;
+import com.teragrep.jla_06.lib.destination.RelpDestination;
+import com.teragrep.jla_06.lib.destination.RelpDestinationSelectionFactory;
+import com.teragrep.jla_06.lib.destination.RelpDestinationSelectionLeastOutstanding;
+import com.teragrep.jla_06.lib.destination.RelpDestinationSelectionLowestLatency;
+import com.teragrep.jla_06.lib.destination.RelpDestinationSelectionRoundRobin;
+import com.teragrep.rlp_01.pool.UnboundPool;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class RelpDestinationTest {
+
+    @Test
+    @DisplayName(value = "Test round robin spreads records over all destinations")
+    public void testRoundRobin() {
+        Queue<byte[]> first = new ConcurrentLinkedQueue<>();
+        Queue<byte[]> second = new ConcurrentLinkedQueue<>();
+        Queue<byte[]> third = new ConcurrentLinkedQueue<>();
+        RelpBatchConnectionBalanced balanced = new RelpBatchConnectionBalanced(
+                Arrays.asList(destination("first", first, new AtomicBoolean(), 0), destination("second", second, new AtomicBoolean(), 0), destination("third", third, new AtomicBoolean(), 0)), new RelpDestinationSelectionRoundRobin(), 10
+        );
+        for (int i = 0; i < 30; i++) {
+            balanced.ensureSent(record(i));
+        }
+        Assertions.assertEquals(10, first.size());
+        Assertions.assertEquals(10, second.size());
+        Assertions.assertEquals(10, third.size());
+    }
+
+    @Test
+    @DisplayName(value = "Test failing destination is ejected, records fail over and it is reinstated later")
+    public void testEjectionAndReinstatement() throws InterruptedException {
+        Queue<byte[]> healthy = new ConcurrentLinkedQueue<>();
+        Queue<byte[]> unhealthy = new ConcurrentLinkedQueue<>();
+        AtomicBoolean failing = new AtomicBoolean(true);
+        RelpDestination unhealthyDestination = new RelpDestination(
+                "unhealthy",
+                new UnboundPool<>(() -> new RelpBatchConnectionCollecting(unhealthy, failing, 0), new RelpBatchConnectionStub()), 2, Duration.ofMillis(100)
+        );
+        RelpBatchConnectionBalanced balanced = new RelpBatchConnectionBalanced(
+                Arrays.asList(unhealthyDestination, destination("healthy", healthy, new AtomicBoolean(), 0)),
+                new RelpDestinationSelectionRoundRobin(),
+                10
+        );
+
+        for (int i = 0; i < 20; i++) {
+            balanced.ensureSent(record(i));
+        }
+        Assertions.assertEquals(20, healthy.size());
+        Assertions.assertTrue(unhealthy.isEmpty());
+        Assertions.assertFalse(unhealthyDestination.isAvailable());
+
+        failing.set(false);
+        Thread.sleep(150);
+        Assertions.assertTrue(unhealthyDestination.isAvailable());
+        for (int i = 0; i < 20; i++) {
+            balanced.ensureSent(record(i));
+        }
+        Assertions.assertFalse(unhealthy.isEmpty());
+    }
+
+    @Test
+    @DisplayName(value = "Test least outstanding and lowest latency selections")
+    public void testSelections() {
+        Queue<byte[]> slowSent = new ConcurrentLinkedQueue<>();
+        Queue<byte[]> fastSent = new ConcurrentLinkedQueue<>();
+        RelpDestination slow = destination("slow", slowSent, new AtomicBoolean(), 20);
+        RelpDestination fast = destination("fast", fastSent, new AtomicBoolean(), 0);
+        slow.send(Collections.singletonList(record(0)));
+        fast.send(Collections.singletonList(record(1)));
+        Assertions.assertTrue(slow.latencyNanos() > fast.latencyNanos());
+
+        RelpBatchConnectionBalanced balanced = new RelpBatchConnectionBalanced(
+                Arrays.asList(slow, fast),
+                new RelpDestinationSelectionLowestLatency(),
+                10
+        );
+        for (int i = 0; i < 10; i++) {
+            balanced.ensureSent(record(i));
+        }
+        Assertions.assertEquals(1, slowSent.size());
+        Assertions.assertEquals(11, fastSent.size());
+
+        Assertions.assertSame(slow, new RelpDestinationSelectionLeastOutstanding().select(Arrays.asList(slow, fast)));
+        Assertions
+                .assertThrows(
+                        IllegalArgumentException.class, () -> new RelpDestinationSelectionFactory().create("unknown")
+                );
+    }
+
+    private RelpDestination destination(String name, Queue<byte[]> sent, AtomicBoolean failing, long delayMillis) {
+        return new RelpDestination(
+                name,
+                new UnboundPool<>(() -> new RelpBatchConnectionCollecting(sent, failing, delayMillis), new RelpBatchConnectionStub()), 3, Duration.ofSeconds(30)
+        );
+    }
+
+    private byte[] record(int i) {
+        return ("record " + i).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,284 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06;
+
+import com.teragrep.jla_06.lib.RelpLogAppender;
+import com.teragrep.jla_06.lib.RelpLogAppenderAsync;
+import com.teragrep.jla_06.lib.async.FullQueuePolicy;
+import com.teragrep.jla_06.lib.async.FullQueuePolicyDropNewest;
+import com.teragrep.jla_06.lib.async.FullQueuePolicyDropOldest;
+import com.teragrep.jla_06.lib.async.FullQueuePolicyFactory;
+import com.teragrep.jla_06.lib.async.RingBuffer;
+import com.teragrep.jla_06.lib.async.WaitStrategy;
+import com.teragrep.jla_06.lib.async.WaitStrategyFactory;
+import com.teragrep.jla_06.lib.syslog.SyslogRecord;
+import com.teragrep.jla_06.lib.syslog.SyslogRecordConfigured;
+import com.teragrep.jla_06.lib.syslog.SyslogRecordWithPayload;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class RelpLogAppenderAsyncTest {
+
+    @Test
+    @DisplayName(value = "Test RingBuffer preserves order and reports full")
+    public void testRingBufferOrderAndCapacity() {
+        RingBuffer<Integer> ringBuffer = new RingBuffer<>(3);
+        Assertions.assertEquals(4, ringBuffer.capacity());
+        Assertions.assertTrue(ringBuffer.isEmpty());
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertTrue(ringBuffer.offer(i));
+        }
+        Assertions.assertTrue(ringBuffer.isFull());
+        Assertions.assertFalse(ringBuffer.offer(4));
+        Assertions.assertEquals(4, ringBuffer.size());
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertEquals(i, ringBuffer.poll());
+        }
+        Assertions.assertNull(ringBuffer.poll());
+        Assertions.assertTrue(ringBuffer.isEmpty());
+    }
+
+    @Test
+    @DisplayName(value = "Test FullQueuePolicyDropNewest discards the offered element")
+    public void testDropNewest() {
+        RingBuffer<Integer> ringBuffer = new RingBuffer<>(2);
+        FullQueuePolicy<Integer> policy = new FullQueuePolicyDropNewest<>(ringBuffer);
+        for (int i = 0; i < 5; i++) {
+            policy.offer(i);
+        }
+        Assertions.assertEquals(3, policy.dropped());
+        Assertions.assertEquals(0, ringBuffer.poll());
+        Assertions.assertEquals(1, ringBuffer.poll());
+    }
+
+    @Test
+    @DisplayName(value = "Test FullQueuePolicyDropOldest discards the queued elements")
+    public void testDropOldest() {
+        RingBuffer<Integer> ringBuffer = new RingBuffer<>(2);
+        FullQueuePolicy<Integer> policy = new FullQueuePolicyDropOldest<>(ringBuffer);
+        for (int i = 0; i < 5; i++) {
+            policy.offer(i);
+        }
+        Assertions.assertEquals(3, policy.dropped());
+        Assertions.assertEquals(3, ringBuffer.poll());
+        Assertions.assertEquals(4, ringBuffer.poll());
+    }
+
+    @Test
+    @DisplayName(value = "Test unknown configuration values are rejected")
+    public void testUnknownConfiguration() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new WaitStrategyFactory().create("unknown"));
+        Assertions
+                .assertThrows(
+                        IllegalArgumentException.class, () -> new FullQueuePolicyFactory<Integer>()
+                                .create("unknown", new RingBuffer<>(2), new WaitStrategyFactory().create("blocking"))
+                );
+    }
+
+    @Test
+    @DisplayName(value = "Test RelpLogAppenderAsync delivers every record and drains on stop")
+    public void testAsyncDrainsOnStop() {
+        for (String waitStrategyName : new String[] {
+                "blocking", "sleeping", "yielding", "busySpin"
+        }) {
+            final int records = 2_000;
+            ConcurrentLinkedQueue<SyslogRecord> sent = new ConcurrentLinkedQueue<>();
+            RelpLogAppender relpLogAppender = createAsync(sent, waitStrategyName, 16, 2);
+            relpLogAppender.start();
+
+            ExecutorService executorService = Executors.newFixedThreadPool(4);
+            CountDownLatch countDownLatch = new CountDownLatch(records);
+            for (int i = 0; i < records; i++) {
+                final SyslogRecord syslogRecord = new SyslogRecordWithPayload(
+                        new SyslogRecordConfigured("host", "app"),
+                        "payload " + i
+                );
+                executorService.submit(() -> {
+                    relpLogAppender.append(syslogRecord);
+                    countDownLatch.countDown();
+                });
+            }
+            Assertions.assertDoesNotThrow(() -> Assertions.assertTrue(countDownLatch.await(30, TimeUnit.SECONDS)));
+            executorService.shutdown();
+            relpLogAppender.stop();
+
+            Assertions.assertEquals(records, sent.size(), "records lost with wait strategy " + waitStrategyName);
+        }
+    }
+
+    @Test
+    @DisplayName(value = "Test RelpLogAppenderAsync rejects appends when not running")
+    public void testAsyncNotRunning() {
+        RelpLogAppender relpLogAppender = createAsync(new ConcurrentLinkedQueue<>(), "blocking", 4, 1);
+        SyslogRecord syslogRecord = new SyslogRecordConfigured("host", "app");
+        Assertions.assertThrows(IllegalStateException.class, () -> relpLogAppender.append(syslogRecord));
+        relpLogAppender.start();
+        relpLogAppender.stop();
+        Assertions.assertThrows(IllegalStateException.class, () -> relpLogAppender.append(syslogRecord));
+    }
+
+    @Test
+    @DisplayName(value = "Test FullQueuePolicyBlock gives up waiting for space once closed")
+    public void testBlockPolicyClosed() {
+        RingBuffer<Integer> ringBuffer = new RingBuffer<>(1);
+        FullQueuePolicy<Integer> fullQueuePolicy = new FullQueuePolicyFactory<Integer>()
+                .create("block", ringBuffer, new WaitStrategyFactory().create("blocking"));
+        for (int i = 0; i < ringBuffer.capacity(); i++) {
+            fullQueuePolicy.offer(i);
+        }
+        Thread producer = new Thread(() -> fullQueuePolicy.offer(-1));
+        producer.start();
+        Assertions.assertDoesNotThrow(() -> {
+            Thread.sleep(50);
+            Assertions.assertTrue(producer.isAlive());
+            fullQueuePolicy.close();
+            producer.join(TimeUnit.SECONDS.toMillis(5));
+        });
+        Assertions.assertFalse(producer.isAlive());
+        Assertions.assertEquals(1, fullQueuePolicy.dropped());
+        Assertions.assertEquals(ringBuffer.capacity(), ringBuffer.size());
+    }
+
+    @Test
+    @DisplayName(value = "Test RelpLogAppenderAsync sends, drops or rejects every record appended while stopping")
+    public void testAsyncStopWhileAppending() {
+        final int producers = 4;
+        final int recordsPerProducer = 10_000;
+        ConcurrentLinkedQueue<SyslogRecord> sent = new ConcurrentLinkedQueue<>();
+        WaitStrategyFactory waitStrategyFactory = new WaitStrategyFactory();
+        WaitStrategy spaceAvailable = waitStrategyFactory.create("blocking");
+        RingBuffer<SyslogRecord> ringBuffer = new RingBuffer<>(16);
+        FullQueuePolicy<SyslogRecord> fullQueuePolicy = new FullQueuePolicyFactory<SyslogRecord>()
+                .create("block", ringBuffer, spaceAvailable);
+        RelpLogAppender relpLogAppender = new RelpLogAppenderAsync(
+                new RelpLogAppenderCollecting(sent),
+                ringBuffer,
+                fullQueuePolicy,
+                waitStrategyFactory.create("blocking"),
+                spaceAvailable,
+                1,
+                8
+        );
+        relpLogAppender.start();
+        AtomicLong rejected = new AtomicLong();
+        CountDownLatch appending = new CountDownLatch(producers);
+        ExecutorService executorService = Executors.newFixedThreadPool(producers);
+        SyslogRecord syslogRecord = new SyslogRecordConfigured("host", "app");
+        for (int i = 0; i < producers; i++) {
+            executorService.submit(() -> {
+                appending.countDown();
+                for (int j = 0; j < recordsPerProducer; j++) {
+                    try {
+                        relpLogAppender.append(syslogRecord);
+                    }
+                    catch (IllegalStateException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+            });
+        }
+        Assertions.assertDoesNotThrow(() -> {
+            appending.await();
+            relpLogAppender.stop();
+            executorService.shutdown();
+            Assertions.assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+        });
+        Assertions
+                .assertEquals(producers * recordsPerProducer, sent.size() + fullQueuePolicy.dropped() + rejected.get());
+        Assertions.assertTrue(ringBuffer.isEmpty());
+    }
+
+    @Test
+    @DisplayName(value = "Test RelpLogAppenderAsync stop lets blocked producers enqueue while the senders drain")
+    public void testAsyncStopWhileBlocked() {
+        ConcurrentLinkedQueue<SyslogRecord> sent = new ConcurrentLinkedQueue<>();
+        CountDownLatch gate = new CountDownLatch(1);
+        WaitStrategyFactory waitStrategyFactory = new WaitStrategyFactory();
+        WaitStrategy spaceAvailable = waitStrategyFactory.create("blocking");
+        RingBuffer<SyslogRecord> ringBuffer = new RingBuffer<>(4);
+        FullQueuePolicy<SyslogRecord> fullQueuePolicy = new FullQueuePolicyFactory<SyslogRecord>()
+                .create("block", ringBuffer, spaceAvailable);
+        RelpLogAppender relpLogAppender = new RelpLogAppenderAsync(
+                new RelpLogAppenderGated(sent, gate),
+                ringBuffer,
+                fullQueuePolicy,
+                waitStrategyFactory.create("blocking"),
+                spaceAvailable,
+                1,
+                1
+        );
+        relpLogAppender.start();
+        SyslogRecord syslogRecord = new SyslogRecordConfigured("host", "app");
+        Thread producer = new Thread(() -> relpLogAppender.append(syslogRecord));
+        Thread stopper = new Thread(relpLogAppender::stop);
+        Assertions.assertDoesNotThrow(() -> {
+            // the sender holds the first record at the gate, the rest fill the queue
+            relpLogAppender.append(syslogRecord);
+            while (!ringBuffer.isEmpty()) {
+                Thread.sleep(1);
+            }
+            for (int i = 0; i < ringBuffer.capacity(); i++) {
+                relpLogAppender.append(syslogRecord);
+            }
+            producer.start();
+            Thread.sleep(50);
+            Assertions.assertTrue(producer.isAlive());
+
+            stopper.start();
+            Thread.sleep(50);
+            // stop waits for the blocked producer instead of dropping its record
+            Assertions.assertTrue(producer.isAlive());
+            gate.countDown();
+            stopper.join(TimeUnit.SECONDS.toMillis(5));
+            producer.join(TimeUnit.SECONDS.toMillis(5));
+        });
+        Assertions.assertFalse(stopper.isAlive());
+        Assertions.assertEquals(0, fullQueuePolicy.dropped());
+        Assertions.assertEquals(ringBuffer.capacity() + 2, sent.size());
+    }
+
+    private RelpLogAppender createAsync(
+            ConcurrentLinkedQueue<SyslogRecord> sent,
+            String waitStrategyName,
+            int capacity,
+            int senderThreads
+    ) {
+        WaitStrategyFactory waitStrategyFactory = new WaitStrategyFactory();
+        WaitStrategy recordsAvailable = waitStrategyFactory.create(waitStrategyName);
+        WaitStrategy spaceAvailable = waitStrategyFactory.create(waitStrategyName);
+        RingBuffer<SyslogRecord> ringBuffer = new RingBuffer<>(capacity);
+        FullQueuePolicy<SyslogRecord> fullQueuePolicy = new FullQueuePolicyFactory<SyslogRecord>()
+                .create("block", ringBuffer, spaceAvailable);
+        return new RelpLogAppenderAsync(
+                new RelpLogAppenderCollecting(sent),
+                ringBuffer,
+                fullQueuePolicy,
+                recordsAvailable,
+                spaceAvailable,
+                senderThreads,
+                8
+        );
+    }
+}
@@ -0,0 +1,57 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06;
+
+import com.teragrep.jla_06.lib.RelpLogAppender;
+import com.teragrep.jla_06.lib.syslog.SyslogRecord;
+
+import java.util.List;
+import java.util.Queue;
+
+final class RelpLogAppenderCollecting implements RelpLogAppender {
+
+    private final Queue<SyslogRecord> sent;
+
+    RelpLogAppenderCollecting(Queue<SyslogRecord> sent) {
+        this.sent = sent;
+    }
+
+    @Override
+    public void start() {
+        // nothing to open
+    }
+
+    @Override
+    public void append(SyslogRecord syslogRecord) {
+        sent.add(syslogRecord);
+    }
+
+    @Override
+    public void append(List<SyslogRecord> syslogRecords) {
+        sent.addAll(syslogRecords);
+    }
+
+    @Override
+    public void stop() {
+        // nothing to close
+    }
+
+    @Override
+    public boolean isStub() {
+        return false;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06;
+
+import com.teragrep.jla_06.lib.RelpLogAppender;
+import com.teragrep.jla_06.lib.RelpLogAppenderCombining;
+import com.teragrep.jla_06.lib.SynchronizedAccessFactory;
+import com.teragrep.jla_06.lib.syslog.SyslogRecord;
+import com.teragrep.jla_06.lib.syslog.SyslogRecordConfigured;
+import com.teragrep.jla_06.lib.syslog.SyslogRecordWithPayload;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class RelpLogAppenderCombiningTest {
+
+    @Test
+    @DisplayName(value = "Test every record of concurrent threads is sent once and in per thread order")
+    public void testConcurrentAppend() throws InterruptedException {
+        ConcurrentLinkedQueue<SyslogRecord> sent = new ConcurrentLinkedQueue<>();
+        RelpLogAppenderCombining relpLogAppender = new RelpLogAppenderCombining(
+                new RelpLogAppenderCollecting(sent),
+                16
+        );
+        relpLogAppender.start();
+        int threads = 8;
+        int records = 10_000;
+        List<Thread> appenders = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final String host = "host" + t;
+            Thread appender = new Thread(() -> {
+                for (int i = 0; i < records; i++) {
+                    relpLogAppender
+                            .append(new SyslogRecordWithPayload(new SyslogRecordConfigured(host, "app"), String.valueOf(i)));
+                }
+            });
+            appenders.add(appender);
+            appender.start();
+        }
+        for (Thread appender : appenders) {
+            appender.join();
+        }
+        relpLogAppender.stop();
+
+        Assertions.assertEquals(threads * records, sent.size());
+        Map<String, Integer> next = new HashMap<>();
+        for (SyslogRecord syslogRecord : sent) {
+            String host = syslogRecord.asSyslogMessage().getHostname();
+            int expected = next.getOrDefault(host, 0);
+            Assertions.assertEquals(String.valueOf(expected), syslogRecord.asSyslogMessage().getMsg());
+            next.put(host, expected + 1);
+        }
+    }
+
+    @Test
+    @DisplayName(value = "Test slots of finished threads are pruned")
+    public void testFinishedThreadsPruned() throws InterruptedException {
+        ConcurrentLinkedQueue<SyslogRecord> sent = new ConcurrentLinkedQueue<>();
+        RelpLogAppenderCombining relpLogAppender = new RelpLogAppenderCombining(
+                new RelpLogAppenderCollecting(sent),
+                16
+        );
+        relpLogAppender.start();
+        for (int t = 0; t < 10; t++) {
+            Thread appender = new Thread(() -> relpLogAppender.append(new SyslogRecordConfigured("host", "app")));
+            appender.start();
+            appender.join();
+        }
+        relpLogAppender.append(new SyslogRecordConfigured("host", "app"));
+        relpLogAppender.stop();
+        Assertions.assertEquals(11, sent.size());
+        Assertions.assertEquals(1, relpLogAppender.slots());
+    }
+
+    @Test
+    @DisplayName(value = "Test SynchronizedAccessFactory rejects unknown modes")
+    public void testUnknownMode() {
+        RelpLogAppender relpLogAppender = new RelpLogAppenderCollecting(new ConcurrentLinkedQueue<>());
+        Assertions
+                .assertThrows(
+                        IllegalArgumentException.class,
+                        () -> new SynchronizedAccessFactory().create("unknown", relpLogAppender, 16)
+                );
+    }
+}
@@ -0,0 +1,141 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06;
+
+import com.teragrep.jla_06.lib.RelpLogAppenderEndOfBatch;
+import com.teragrep.jla_06.lib.syslog.SyslogRecord;
+import com.teragrep.jla_06.lib.syslog.SyslogRecordConfigured;
+import com.teragrep.jla_06.lib.syslog.SyslogRecordWithPayload;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+public class RelpLogAppenderEndOfBatchTest {
+
+    @Test
+    @DisplayName(value = "Test records are held until the end of batch")
+    public void testEndOfBatch() {
+        ConcurrentLinkedQueue<SyslogRecord> sent = new ConcurrentLinkedQueue<>();
+        RelpLogAppenderEndOfBatch relpLogAppender = new RelpLogAppenderEndOfBatch(
+                new RelpLogAppenderCollecting(sent),
+                16,
+                60000,
+                "jla_06-test-linger"
+        );
+        relpLogAppender.start();
+        for (int i = 0; i < 9; i++) {
+            relpLogAppender.append(record(i), false);
+        }
+        Assertions.assertTrue(sent.isEmpty());
+        relpLogAppender.append(record(9), true);
+        Assertions.assertEquals(10, sent.size());
+        relpLogAppender.stop();
+    }
+
+    @Test
+    @DisplayName(value = "Test a batch is flushed when it reaches the maximum size")
+    public void testMaxBatchSize() {
+        ConcurrentLinkedQueue<SyslogRecord> sent = new ConcurrentLinkedQueue<>();
+        RelpLogAppenderEndOfBatch relpLogAppender = new RelpLogAppenderEndOfBatch(
+                new RelpLogAppenderCollecting(sent),
+                4,
+                60000,
+                "jla_06-test-linger"
+        );
+        relpLogAppender.start();
+        for (int i = 0; i < 10; i++) {
+            relpLogAppender.append(record(i), false);
+        }
+        Assertions.assertEquals(8, sent.size());
+        relpLogAppender.stop();
+        Assertions.assertEquals(10, sent.size(), "stop flushes the partial batch");
+    }
+
+    @Test
+    @DisplayName(value = "Test batches are flushed in order before a record without end of batch information")
+    public void testOrder() {
+        ConcurrentLinkedQueue<SyslogRecord> sent = new ConcurrentLinkedQueue<>();
+        RelpLogAppenderEndOfBatch relpLogAppender = new RelpLogAppenderEndOfBatch(
+                new RelpLogAppenderCollecting(sent),
+                16,
+                60000,
+                "jla_06-test-linger"
+        );
+        relpLogAppender.start();
+        SyslogRecord first = record(0);
+        SyslogRecord second = record(1);
+        relpLogAppender.append(first, false);
+        relpLogAppender.append(second);
+        Assertions.assertArrayEquals(new SyslogRecord[] {
+                first, second
+        }, sent.toArray());
+        relpLogAppender.stop();
+    }
+
+    @Test
+    @DisplayName(value = "Test records without an end of batch are flushed once they linger")
+    public void testLinger() throws InterruptedException {
+        ConcurrentLinkedQueue<SyslogRecord> sent = new ConcurrentLinkedQueue<>();
+        RelpLogAppenderEndOfBatch relpLogAppender = new RelpLogAppenderEndOfBatch(
+                new RelpLogAppenderCollecting(sent),
+                16,
+                20,
+                "jla_06-test-linger"
+        );
+        relpLogAppender.start();
+        relpLogAppender.append(record(0), false);
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (sent.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        Assertions.assertEquals(1, sent.size());
+        relpLogAppender.stop();
+    }
+
+    @Test
+    @DisplayName(value = "Test batches of finished threads are flushed and forgotten")
+    public void testFinishedThreads() throws InterruptedException {
+        ConcurrentLinkedQueue<SyslogRecord> sent = new ConcurrentLinkedQueue<>();
+        RelpLogAppenderEndOfBatch relpLogAppender = new RelpLogAppenderEndOfBatch(
+                new RelpLogAppenderCollecting(sent),
+                16,
+                20,
+                "jla_06-test-linger"
+        );
+        relpLogAppender.start();
+        for (int i = 0; i < 10; i++) {
+            final int index = i;
+            Thread producer = new Thread(() -> relpLogAppender.append(record(index), false));
+            producer.start();
+            producer.join();
+        }
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while ((sent.size() < 10 || relpLogAppender.batches() > 0) && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        Assertions.assertEquals(10, sent.size());
+        Assertions.assertEquals(0, relpLogAppender.batches());
+        relpLogAppender.stop();
+    }
+
+    private SyslogRecord record(int i) {
+        return new SyslogRecordWithPayload(new SyslogRecordConfigured("host", "app"), "payload " + i);
+    }
+}
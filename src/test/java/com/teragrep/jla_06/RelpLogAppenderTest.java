@@ -16,9 +16,22 @@
  */
 package com.teragrep.jla_06;
 
+import com.teragrep.jla_06.lib.RelpLogAppender;
+import com.teragrep.jla_06.lib.RelpLogAppenderImpl;
+import com.teragrep.jla_06.lib.connection.RelpBatchConnection;
+import com.teragrep.jla_06.lib.connection.RelpBatchConnectionFactory;
+import com.teragrep.jla_06.lib.connection.RelpBatchConnectionStub;
+import com.teragrep.jla_06.lib.syslog.SyslogRecord;
+import com.teragrep.jla_06.lib.syslog.SyslogRecordConfigured;
+import com.teragrep.jla_06.lib.syslog.SyslogRecordWithPayload;
 import com.teragrep.jla_06.server.TestServer;
 import com.teragrep.jla_06.server.TestServerFactory;
 import com.teragrep.rlo_06.RFC5424Frame;
+import com.teragrep.rlp_01.client.RelpConfig;
+import com.teragrep.rlp_01.client.SSLContextSupplierStub;
+import com.teragrep.rlp_01.client.SocketConfigImpl;
+import com.teragrep.rlp_01.pool.Pool;
+import com.teragrep.rlp_01.pool.UnboundPool;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.core.Layout;
 import org.apache.logging.log4j.core.impl.Log4jLogEvent;
@@ -27,6 +40,9 @@ import org.apache.logging.log4j.message.SimpleMessage;
 import org.junit.jupiter.api.*;
 
 import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentLinkedDeque;
@@ -168,12 +184,151 @@ public class RelpLogAppenderTest {
         Assertions.assertTrue(closeCount.get() >= 1, "closeCount not expected");
     }
 
+    @Test
+    public void threadedAsyncTest() {
+        TestServerFactory serverFactory = new TestServerFactory();
+
+        final int serverPort = 1601;
+        final int testCycles = 10_000;
+        final String hostname = "jla-06-threaded-async";
+        final String appName = "jla-06-threaded-async";
+        final String testPayload = "some payload";
+
+        final ConcurrentLinkedDeque<byte[]> messageList = new ConcurrentLinkedDeque<>();
+        AtomicLong openCount = new AtomicLong();
+        AtomicLong closeCount = new AtomicLong();
+
+        Assertions.assertDoesNotThrow(() -> {
+            try (TestServer server = serverFactory.create(serverPort, messageList, openCount, closeCount)) {
+                server.run();
+                RelpAppender relpAppender = createRelpAppender(hostname, appName, true);
+                relpAppender.start();
+                CountDownLatch countDownLatch = new CountDownLatch(testCycles);
+                for (int i = 0; i < testCycles; i++) {
+                    final String testString = testPayload + " " + i;
+                    ForkJoinPool.commonPool().submit(() -> {
+                        relpAppender
+                                .append(Log4jLogEvent.newBuilder().setMessage(new SimpleMessage(testString)).setThreadName("ThreadXyz").setLoggerName("LoggerXyz").setLevel(Level.INFO).setTimeMillis(1).build());
+                        countDownLatch.countDown();
+                    });
+                }
+
+                countDownLatch.await();
+                relpAppender.stop();
+
+            }
+        });
+
+        Assertions.assertEquals(testCycles, messageList.size(), "messageList size not expected");
+
+        Pattern pattern = Pattern.compile(testPayload + " (\\d+)");
+
+        Map<Integer, Boolean> testIterationsMap = new HashMap<>();
+        for (int i = 0; i < testCycles; i++) {
+            testIterationsMap.put(i, true);
+        }
+
+        for (byte[] message : messageList) {
+            RFC5424Frame rfc5424Frame = new RFC5424Frame();
+            rfc5424Frame.load(new ByteArrayInputStream(message));
+
+            AtomicBoolean frameNext = new AtomicBoolean();
+            Assertions.assertDoesNotThrow(() -> {
+                frameNext.set(rfc5424Frame.next());
+            });
+            Assertions.assertTrue(frameNext.get());
+
+            Assertions.assertEquals(hostname, rfc5424Frame.hostname.toString());
+            Assertions.assertEquals(appName, rfc5424Frame.appName.toString());
+
+            Matcher matcher = pattern.matcher(rfc5424Frame.msg.toString());
+            boolean matches = matcher.matches();
+            Assertions.assertTrue(matches, "payload unexpected");
+
+            String testIterationValue = matcher.group(1);
+
+            int testIteration = Assertions.assertDoesNotThrow(() -> {
+                return Integer.parseInt(testIterationValue);
+            }, "extracted test iteration not integer");
+
+            Boolean iterationValue = testIterationsMap.remove(testIteration);
+            Assertions.assertNotNull(iterationValue);
+            Assertions.assertTrue(iterationValue);
+        }
+        Assertions
+                .assertTrue(
+                        testIterationsMap.isEmpty(),
+                        "testIterationsMap was not empty: some messages were not delivered successfully"
+                );
+
+        Assertions.assertTrue(openCount.get() >= 1, "openCount not expected");
+        Assertions.assertTrue(closeCount.get() >= 1, "closeCount not expected");
+    }
+
+    @Test
+    public void testBatchAppend() {
+        TestServerFactory serverFactory = new TestServerFactory();
+
+        final int serverPort = 1601;
+        final int records = 100;
+
+        final ConcurrentLinkedDeque<byte[]> messageList = new ConcurrentLinkedDeque<>();
+        AtomicLong openCount = new AtomicLong();
+        AtomicLong closeCount = new AtomicLong();
+
+        Assertions.assertDoesNotThrow(() -> {
+            try (TestServer server = serverFactory.create(serverPort, messageList, openCount, closeCount)) {
+                server.run();
+                RelpConfig relpConfig = new RelpConfig(
+                        "127.0.0.1",
+                        serverPort,
+                        500,
+                        100_000,
+                        false,
+                        Duration.ofMillis(150_000),
+                        false
+                );
+                Pool<RelpBatchConnection> pool = new UnboundPool<>(
+                        new RelpBatchConnectionFactory(relpConfig, new SocketConfigImpl(5000, 5000, 5000, false), new SSLContextSupplierStub(), 7), new RelpBatchConnectionStub()
+                );
+                RelpLogAppender relpLogAppender = new RelpLogAppenderImpl(pool);
+                relpLogAppender.start();
+                List<SyslogRecord> batch = new ArrayList<>();
+                for (int i = 0; i < records; i++) {
+                    batch
+                            .add(new SyslogRecordWithPayload(new SyslogRecordConfigured("jla-06-batch", "jla-06-batch"), "batch payload " + i));
+                }
+                relpLogAppender.append(batch);
+                relpLogAppender.stop();
+            }
+        });
+
+        Assertions.assertEquals(records, messageList.size(), "messageList size not expected");
+        int i = 0;
+        for (byte[] message : messageList) {
+            RFC5424Frame rfc5424Frame = new RFC5424Frame();
+            rfc5424Frame.load(new ByteArrayInputStream(message));
+            Assertions.assertDoesNotThrow(() -> Assertions.assertTrue(rfc5424Frame.next()));
+            Assertions.assertEquals("batch payload " + i, rfc5424Frame.msg.toString());
+            i++;
+        }
+        Assertions.assertEquals(1, openCount.get(), "openCount not expected");
+        Assertions.assertEquals(1, closeCount.get(), "closeCount not expected");
+    }
+
     private RelpAppender createRelpAppender(String hostname, String appName) {
+        return createRelpAppender(hostname, appName, false);
+    }
+
+    private RelpAppender createRelpAppender(String hostname, String appName, boolean asyncSend) {
         Layout<String> layout = PatternLayout.newBuilder().withPattern("%msg").build();
         return RelpAppender
                 .createAppender(
                         "relpAppender", false, hostname, appName, 5000, 5000, 5000, 5000, true, "127.0.0.1", 1601,
-                        false, null, null, null, false, "", 1000, false, 1000, false, layout, null
+                        false, null, null, null, false, "", 1000, false, 1000, false, asyncSend, 1024, 2, "blocking",
+                        "block", 128, "secure", false, false, 0, 0, 5000, "wait", false, 0, "", "roundRobin", 3, 30000,
+                        "", 67_108_864, 1_073_741_824L, 1000, 0, false, 128, false, "lock", 0, 0, 0, 1024, 60000, 0, 0,
+                        0, "", 0, false, 0, 0, "", "context@48577", 100, layout, null
                 );
     }
 }
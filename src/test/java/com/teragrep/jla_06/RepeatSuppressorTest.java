@@ -0,0 +1,102 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06;
+
+import com.teragrep.jla_06.lib.suppression.RepeatSuppressorImpl;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class RepeatSuppressorTest {
+
+    @Test
+    @DisplayName(value = "Test repeats are dropped and summarized when the content changes")
+    public void testContentChange() {
+        List<String> summaries = new ArrayList<>();
+        RepeatSuppressorImpl repeatSuppressor = new RepeatSuppressorImpl(TimeUnit.SECONDS.toNanos(60), summaries::add);
+        long now = System.nanoTime();
+        Assertions.assertTrue(repeatSuppressor.admit(event("retry {}", 1, new IOException("a")), now));
+        // parameters and the throwable message are not part of the fingerprint
+        for (int i = 2; i <= 4; i++) {
+            Assertions.assertFalse(repeatSuppressor.admit(event("retry {}", i, new IOException("b")), now));
+        }
+        Assertions.assertTrue(summaries.isEmpty());
+        Assertions.assertTrue(repeatSuppressor.admit(event("retry {}", 5, new IllegalStateException()), now));
+        Assertions.assertEquals(1, summaries.size());
+        Assertions.assertTrue(summaries.get(0).startsWith("Last message repeated <3> times"), summaries.get(0));
+        Assertions.assertTrue(summaries.get(0).contains("java.io.IOException"), summaries.get(0));
+    }
+
+    @Test
+    @DisplayName(value = "Test a repeat after the window is forwarded and the window is summarized")
+    public void testWindowClose() {
+        List<String> summaries = new ArrayList<>();
+        long window = TimeUnit.SECONDS.toNanos(1);
+        RepeatSuppressorImpl repeatSuppressor = new RepeatSuppressorImpl(window, summaries::add);
+        long now = System.nanoTime();
+        Assertions.assertTrue(repeatSuppressor.admit(event("failed", 0, null), now));
+        Assertions.assertFalse(repeatSuppressor.admit(event("failed", 0, null), now + 1));
+        Assertions.assertTrue(repeatSuppressor.admit(event("failed", 0, null), now + window));
+        Assertions.assertEquals(1, summaries.size());
+        Assertions.assertFalse(repeatSuppressor.admit(event("failed", 0, null), now + window + 1));
+        repeatSuppressor.flush();
+        Assertions.assertEquals(2, summaries.size());
+        Assertions.assertTrue(summaries.get(1).startsWith("Last message repeated <1> times"), summaries.get(1));
+    }
+
+    @Test
+    @DisplayName(value = "Test the state of a finished thread is summarized and pruned by the next sweep")
+    public void testFinishedThreadPruned() throws InterruptedException {
+        List<String> summaries = Collections.synchronizedList(new ArrayList<>());
+        long window = TimeUnit.SECONDS.toNanos(1);
+        RepeatSuppressorImpl repeatSuppressor = new RepeatSuppressorImpl(window, summaries::add);
+        long now = System.nanoTime();
+        Thread thread = new Thread(() -> {
+            repeatSuppressor.admit(event("failed", 0, null), now);
+            repeatSuppressor.admit(event("failed", 0, null), now + 1);
+        });
+        thread.start();
+        thread.join();
+        Assertions.assertEquals(1, repeatSuppressor.states());
+
+        Assertions.assertTrue(repeatSuppressor.admit(event("other", 0, null), now + 2 * window));
+        Assertions.assertEquals(1, summaries.size());
+        Assertions.assertTrue(summaries.get(0).startsWith("Last message repeated <1> times"), summaries.get(0));
+        // only the state of the calling thread is left
+        Assertions.assertEquals(1, repeatSuppressor.states());
+    }
+
+    private LogEvent event(String format, int parameter, Throwable thrown) {
+        return Log4jLogEvent
+                .newBuilder()
+                .setLoggerName("suppression")
+                .setLevel(Level.ERROR)
+                .setMessage(new ParameterizedMessage(format, parameter))
+                .setThrown(thrown)
+                .build();
+    }
+}
@@ -0,0 +1,67 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06;
+
+import com.teragrep.jla_06.lib.async.SenderThreadFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+public class SenderThreadFactoryTest {
+
+    @Test
+    @DisplayName(value = "Test SenderThreadFactory creates numbered daemon threads")
+    public void testPlatformThreads() {
+        SenderThreadFactory threadFactory = new SenderThreadFactory("sender-", false);
+        Thread first = threadFactory.newThread(() -> {
+        });
+        Thread second = threadFactory.newThread(() -> {
+        });
+        Assertions.assertEquals("sender-0", first.getName());
+        Assertions.assertEquals("sender-1", second.getName());
+        Assertions.assertTrue(first.isDaemon());
+        Assertions.assertTrue(second.isDaemon());
+    }
+
+    @Test
+    @DisplayName(value = "Test SenderThreadFactory runs tasks when virtual threads are requested")
+    public void testVirtualThreadsRequested() throws InterruptedException {
+        SenderThreadFactory threadFactory = new SenderThreadFactory("sender-", true);
+        boolean[] ran = new boolean[1];
+        Thread thread = threadFactory.newThread(() -> ran[0] = true);
+        thread.start();
+        thread.join();
+        Assertions.assertTrue(ran[0]);
+        Assertions.assertEquals("sender-0", thread.getName());
+        Assertions.assertTrue(thread.isDaemon());
+    }
+
+    @Test
+    @EnabledIfSystemProperty(
+            named = "jla_06.multiRelease",
+            matches = "true"
+    )
+    @DisplayName(value = "Test SenderThreadFactory from the multi-release jar creates virtual threads")
+    public void testVirtualThreadsCreated() throws ReflectiveOperationException {
+        SenderThreadFactory threadFactory = new SenderThreadFactory("sender-", true);
+        Thread thread = threadFactory.newThread(() -> {
+        });
+        Assertions.assertEquals(true, Thread.class.getMethod("isVirtual").invoke(thread));
+        Assertions.assertEquals("sender-0", thread.getName());
+    }
+}
@@ -0,0 +1,85 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06;
+
+import com.teragrep.jla_06.lib.pool.StripedPool;
+import com.teragrep.rlp_01.pool.Pool;
+import com.teragrep.rlp_01.pool.UnboundPool;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class StripedPoolTest {
+
+    @Test
+    @DisplayName(value = "Test a thread keeps reusing the object it returned")
+    public void testThreadAffinity() {
+        final AtomicInteger open = new AtomicInteger();
+        final StripedPool<PoolableCounting> pool = new StripedPool<>(stripes(open, 4));
+        PoolableCounting first = pool.get();
+        pool.offer(first);
+        for (int i = 0; i < 100; i++) {
+            PoolableCounting poolable = pool.get();
+            Assertions.assertSame(first, poolable);
+            pool.offer(poolable);
+        }
+        Assertions.assertEquals(1, open.get());
+        pool.close();
+        Assertions.assertEquals(0, open.get());
+    }
+
+    @Test
+    @DisplayName(value = "Test striped pool closes everything leased from many threads")
+    public void testManyThreads() throws InterruptedException {
+        final AtomicInteger open = new AtomicInteger();
+        final StripedPool<PoolableCounting> pool = new StripedPool<>(stripes(open, 3));
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 500; j++) {
+                    PoolableCounting poolable = pool.get();
+                    Assertions.assertFalse(poolable.isStub());
+                    pool.offer(poolable);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assertions.assertTrue(open.get() <= 12, "open " + open.get());
+
+        PoolableCounting leased = pool.get();
+        pool.close();
+        pool.offer(leased);
+        Assertions.assertEquals(0, open.get());
+        Assertions.assertTrue(pool.get().isStub());
+    }
+
+    private List<Pool<PoolableCounting>> stripes(AtomicInteger open, int count) {
+        final List<Pool<PoolableCounting>> stripes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            stripes.add(new UnboundPool<>(() -> new PoolableCounting(open), new PoolableCounting(open, true)));
+        }
+        return stripes;
+    }
+}
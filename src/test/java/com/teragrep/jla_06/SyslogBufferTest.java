@@ -0,0 +1,275 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06;
+
+import com.teragrep.jla_06.lib.syslog.SyslogBuffer;
+import com.teragrep.jla_06.lib.syslog.SyslogBytes;
+import com.teragrep.jla_06.lib.syslog.SyslogRecord;
+import com.teragrep.jla_06.lib.syslog.SyslogRecordConfigured;
+import com.teragrep.jla_06.lib.syslog.SyslogRecordTemplated;
+import com.teragrep.jla_06.lib.syslog.SyslogRecordWithEventID;
+import com.teragrep.jla_06.lib.syslog.SyslogRecordWithOrigin;
+import com.teragrep.jla_06.lib.syslog.SyslogRecordWithPayload;
+import com.teragrep.jla_06.lib.syslog.SyslogRecordWithSystemID;
+import com.teragrep.jla_06.lib.syslog.SyslogRecordWithTimestamp;
+import com.teragrep.jla_06.lib.syslog.SyslogTemplate;
+import com.teragrep.jla_06.lib.syslog.SyslogTimestamp;
+import com.teragrep.jla_06.lib.syslog.eventid.EventIDGeneratorSequence;
+import com.teragrep.rlo_06.RFC5424Frame;
+import com.teragrep.rlo_06.SDVector;
+import com.teragrep.rlo_14.Facility;
+import com.teragrep.rlo_14.Severity;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+public class SyslogBufferTest {
+
+    private static final Instant[] TIMESTAMPS = {
+            Instant.ofEpochMilli(0),
+            Instant.ofEpochMilli(1),
+            Instant.ofEpochMilli(-1),
+            Instant.parse("2024-02-29T23:59:59.999Z"),
+            Instant.parse("2021-03-01T00:00:00Z"),
+            Instant.parse("1969-07-20T20:17:40.100Z"),
+            Instant.parse("2100-02-28T12:00:00.010Z"),
+            Instant.parse("0001-01-01T00:00:00Z"),
+            Instant.parse("9999-12-31T23:59:59.999Z"),
+            Instant.parse("+10000-01-01T00:00:00Z")
+    };
+
+    @Test
+    @DisplayName(value = "Test writeTo is byte-identical with SyslogMessage for all decorators")
+    public void testWriteToMatchesSyslogMessage() {
+        for (Instant timestamp : TIMESTAMPS) {
+            SyslogRecord syslogRecord = new SyslogRecordConfigured(
+                    "host.example",
+                    "app",
+                    Severity.ERROR,
+                    Facility.LOCAL0
+            );
+            syslogRecord = new SyslogRecordWithTimestamp(syslogRecord, timestamp);
+            syslogRecord = new SyslogRecordWithOrigin(syslogRecord, "origin \"quoted\" [x]\\");
+            syslogRecord = new SyslogRecordWithSystemID(syslogRecord, "system-äö€");
+            syslogRecord = new SyslogRecordWithPayload(syslogRecord, "payload åäö € 😀 \uD800 end");
+
+            assertByteIdentical(syslogRecord);
+        }
+    }
+
+    @Test
+    @DisplayName(value = "Test writeTo is byte-identical with SyslogMessage for minimal records")
+    public void testWriteToMatchesSyslogMessageMinimal() {
+        SyslogRecord configured = new SyslogRecordConfigured("host", "app");
+        assertByteIdentical(configured);
+        assertByteIdentical(new SyslogRecordWithPayload(configured, ""));
+        assertByteIdentical(new SyslogRecordWithPayload(configured, "payload"));
+        assertByteIdentical(new SyslogRecordWithPayload(configured, null));
+    }
+
+    @Test
+    @DisplayName(value = "Test writeTo produces frames rlo_06 parses")
+    public void testWriteToParses() {
+        SyslogRecord syslogRecord = new SyslogRecordConfigured("host", "app");
+        syslogRecord = new SyslogRecordWithTimestamp(syslogRecord);
+        syslogRecord = new SyslogRecordWithOrigin(syslogRecord, "origin-host");
+        syslogRecord = new SyslogRecordWithEventID(syslogRecord, "origin-host");
+        syslogRecord = new SyslogRecordWithSystemID(syslogRecord, "system");
+        syslogRecord = new SyslogRecordWithPayload(syslogRecord, "the payload");
+
+        SyslogBuffer syslogBuffer = new SyslogBuffer();
+        syslogRecord.writeTo(syslogBuffer);
+        RFC5424Frame rfc5424Frame = new RFC5424Frame();
+        rfc5424Frame.load(new ByteArrayInputStream(syslogBuffer.toBytes()));
+        Assertions.assertDoesNotThrow(() -> Assertions.assertTrue(rfc5424Frame.next()));
+
+        Assertions.assertEquals("host", rfc5424Frame.hostname.toString());
+        Assertions.assertEquals("app", rfc5424Frame.appName.toString());
+        Assertions.assertEquals("the payload", rfc5424Frame.msg.toString());
+        Assertions
+                .assertEquals(
+                        "origin-host", rfc5424Frame.structuredData.getValue(new SDVector("origin@48577", "hostname")).toString()
+                );
+        Assertions
+                .assertEquals(
+                        "system", rfc5424Frame.structuredData.getValue(new SDVector("businessSystem@48577", "systemId")).toString()
+                );
+        String uuid = rfc5424Frame.structuredData.getValue(new SDVector("event_id@48577", "uuid")).toString();
+        Assertions.assertEquals(uuid, UUID.fromString(uuid).toString());
+        String unixtime = rfc5424Frame.structuredData.getValue(new SDVector("event_id@48577", "unixtime")).toString();
+        Assertions.assertDoesNotThrow(() -> Long.parseLong(unixtime));
+    }
+
+    @Test
+    @DisplayName(value = "Test templated records are byte-identical with the decorator chain")
+    public void testTemplatedMatchesSyslogMessage() {
+        SyslogTemplate syslogTemplate = new SyslogTemplate(
+                "host.example",
+                "app",
+                "origin \"quoted\" [x]\\",
+                false,
+                true,
+                "system-äö€"
+        );
+        for (Instant timestamp : TIMESTAMPS) {
+            SyslogRecord syslogRecord = new SyslogRecordTemplated(syslogTemplate, timestamp.toEpochMilli());
+            assertByteIdentical(syslogRecord);
+            assertByteIdentical(new SyslogRecordWithPayload(syslogRecord, "payload åäö € 😀 end"));
+        }
+        assertByteIdentical(
+                new SyslogRecordTemplated(new SyslogTemplate("host", "app", "origin", false, false, ""), 1000L)
+        );
+    }
+
+    @Test
+    @DisplayName(value = "Test templated records with structured data match the SyslogMessage decorator chain")
+    public void testTemplatedWithStructuredDataMatchesSyslogMessage() {
+        final long nonce = 0x0123456789ABCDEFL;
+        final String originalHostname = "origin \"quoted\" [x]\\";
+        SyslogTemplate syslogTemplate = new SyslogTemplate(
+                "host.example",
+                "app",
+                originalHostname,
+                true,
+                true,
+                "system-äö€",
+                new EventIDGeneratorSequence(nonce)
+        );
+        // same nonce and sequence, the decorators draw one event id per record just like the template
+        EventIDGeneratorSequence expectedEventIDs = new EventIDGeneratorSequence(nonce);
+        for (Instant timestamp : TIMESTAMPS) {
+            SyslogRecord expected = new SyslogRecordWithSystemID(
+                    new SyslogRecordWithEventID(
+                            new SyslogRecordWithOrigin(
+                                    new SyslogRecordWithTimestamp(new SyslogRecordConfigured("host.example", "app"), timestamp), originalHostname
+                            ),
+                            originalHostname,
+                            expectedEventIDs,
+                            Clock.fixed(timestamp, ZoneOffset.UTC)
+                    ),
+                    "system-äö€"
+            );
+            for (String payload : new String[] {
+                    null, "payload åäö € 😀 end"
+            }) {
+                SyslogRecord templated = new SyslogRecordTemplated(syslogTemplate, timestamp.toEpochMilli());
+                byte[] expectedBytes;
+                SyslogBuffer syslogBuffer = new SyslogBuffer();
+                if (payload == null) {
+                    expectedBytes = expected
+                            .asSyslogMessage()
+                            .toRfc5424SyslogMessage()
+                            .getBytes(StandardCharsets.UTF_8);
+                    templated.writeTo(syslogBuffer);
+                }
+                else {
+                    expectedBytes = new SyslogRecordWithPayload(expected, payload)
+                            .asSyslogMessage()
+                            .toRfc5424SyslogMessage()
+                            .getBytes(StandardCharsets.UTF_8);
+                    new SyslogRecordWithPayload(templated, payload).writeTo(syslogBuffer);
+                }
+                Assertions
+                        .assertEquals(new String(expectedBytes, StandardCharsets.UTF_8), new String(syslogBuffer.toBytes(), StandardCharsets.UTF_8));
+                Assertions.assertArrayEquals(expectedBytes, syslogBuffer.toBytes());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName(value = "Test templated records with structured data produce frames rlo_06 parses")
+    public void testTemplatedParses() {
+        SyslogTemplate syslogTemplate = new SyslogTemplate("host", "app", "origin \"host\"", true, true, "system");
+        SyslogRecord syslogRecord = new SyslogRecordWithPayload(
+                new SyslogRecordTemplated(syslogTemplate, 1700000000123L),
+                "the payload"
+        );
+
+        SyslogBuffer syslogBuffer = new SyslogBuffer();
+        syslogRecord.writeTo(syslogBuffer);
+        RFC5424Frame rfc5424Frame = new RFC5424Frame();
+        rfc5424Frame.load(new ByteArrayInputStream(syslogBuffer.toBytes()));
+        Assertions.assertDoesNotThrow(() -> Assertions.assertTrue(rfc5424Frame.next()));
+
+        Assertions.assertEquals("2023-11-14T22:13:20.123Z", rfc5424Frame.timestamp.toString());
+        Assertions.assertEquals("host", rfc5424Frame.hostname.toString());
+        Assertions.assertEquals("app", rfc5424Frame.appName.toString());
+        Assertions.assertEquals("the payload", rfc5424Frame.msg.toString());
+        Assertions
+                .assertEquals(
+                        "origin \\\"host\\\"",
+                        rfc5424Frame.structuredData.getValue(new SDVector("origin@48577", "hostname")).toString()
+                );
+        Assertions
+                .assertEquals(
+                        "system", rfc5424Frame.structuredData.getValue(new SDVector("businessSystem@48577", "systemId")).toString()
+                );
+        String uuid = rfc5424Frame.structuredData.getValue(new SDVector("event_id@48577", "uuid")).toString();
+        Assertions.assertEquals(uuid, UUID.fromString(uuid).toString());
+        Assertions
+                .assertEquals(
+                        "1700000000123", rfc5424Frame.structuredData.getValue(new SDVector("event_id@48577", "unixtime")).toString()
+                );
+    }
+
+    @Test
+    @DisplayName(value = "Test cached SyslogTimestamp matches Instant across second boundaries")
+    public void testSyslogTimestamp() {
+        SyslogTimestamp syslogTimestamp = new SyslogTimestamp();
+        SyslogBytes syslogBytes = new SyslogBytes();
+        for (Instant timestamp : TIMESTAMPS) {
+            long start = timestamp.toEpochMilli() - 1500;
+            for (long epochMillis = start; epochMillis < start + 3000; epochMillis += 7) {
+                syslogBytes.clear();
+                syslogTimestamp.writeTo(syslogBytes, epochMillis);
+                Assertions
+                        .assertEquals(Instant.ofEpochMilli(epochMillis).toString(), new String(syslogBytes.toBytes(), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName(value = "Test SyslogBuffer is reusable after clear")
+    public void testReuse() {
+        SyslogBuffer syslogBuffer = new SyslogBuffer();
+        SyslogRecord first = new SyslogRecordWithOrigin(new SyslogRecordConfigured("first", "app"), "first");
+        SyslogRecord second = new SyslogRecordWithPayload(new SyslogRecordConfigured("second", "app"), "second");
+
+        first.writeTo(syslogBuffer);
+        syslogBuffer.toBytes();
+        syslogBuffer.clear();
+        second.writeTo(syslogBuffer);
+        Assertions
+                .assertArrayEquals(second.asSyslogMessage().toRfc5424SyslogMessage().getBytes(StandardCharsets.UTF_8), syslogBuffer.toBytes());
+    }
+
+    private void assertByteIdentical(SyslogRecord syslogRecord) {
+        SyslogBuffer syslogBuffer = new SyslogBuffer();
+        syslogRecord.writeTo(syslogBuffer);
+        byte[] expected = syslogRecord.asSyslogMessage().toRfc5424SyslogMessage().getBytes(StandardCharsets.UTF_8);
+        Assertions
+                .assertEquals(new String(expected, StandardCharsets.UTF_8), new String(syslogBuffer.toBytes(), StandardCharsets.UTF_8));
+        Assertions.assertArrayEquals(expected, syslogBuffer.toBytes());
+    }
+}
@@ -16,12 +16,31 @@
  */
 package com.teragrep.jla_06;
 
+import com.teragrep.jla_06.lib.syslog.ContextDataElement;
+import com.teragrep.jla_06.lib.syslog.SyslogBuffer;
+import com.teragrep.jla_06.lib.syslog.SyslogRecord;
+import com.teragrep.jla_06.lib.syslog.SyslogTemplate;
+import com.teragrep.jla_06.lib.syslog.severity.SeverityMappingFixed;
+import com.teragrep.jla_06.lib.syslog.severity.SeverityMappingLevel;
 import com.teragrep.rlo_14.SDElement;
+import com.teragrep.rlo_14.SDParam;
+import com.teragrep.rlo_14.Severity;
 import com.teragrep.rlo_14.SyslogMessage;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.ContextDataFactory;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.core.layout.PatternLayout;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.apache.logging.log4j.util.StringMap;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.*;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
 public class SyslogRecordFactoryTest {
 
     @Test
@@ -64,4 +83,171 @@ public class SyslogRecordFactoryTest {
         Assertions.assertEquals("Example Payload", syslogMessage.getMsg());
         Assertions.assertTrue(syslogMessage.getSDElements().isEmpty());
     }
+
+    @Test
+    @DisplayName(value = "Tests SyslogRecordFactory uses the given time for timestamp and unixtime")
+    public void testSyslogRecordFactoryWithEventTime() {
+        SyslogRecordFactory syslogRecordFactory = new SyslogRecordFactory(
+                "testhost",
+                "testapp",
+                "testhost",
+                true,
+                false,
+                ""
+        );
+        SyslogMessage syslogMessage = syslogRecordFactory.create("Example Payload", 1700000000123L).asSyslogMessage();
+        Assertions.assertEquals("2023-11-14T22:13:20.123Z", syslogMessage.getTimestamp());
+        SDElement eventIdSDElement = syslogMessage
+                .getSDElements()
+                .stream()
+                .filter(sdElement -> "event_id@48577".equals(sdElement.getSdID()))
+                .findFirst()
+                .orElseThrow(AssertionError::new);
+        Assertions
+                .assertTrue(
+                        eventIdSDElement
+                                .getSdParams()
+                                .stream()
+                                .anyMatch(sdParam -> "unixtime".equals(sdParam.getParamName()) && "1700000000123".equals(sdParam.getParamValue()))
+                );
+    }
+
+    @Test
+    @DisplayName(value = "Tests SyslogRecordFactory follows a changed origin hostname")
+    public void testSyslogRecordFactoryWithChangingOrigin() {
+        AtomicReference<String> originalHostname = new AtomicReference<>("fallback");
+        SyslogRecordFactory syslogRecordFactory = new SyslogRecordFactory(
+                new SyslogTemplate("testhost", "testapp", originalHostname.get(), true, false, ""),
+                originalHostname::get
+        );
+        Assertions.assertEquals("fallback", origin(syslogRecordFactory.create("Example Payload").asSyslogMessage()));
+        originalHostname.set("resolved");
+        Assertions.assertEquals("resolved", origin(syslogRecordFactory.create("Example Payload").asSyslogMessage()));
+    }
+
+    @Test
+    @DisplayName(value = "Tests SyslogRecordFactory maps the event level to the syslog severity")
+    public void testSyslogRecordFactoryWithSeverityFromLevel() {
+        SyslogRecordFactory syslogRecordFactory = new SyslogRecordFactory(
+                new SyslogTemplate("testhost", "testapp", "testhost", false, false, ""),
+                () -> "testhost",
+                new SeverityMappingLevel()
+        );
+        Assertions.assertEquals("<9>1 ", priority(syslogRecordFactory.create("fatal", Level.FATAL, 0L)));
+        Assertions.assertEquals("<11>1", priority(syslogRecordFactory.create("error", Level.ERROR, 0L)));
+        Assertions.assertEquals("<12>1", priority(syslogRecordFactory.create("warn", Level.WARN, 0L)));
+        Assertions.assertEquals("<14>1", priority(syslogRecordFactory.create("info", Level.INFO, 0L)));
+        Assertions.assertEquals("<15>1", priority(syslogRecordFactory.create("debug", Level.DEBUG, 0L)));
+        Assertions.assertEquals("<15>1", priority(syslogRecordFactory.create("trace", Level.TRACE, 0L)));
+        Assertions
+                .assertEquals(Severity.ERROR, syslogRecordFactory.create("error", Level.ERROR, 0L).asSyslogMessage().getSeverity());
+        // records without an event keep the fixed severity
+        Assertions.assertEquals("<12>1", priority(syslogRecordFactory.create("summary", 0L)));
+    }
+
+    @Test
+    @DisplayName(value = "Tests SyslogRecordFactory keeps severity WARNING for every level by default")
+    public void testSyslogRecordFactoryWithFixedSeverity() {
+        SyslogRecordFactory syslogRecordFactory = new SyslogRecordFactory(
+                new SyslogTemplate("testhost", "testapp", "testhost", false, false, "")
+        );
+        Assertions.assertEquals("<12>1", priority(syslogRecordFactory.create("error", Level.ERROR, 0L)));
+        Assertions.assertEquals("<12>1", priority(syslogRecordFactory.create("debug", Level.DEBUG, 0L)));
+    }
+
+    @Test
+    @DisplayName(value = "Tests SyslogRecordFactory writes the selected context data keys into their own SD element")
+    public void testSyslogRecordFactoryWithContextData() {
+        SyslogRecordFactory syslogRecordFactory = new SyslogRecordFactory(
+                new SyslogTemplate("testhost", "testapp", "testhost", false, false, ""),
+                () -> "testhost",
+                new SeverityMappingFixed(),
+                new ContextDataElement("context@48577", Arrays.asList("requestId", "user", "missing"))
+        );
+        StringMap contextData = ContextDataFactory.createContextData();
+        contextData.putValue("requestId", "42");
+        contextData.putValue("user", "a \"quoted\" ]name\\");
+        contextData.putValue("ignored", "not selected");
+        LogEvent event = Log4jLogEvent
+                .newBuilder()
+                .setMessage(new SimpleMessage("payload"))
+                .setLevel(Level.INFO)
+                .setContextData(contextData)
+                .build();
+        String expected = "[context@48577 requestId=\"42\" user=\"a \\\"quoted\\\" \\]name\\\\\"] payload";
+
+        SyslogRecord payloadRecord = syslogRecordFactory.create("payload", event, 0L);
+        Assertions.assertTrue(encoded(payloadRecord).endsWith(expected));
+        Assertions.assertEquals(payloadRecord.asSyslogMessage().toRfc5424SyslogMessage(), encoded(payloadRecord));
+        PatternLayout layout = PatternLayout
+                .newBuilder()
+                .withPattern("%msg")
+                .withCharset(StandardCharsets.UTF_8)
+                .build();
+        Assertions.assertTrue(encoded(syslogRecordFactory.create(layout, event, 0L)).endsWith(expected));
+        Assertions.assertTrue(encoded(syslogRecordFactory.reuse(layout, event, 0L)).endsWith(expected));
+
+        // no selected key present, no element
+        LogEvent withoutContextData = Log4jLogEvent
+                .newBuilder()
+                .setMessage(new SimpleMessage("payload"))
+                .setLevel(Level.INFO)
+                .build();
+        Assertions
+                .assertTrue(encoded(syslogRecordFactory.create("payload", withoutContextData, 0L)).endsWith(" - payload"));
+    }
+
+    @Test
+    @DisplayName(value = "Tests ContextDataElement rejects keys that are not valid SD-NAMEs")
+    public void testContextDataElementValidation() {
+        Assertions
+                .assertThrows(
+                        IllegalArgumentException.class,
+                        () -> new ContextDataElement("context@48577", Arrays.asList("a=b"))
+                );
+        Assertions
+                .assertThrows(
+                        IllegalArgumentException.class,
+                        () -> new ContextDataElement("context@48577", Arrays.asList("with space"))
+                );
+        Assertions
+                .assertThrows(
+                        IllegalArgumentException.class, () -> new ContextDataElement("context@48577", Arrays.asList(""))
+                );
+        Assertions
+                .assertThrows(
+                        IllegalArgumentException.class, () -> new ContextDataElement("context]", Arrays.asList("key"))
+                );
+        Assertions
+                .assertThrows(
+                        IllegalArgumentException.class, () -> new ContextDataElement(
+                                "context@48577",
+                                Arrays.asList("abcdefghijklmnopqrstuvwxyz1234567")
+                        )
+                );
+    }
+
+    private String encoded(SyslogRecord syslogRecord) {
+        SyslogBuffer syslogBuffer = new SyslogBuffer();
+        syslogRecord.writeTo(syslogBuffer);
+        return new String(syslogBuffer.toBytes(), StandardCharsets.UTF_8);
+    }
+
+    private String priority(SyslogRecord syslogRecord) {
+        SyslogBuffer syslogBuffer = new SyslogBuffer();
+        syslogRecord.writeTo(syslogBuffer);
+        return new String(syslogBuffer.toBytes(), StandardCharsets.UTF_8).substring(0, 5);
+    }
+
+    private String origin(SyslogMessage syslogMessage) {
+        return syslogMessage
+                .getSDElements()
+                .stream()
+                .filter(sdElement -> "origin@48577".equals(sdElement.getSdID()))
+                .flatMap(sdElement -> sdElement.getSdParams().stream())
+                .filter(sdParam -> "hostname".equals(sdParam.getParamName()))
+                .map(SDParam::getParamValue)
+                .findFirst()
+                .orElseThrow(AssertionError::new);
+    }
 }
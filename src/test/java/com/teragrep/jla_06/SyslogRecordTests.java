@@ -17,11 +17,13 @@
 package com.teragrep.jla_06;
 
 import com.teragrep.jla_06.lib.syslog.SyslogRecordConfigured;
+import com.teragrep.jla_06.lib.syslog.SyslogRecordTemplated;
 import com.teragrep.jla_06.lib.syslog.SyslogRecordWithEventID;
 import com.teragrep.jla_06.lib.syslog.SyslogRecordWithOrigin;
 import com.teragrep.jla_06.lib.syslog.SyslogRecordWithPayload;
 import com.teragrep.jla_06.lib.syslog.SyslogRecordWithSystemID;
 import com.teragrep.jla_06.lib.syslog.SyslogRecordWithTimestamp;
+import com.teragrep.jla_06.lib.syslog.SyslogTemplate;
 import nl.jqno.equalsverifier.EqualsVerifier;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -63,4 +65,22 @@ public class SyslogRecordTests {
     public void testSyslogRecordWithTimestampEqualness() {
         EqualsVerifier.forClass(SyslogRecordWithTimestamp.class).verify();
     }
+
+    @Test
+    @DisplayName(value = "Test SyslogRecordTemplated equalness")
+    public void testSyslogRecordTemplatedEqualness() {
+        EqualsVerifier.forClass(SyslogRecordTemplated.class).verify();
+    }
+
+    @Test
+    @DisplayName(value = "Test SyslogTemplate equalness")
+    public void testSyslogTemplateEqualness() {
+        EqualsVerifier.forClass(SyslogTemplate.class).verify();
+    }
+
+    @Test
+    @DisplayName(value = "Test SyslogRecordWithLayout equalness")
+    public void testSyslogRecordWithLayoutEqualness() {
+        EqualsVerifier.forClass(SyslogRecordWithLayout.class).verify();
+    }
 }
@@ -0,0 +1,90 @@
+/*
+   Log4j2 RELP Plugin
+   Copyright (C) 2021  Suomen Kanuuna Oy
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+   http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package com.teragrep.jla_06;
+
+import com.teragrep.jla_06.lib.syslog.SyslogBuffer;
+import com.teragrep.jla_06.lib.syslog.SyslogRecord;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.core.layout.PatternLayout;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class SyslogRecordWithLayoutTest {
+
+    @Test
+    @DisplayName(value = "Test layout encoded into the buffer matches the String payload path")
+    public void testLayoutMatchesPayload() {
+        PatternLayout layout = PatternLayout
+                .newBuilder()
+                .withPattern("%p %m%n%ex")
+                .withCharset(StandardCharsets.UTF_8)
+                .build();
+        SyslogRecordFactory syslogRecordFactory = new SyslogRecordFactory(
+                "host",
+                "app",
+                "origin",
+                false,
+                true,
+                "system"
+        );
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            large.append("åäö €").append(i);
+        }
+        Exception exception = new IllegalStateException("with a stack trace");
+        LogEvent[] events = {
+                event("", null),
+                event("payload åäö € 😀 \uD800 end", null),
+                event(large.toString(), null),
+                event("failure", exception)
+        };
+
+        SyslogBuffer syslogBuffer = new SyslogBuffer();
+        for (LogEvent event : events) {
+            SyslogRecord expected = syslogRecordFactory
+                    .create(new String(layout.toByteArray(event), StandardCharsets.UTF_8), 1000L);
+            SyslogRecord actual = syslogRecordFactory.create(layout, event, 1000L);
+
+            syslogBuffer.clear();
+            expected.writeTo(syslogBuffer);
+            byte[] expectedBytes = syslogBuffer.toBytes();
+            syslogBuffer.clear();
+            actual.writeTo(syslogBuffer);
+            Assertions.assertArrayEquals(expectedBytes, syslogBuffer.toBytes());
+            Assertions
+                    .assertEquals(
+                            expected.asSyslogMessage().toRfc5424SyslogMessage(),
+                            actual.asSyslogMessage().toRfc5424SyslogMessage()
+                    );
+        }
+    }
+
+    private LogEvent event(String message, Throwable thrown) {
+        return Log4jLogEvent
+                .newBuilder()
+                .setLevel(Level.INFO)
+                .setMessage(new SimpleMessage(message))
+                .setThrown(thrown)
+                .build();
+    }
+}